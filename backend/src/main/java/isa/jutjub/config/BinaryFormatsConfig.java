@@ -0,0 +1,62 @@
+package isa.jutjub.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * CBOR (application/cbor) and Smile (application/x-jackson-smile) responses for
+ * clients that ask for them in their Accept header. JSON stays the default: these
+ * converters take the place Spring MVC gives them by default, after the JSON one.
+ *
+ * Both mappers share the application's Jackson configuration. Keys repeated across
+ * the cards of a page are written once and then referenced: Smile back-references
+ * field names, and, when enabled, string values such as locations and tags. CBOR
+ * can do the same for every string with the stringref extension, but only decoders
+ * that support it can read those responses, so it is off unless enabled.
+ */
+@Configuration
+public class BinaryFormatsConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+            Jackson2ObjectMapperBuilder builder,
+            @Value("${app.binary-formats.cbor-string-references:false}") boolean stringReferences) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(cborFactory(stringReferences)).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+            Jackson2ObjectMapperBuilder builder,
+            @Value("${app.binary-formats.smile-shared-values:true}") boolean sharedValues) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(smileFactory(sharedValues)).build());
+    }
+
+    /**
+     * @param stringReferences whether repeated strings are written as references
+     * @return the CBOR factory of the responses
+     */
+    public static CBORFactory cborFactory(boolean stringReferences) {
+        return CBORFactory.builder()
+                .configure(CBORGenerator.Feature.STRINGREF, stringReferences)
+                .build();
+    }
+
+    /**
+     * @param sharedValues whether repeated short string values are back-referenced, like field names
+     * @return the Smile factory of the responses
+     */
+    public static SmileFactory smileFactory(boolean sharedValues) {
+        return SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+                .configure(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES, sharedValues)
+                .build();
+    }
+}
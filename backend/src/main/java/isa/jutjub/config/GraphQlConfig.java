@@ -0,0 +1,113 @@
+package isa.jutjub.config;
+
+import graphql.GraphQLContext;
+import graphql.GraphqlErrorBuilder;
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.execution.CoercedVariables;
+import graphql.language.IntValue;
+import graphql.schema.Coercing;
+import graphql.schema.CoercingParseLiteralException;
+import graphql.schema.CoercingParseValueException;
+import graphql.schema.CoercingSerializeException;
+import graphql.schema.GraphQLScalarType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.DataFetcherExceptionResolver;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.graphql.execution.RuntimeWiringConfigurer;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Limits and wiring of the GraphQL read API.
+ *
+ * Queries nested deeper than app.graphql.max-depth, or costing more than
+ * app.graphql.max-complexity, are rejected before they run. A field costs one plus
+ * the cost of its selection, times the number of items it can return when it takes a
+ * first or ids argument, so a list of 50 video posts costs 50 times one video post.
+ */
+@Configuration
+public class GraphQlConfig {
+
+    @Bean
+    public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(
+            @Value("${app.graphql.max-depth:6}") int maxDepth) {
+        return new MaxQueryDepthInstrumentation(maxDepth);
+    }
+
+    @Bean
+    public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+            @Value("${app.graphql.max-complexity:1000}") int maxComplexity) {
+        return new MaxQueryComplexityInstrumentation(maxComplexity, listComplexity());
+    }
+
+    /**
+     * @return complexity of a field, scaled by the number of items a list argument asks for
+     */
+    static FieldComplexityCalculator listComplexity() {
+        return (environment, childComplexity) -> {
+            Object first = environment.getArguments().get("first");
+            Object ids = environment.getArguments().get("ids");
+            int items = first instanceof Integer count ? Math.max(count, 1)
+                    : ids instanceof Collection<?> list ? Math.max(list.size(), 1)
+                    : 1;
+            return 1 + items * childComplexity;
+        };
+    }
+
+    /**
+     * Reports invalid arguments, e.g. too many IDs, as client errors like the REST API does
+     */
+    @Bean
+    public DataFetcherExceptionResolver badRequestExceptionResolver() {
+        return DataFetcherExceptionResolver.forSingleError((exception, environment) ->
+                exception instanceof IllegalArgumentException
+                        ? GraphqlErrorBuilder.newError(environment)
+                                .errorType(ErrorType.BAD_REQUEST)
+                                .message(exception.getMessage())
+                                .build()
+                        : null);
+    }
+
+    /**
+     * Counters do not fit the 32-bit Int of GraphQL, they are written as a Long scalar
+     */
+    @Bean
+    public RuntimeWiringConfigurer longScalarConfigurer() {
+        GraphQLScalarType longScalar = GraphQLScalarType.newScalar()
+                .name("Long")
+                .description("64-bit integer")
+                .coercing(new Coercing<Long, Long>() {
+                    @Override
+                    public Long serialize(Object result, GraphQLContext context, Locale locale) {
+                        if (result instanceof Number number) {
+                            return number.longValue();
+                        }
+                        throw new CoercingSerializeException("Expected a number but was " + result);
+                    }
+
+                    @Override
+                    public Long parseValue(Object input, GraphQLContext context, Locale locale) {
+                        if (input instanceof Number number) {
+                            return number.longValue();
+                        }
+                        throw new CoercingParseValueException("Expected a number but was " + input);
+                    }
+
+                    @Override
+                    public Long parseLiteral(graphql.language.Value<?> input, CoercedVariables variables, GraphQLContext context,
+                                             Locale locale) {
+                        if (input instanceof IntValue intValue) {
+                            return intValue.getValue().longValueExact();
+                        }
+                        throw new CoercingParseLiteralException("Expected an integer literal but was " + input);
+                    }
+                })
+                .build();
+        return wiring -> wiring.scalar(longScalar);
+    }
+}
@@ -0,0 +1,105 @@
+package isa.jutjub.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import isa.jutjub.dto.VideoCounters;
+import isa.jutjub.model.VideoPost;
+import isa.jutjub.repository.VideoPostRepository;
+import isa.jutjub.service.ColumnarCatalogue;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate second-level and query cache on an in-process JCache (Caffeine) provider.
+ *
+ * Every region is created here with a bounded size and, except for the update
+ * timestamps, a time to live; Hibernate fails at startup if it asks for a region
+ * that is not configured instead of silently creating an unbounded one.
+ *
+ * Flushed counter deltas do not evict the cached video posts: their counters are
+ * replaced on every load by the ones the {@link ColumnarCatalogue} keeps current.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    private static final String DEFAULT_QUERY_RESULTS_REGION = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${app.cache.video-posts.max-entries:10000}") long videoPostEntries,
+            @Value("${app.cache.video-posts.ttl-seconds:300}") long videoPostTtlSeconds,
+            @Value("${app.cache.listings.max-entries:1000}") long listingEntries,
+            @Value("${app.cache.listings.ttl-seconds:60}") long listingTtlSeconds) {
+        // A provider of its own rather than the JVM-wide one, so that every application context in the JVM,
+        // e.g. the cached contexts of different tests, creates its regions in a cache manager of its own
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+        cacheManager.createCache(VideoPost.CACHE_REGION, region(videoPostEntries, videoPostTtlSeconds));
+        cacheManager.createCache(VideoPost.TAGS_CACHE_REGION, region(videoPostEntries, videoPostTtlSeconds));
+        cacheManager.createCache(VideoPostRepository.LISTINGS_CACHE_REGION, region(listingEntries, listingTtlSeconds));
+        cacheManager.createCache(DEFAULT_QUERY_RESULTS_REGION, region(listingEntries, listingTtlSeconds));
+        // Query results are only valid while the timestamps of their tables are known, never expire them
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, region(10_000, 0));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    @Bean
+    public PostLoadEventListener cachedCountersListener(EntityManagerFactory entityManagerFactory,
+                                                       ColumnarCatalogue columnarCatalogue) {
+        PostLoadEventListener listener = event -> {
+            if (event.getEntity() instanceof VideoPost videoPost) {
+                VideoCounters counts = columnarCatalogue.getCounts(videoPost.getId(), orZero(videoPost.getViewsCount()),
+                        orZero(videoPost.getLikesCount()), orZero(videoPost.getCommentsCount()));
+                // The counter columns are not updatable, so this never makes the entity dirty
+                videoPost.setViewsCount(counts.views());
+                videoPost.setLikesCount(counts.likes());
+                videoPost.setCommentsCount(counts.comments());
+            }
+        };
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, listener);
+        return listener;
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0;
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxEntries, long ttlSeconds) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        if (ttlSeconds > 0) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        }
+        // Hibernate caches immutable disassembled state, copying it on every access would be wasted work
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -1,5 +1,7 @@
 package isa.jutjub.config;
 
+import isa.jutjub.security.JwtAuthenticationFilter;
+import isa.jutjub.security.JwtUtil;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -9,6 +11,7 @@ import org.springframework.security.config.annotation.web.configurers.HeadersCon
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfigurationSource;
 
 @Configuration
@@ -21,7 +24,7 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtUtil jwtUtil) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
@@ -34,12 +37,15 @@ public class SecurityConfig {
                 .requestMatchers("/error").permitAll()
                 // Public auth endpoints (login, register, activate)
                 .requestMatchers("/api/auth/login", "/api/auth/register", "/api/auth/activate", "/api/auth/manual-activate").permitAll()
+                // Operational statistics
+                .requestMatchers("/api/admin/**").hasRole("ADMIN")
                     .requestMatchers("/api/**").permitAll()
                 // Public video viewing endpoints
                 //.requestMatchers(HttpMethod.GET, "/api/video-posts", "/api/video-posts/*", "/api/video-posts/*/video", "/api/video-posts/*/thumbnail", "/api/video-posts/search", "/api/video-posts/recent", "/api/video-posts/popular", "/api/video-posts/tag/*", "/api/video-posts/*/comments").permitAll()
                 // All other endpoints require authentication
                 .anyRequest().authenticated()
             )
+            .addFilterBefore(new JwtAuthenticationFilter(jwtUtil), UsernamePasswordAuthenticationFilter.class)
             .headers(headers -> headers.frameOptions(HeadersConfigurer.FrameOptionsConfig::disable)); // For H2 console
 
         return http.build();
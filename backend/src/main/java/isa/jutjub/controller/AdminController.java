@@ -0,0 +1,133 @@
+package isa.jutjub.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import isa.jutjub.service.CardJsonCache;
+import isa.jutjub.service.CatalogueCountService;
+import isa.jutjub.service.ColumnarCatalogue;
+import isa.jutjub.service.EntityCacheService;
+import isa.jutjub.service.HotVideoTracker;
+import isa.jutjub.service.LikeService;
+import isa.jutjub.service.PlaybackTelemetryService;
+import isa.jutjub.service.NegativeLookupCache;
+import isa.jutjub.service.RequestCoalescer;
+import isa.jutjub.service.ResponseCache;
+import isa.jutjub.service.RetentionService;
+import isa.jutjub.service.TrendingService;
+import isa.jutjub.service.UniqueViewerService;
+import isa.jutjub.service.VideoActivityService;
+import isa.jutjub.service.VideoPageService;
+import isa.jutjub.service.ViewCountService;
+import isa.jutjub.service.ViewDeduplicator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@Tag(name = "Admin", description = "Operational statistics")
+public class AdminController {
+
+    private final ViewCountService viewCountService;
+    private final ViewDeduplicator viewDeduplicator;
+    private final UniqueViewerService uniqueViewerService;
+    private final VideoActivityService videoActivityService;
+    private final TrendingService trendingService;
+    private final HotVideoTracker hotVideoTracker;
+    private final LikeService likeService;
+    private final RetentionService retentionService;
+    private final PlaybackTelemetryService playbackTelemetryService;
+    private final CatalogueCountService catalogueCountService;
+    private final EntityCacheService entityCacheService;
+    private final RequestCoalescer requestCoalescer;
+    private final NegativeLookupCache negativeLookupCache;
+    private final ColumnarCatalogue columnarCatalogue;
+    private final ResponseCache responseCache;
+    private final CardJsonCache cardJsonCache;
+    private final VideoPageService videoPageService;
+
+    @Autowired
+    public AdminController(ViewCountService viewCountService, ViewDeduplicator viewDeduplicator,
+                           UniqueViewerService uniqueViewerService, VideoActivityService videoActivityService,
+                           TrendingService trendingService, HotVideoTracker hotVideoTracker,
+                           LikeService likeService, RetentionService retentionService,
+                           PlaybackTelemetryService playbackTelemetryService,
+                           CatalogueCountService catalogueCountService, EntityCacheService entityCacheService,
+                           RequestCoalescer requestCoalescer, NegativeLookupCache negativeLookupCache,
+                           ColumnarCatalogue columnarCatalogue, ResponseCache responseCache,
+                           CardJsonCache cardJsonCache, VideoPageService videoPageService) {
+        this.viewCountService = viewCountService;
+        this.viewDeduplicator = viewDeduplicator;
+        this.uniqueViewerService = uniqueViewerService;
+        this.videoActivityService = videoActivityService;
+        this.trendingService = trendingService;
+        this.hotVideoTracker = hotVideoTracker;
+        this.likeService = likeService;
+        this.retentionService = retentionService;
+        this.playbackTelemetryService = playbackTelemetryService;
+        this.catalogueCountService = catalogueCountService;
+        this.entityCacheService = entityCacheService;
+        this.requestCoalescer = requestCoalescer;
+        this.negativeLookupCache = negativeLookupCache;
+        this.columnarCatalogue = columnarCatalogue;
+        this.responseCache = responseCache;
+        this.cardJsonCache = cardJsonCache;
+        this.videoPageService = videoPageService;
+    }
+
+    /**
+     * Gets view pipeline statistics
+     */
+    @Operation(summary = "View pipeline statistics", description = "Counter buffer, journal, de-duplication, unique viewer, activity buffer, trending, like, retention and telemetry metrics")
+    @GetMapping("/views")
+    public ResponseEntity<Map<String, Object>> getViewStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("counters", viewCountService.getStats());
+        response.put("deduplication", viewDeduplicator.getStats());
+        response.put("uniqueViewers", uniqueViewerService.getStats());
+        response.put("activity", videoActivityService.getStats());
+        response.put("trending", trendingService.getStats());
+        response.put("likes", likeService.getStats());
+        response.put("retention", retentionService.getStats());
+        response.put("telemetry", playbackTelemetryService.getStats());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Gets the video posts that currently dominate traffic
+     */
+    @Operation(summary = "Hot videos", description = "Heavy hitters of the video post, stream and thumbnail endpoints")
+    @GetMapping("/hot-videos")
+    public ResponseEntity<Map<String, Object>> getHotVideos() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", hotVideoTracker.getHotVideos());
+        response.put("stats", hotVideoTracker.getStats());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Gets listing read path statistics
+     */
+    @Operation(summary = "Read path statistics", description = "Maintained catalogue and tag counts used by the paged listings, second-level cache, request coalescing, negative lookup, columnar catalogue, response cache, card JSON cache and video detail page metrics")
+    @GetMapping("/reads")
+    public ResponseEntity<Map<String, Object>> getReadStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("counts", catalogueCountService.getStats());
+        response.put("entityCache", entityCacheService.getStats());
+        response.put("singleFlight", requestCoalescer.getStats());
+        response.put("negativeLookups", negativeLookupCache.getStats());
+        response.put("columnarCatalogue", columnarCatalogue.getStats());
+        response.put("responseCache", responseCache.getStats());
+        response.put("cardJson", cardJsonCache.getStats());
+        response.put("videoPage", videoPageService.getStats());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,75 @@
+package isa.jutjub.controller;
+
+import isa.jutjub.dto.VideoCounters;
+import isa.jutjub.model.VideoPost;
+import isa.jutjub.service.VideoPostService;
+import org.dataloader.DataLoader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * GraphQL read API of the video catalogue, see graphql/schema.graphqls.
+ *
+ * Every root field loads its video posts with one query, without their tags. The tags
+ * of every video post in a response are then loaded through a per-request DataLoader:
+ * one IN query for all of them, and a video post that appears twice is looked up once.
+ * Counters come from the loaded video post and the in-memory buffers, without a query.
+ * A query for any number of video posts with their tags and counters therefore runs
+ * one statement per root field plus one.
+ * Reading through this API records no views.
+ */
+@Controller
+public class VideoPostGraphQlController {
+
+    private static final String TAGS_LOADER = "videoPostTags";
+
+    private final VideoPostService videoPostService;
+
+    @Value("${app.graphql.max-page-size:100}")
+    private int maxPageSize;
+
+    @Autowired
+    public VideoPostGraphQlController(VideoPostService videoPostService, BatchLoaderRegistry batchLoaderRegistry) {
+        this.videoPostService = videoPostService;
+        batchLoaderRegistry.<Long, List<String>>forName(TAGS_LOADER)
+                .registerMappedBatchLoader((ids, environment) -> Mono.fromCallable(() -> videoPostService.getTags(ids)));
+    }
+
+    @QueryMapping
+    public VideoPost videoPost(@Argument Long id) {
+        return videoPostService.getVideoPostsByIds(List.of(id), false).get(id);
+    }
+
+    @QueryMapping
+    public Collection<VideoPost> videoPosts(@Argument List<Long> ids) {
+        return videoPostService.getVideoPostsByIds(ids, false).values();
+    }
+
+    @QueryMapping
+    public List<VideoPost> recentVideoPosts(@Argument int first, @Argument String tag) {
+        if (first < 1 || first > maxPageSize) {
+            throw new IllegalArgumentException("first must be between 1 and " + maxPageSize + ", got " + first);
+        }
+        return videoPostService.getRecentVideoPosts(tag, first);
+    }
+
+    @SchemaMapping(typeName = "VideoPost")
+    public CompletableFuture<List<String>> tags(VideoPost videoPost, DataLoader<Long, List<String>> videoPostTags) {
+        return videoPostTags.load(videoPost.getId()).thenApply(tags -> tags != null ? tags : List.of());
+    }
+
+    @SchemaMapping(typeName = "VideoPost")
+    public VideoCounters counters(VideoPost videoPost) {
+        return videoPostService.getCounters(videoPost);
+    }
+}
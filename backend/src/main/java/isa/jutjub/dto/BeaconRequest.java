@@ -0,0 +1,34 @@
+package isa.jutjub.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch of player telemetry events sent to the beacon endpoint
+ */
+public class BeaconRequest {
+
+    private List<Event> events = new ArrayList<>();
+
+    public List<Event> getEvents() { return events; }
+    public void setEvents(List<Event> events) { this.events = events; }
+
+    public static class Event {
+
+        /**
+         * startup, stall, watch_time or bitrate
+         */
+        private String type;
+
+        /**
+         * Duration in ms for startup, stall and watch_time, kbps for bitrate
+         */
+        private long value;
+
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+
+        public long getValue() { return value; }
+        public void setValue(long value) { this.value = value; }
+    }
+}
@@ -0,0 +1,27 @@
+package isa.jutjub.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Page whose total may be an estimate rather than an exact count
+ * @param <T> element type
+ */
+public class EstimatedPage<T> extends PageImpl<T> {
+
+    private final boolean totalEstimate;
+
+    public EstimatedPage(List<T> content, Pageable pageable, long total, boolean totalEstimate) {
+        super(content, pageable, total);
+        this.totalEstimate = totalEstimate;
+    }
+
+    /**
+     * @return true if {@link #getTotalElements()} is approximate
+     */
+    public boolean isTotalEstimate() {
+        return totalEstimate;
+    }
+}
@@ -0,0 +1,35 @@
+package isa.jutjub.dto;
+
+import isa.jutjub.model.VideoPost;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One line of the catalogue export: the full text of a video post, its tags and its
+ * persisted counters. File paths are never exposed.
+ */
+public record ExportedVideoPost(Long id,
+                                String title,
+                                String videoDescription,
+                                String location,
+                                Long videoFileSize,
+                                LocalDateTime createdAt,
+                                LocalDateTime updatedAt,
+                                Long likesCount,
+                                Long commentsCount,
+                                Long viewsCount,
+                                List<String> tags) {
+
+    /**
+     * @param videoPost the video post
+     * @param tags its tags, sorted
+     * @return the exported video post
+     */
+    public static ExportedVideoPost of(VideoPost videoPost, List<String> tags) {
+        return new ExportedVideoPost(videoPost.getId(), videoPost.getTitle(), videoPost.getVideoDescription(),
+                videoPost.getLocation(), videoPost.getVideoFileSize(), videoPost.getCreatedAt(),
+                videoPost.getUpdatedAt(), videoPost.getLikesCount(), videoPost.getCommentsCount(),
+                videoPost.getViewsCount(), tags);
+    }
+}
@@ -0,0 +1,107 @@
+package isa.jutjub.dto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fields a client asked for with a fields=a,b,c query parameter. Empty means every
+ * field. Names are checked against the fields of the response type and kept in the
+ * order of that type, so equal selections are equal whatever order they were given in.
+ */
+public final class FieldSet {
+
+    /**
+     * Selection of every field
+     */
+    public static final FieldSet ALL = new FieldSet(List.of());
+
+    private final List<String> names;
+
+    private FieldSet(List<String> names) {
+        this.names = names;
+    }
+
+    /**
+     * Parses a fields parameter
+     * @param fields comma separated field names, or null or blank for every field
+     * @param available the fields of the response type, in their serialized order
+     * @return the selection
+     * @throws IllegalArgumentException if a field is unknown
+     */
+    public static FieldSet parse(String fields, Collection<String> available) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<String> requested = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!available.contains(name)) {
+                throw new IllegalArgumentException("Unknown field '" + name + "', expected any of " + available);
+            }
+            requested.add(name);
+        }
+        List<String> names = new ArrayList<>(requested.size());
+        for (String name : available) {
+            if (requested.contains(name)) {
+                names.add(name);
+            }
+        }
+        return names.size() == available.size() ? ALL : new FieldSet(List.copyOf(names));
+    }
+
+    /**
+     * Parses a fields parameter of a {@link VideoCard} response
+     * @param fields comma separated field names, or null or blank for every field
+     * @return the selection
+     * @throws IllegalArgumentException if a field is not a video card field
+     */
+    public static FieldSet ofCards(String fields) {
+        return parse(fields, VideoCard.FIELDS);
+    }
+
+    /**
+     * @return true if every field is selected
+     */
+    public boolean isAll() {
+        return names.isEmpty();
+    }
+
+    /**
+     * @param name a field name
+     * @return true if the field is selected
+     */
+    public boolean includes(String name) {
+        return names.isEmpty() || names.contains(name);
+    }
+
+    /**
+     * @return the selected field names in serialized order, empty when every field is selected
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof FieldSet fieldSet && names.equals(fieldSet.names);
+    }
+
+    @Override
+    public int hashCode() {
+        return names.hashCode();
+    }
+
+    /**
+     * @return the canonical fields parameter, empty when every field is selected
+     */
+    @Override
+    public String toString() {
+        return String.join(",", names);
+    }
+}
@@ -0,0 +1,67 @@
+package isa.jutjub.dto;
+
+import isa.jutjub.model.VideoPost;
+
+import java.lang.reflect.RecordComponent;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read model of a video post in list views: the columns a card shows, a preview
+ * of the description and the tags. File paths are never exposed.
+ */
+public record VideoCard(Long id,
+                        String title,
+                        String descriptionPreview,
+                        String location,
+                        LocalDateTime createdAt,
+                        Long likesCount,
+                        Long commentsCount,
+                        Long viewsCount,
+                        List<String> tags) {
+
+    /**
+     * Number of description characters in {@link #descriptionPreview()}
+     */
+    public static final int PREVIEW_LENGTH = 200;
+
+    /**
+     * Names of the serialized fields, in their serialized order
+     */
+    public static final List<String> FIELDS = Arrays.stream(VideoCard.class.getRecordComponents())
+            .map(RecordComponent::getName)
+            .toList();
+
+    /**
+     * @param field one of {@link #FIELDS}
+     * @return the value of the field
+     */
+    public Object get(String field) {
+        return switch (field) {
+            case "id" -> id;
+            case "title" -> title;
+            case "descriptionPreview" -> descriptionPreview;
+            case "location" -> location;
+            case "createdAt" -> createdAt;
+            case "likesCount" -> likesCount;
+            case "commentsCount" -> commentsCount;
+            case "viewsCount" -> viewsCount;
+            case "tags" -> tags;
+            default -> throw new IllegalArgumentException("Unknown field '" + field + "'");
+        };
+    }
+
+    /**
+     * Builds a card from a loaded video post whose tags are initialized
+     * @param videoPost the video post
+     * @return the card
+     */
+    public static VideoCard of(VideoPost videoPost) {
+        String description = videoPost.getVideoDescription();
+        return new VideoCard(videoPost.getId(), videoPost.getTitle(),
+                description != null && description.length() > PREVIEW_LENGTH ? description.substring(0, PREVIEW_LENGTH) : description,
+                videoPost.getLocation(), videoPost.getCreatedAt(), videoPost.getLikesCount(),
+                videoPost.getCommentsCount(), videoPost.getViewsCount(), videoPost.getTags().stream().sorted().toList());
+    }
+}
@@ -0,0 +1,11 @@
+package isa.jutjub.dto;
+
+/**
+ * Live interaction counters of a video post: the persisted values plus the deltas
+ * still buffered in memory
+ * @param views number of views
+ * @param likes number of likes
+ * @param comments number of comments
+ */
+public record VideoCounters(long views, long likes, long comments) {
+}
@@ -0,0 +1,28 @@
+package isa.jutjub.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters of the video post listing, a null field does not filter
+ * @param location location containing this text, ignoring case
+ * @param tag tag the video post has
+ * @param createdAfter created strictly after this time
+ * @param minSize minimum video file size in bytes
+ * @param maxSize maximum video file size in bytes
+ */
+public record VideoFilter(String location, String tag, LocalDateTime createdAfter, Long minSize, Long maxSize) {
+
+    public static final VideoFilter NONE = new VideoFilter(null, null, null, null, null);
+
+    public VideoFilter {
+        location = location == null || location.isBlank() ? null : location.trim();
+        tag = tag == null || tag.isBlank() ? null : tag.trim();
+    }
+
+    /**
+     * @return true if no filter is set
+     */
+    public boolean isEmpty() {
+        return location == null && tag == null && createdAfter == null && minSize == null && maxSize == null;
+    }
+}
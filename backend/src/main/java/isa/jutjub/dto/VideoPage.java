@@ -0,0 +1,21 @@
+package isa.jutjub.dto;
+
+import isa.jutjub.model.VideoPost;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the video detail page shows, loaded in one request
+ * @param videoPost the video post
+ * @param counters live view and like counters, and whether the user liked the video
+ * @param comments the first page of comments, always empty until comments are stored
+ * @param related cards of other video posts sharing a tag with this one
+ * @param degraded parts that were too slow or failed and hold a fallback instead
+ */
+public record VideoPage(VideoPost videoPost,
+                        Map<String, Object> counters,
+                        List<Object> comments,
+                        List<VideoCard> related,
+                        List<String> degraded) {
+}
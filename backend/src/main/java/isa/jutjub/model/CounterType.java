@@ -0,0 +1,23 @@
+package isa.jutjub.model;
+
+/**
+ * Interaction counters stored on {@link VideoPost} that can be updated in bulk
+ */
+public enum CounterType {
+    VIEWS("views_count"),
+    LIKES("likes_count"),
+    COMMENTS("comments_count");
+
+    private final String column;
+
+    CounterType(String column) {
+        this.column = column;
+    }
+
+    /**
+     * @return the video_posts column holding this counter
+     */
+    public String getColumn() {
+        return column;
+    }
+}
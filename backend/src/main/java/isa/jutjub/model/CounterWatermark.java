@@ -0,0 +1,67 @@
+package isa.jutjub.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * How far the counter deltas of one node's journal have been applied to video_posts.
+ * Written in the same transaction as the counter UPDATE it describes, so a replay
+ * after a crash can skip the journal records that are already in the database.
+ */
+@Entity
+@Table(name = "counter_watermarks",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"journal_id", "counter_type"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class CounterWatermark extends BaseEntity {
+
+    @Column(name = "journal_id", nullable = false, length = 36)
+    private String journalId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "counter_type", nullable = false, length = 16)
+    private CounterType counterType;
+
+    // Every record of segments up to this sequence is applied
+    @Column(name = "applied_through", nullable = false)
+    private long appliedThrough;
+
+    // Records of segments up to partial_sequence are applied for video IDs up to partial_video_id
+    @Column(name = "partial_sequence", nullable = false)
+    private long partialSequence;
+
+    @Column(name = "partial_video_id", nullable = false)
+    private long partialVideoId;
+
+    public CounterWatermark(String journalId, CounterType counterType) {
+        this.journalId = journalId;
+        this.counterType = counterType;
+    }
+
+    /**
+     * @param sequence the journal segment sequence of a record
+     * @param videoId the video post ID of the record
+     * @return true if the record is already applied
+     */
+    public boolean covers(long sequence, long videoId) {
+        return sequence <= appliedThrough || (sequence <= partialSequence && videoId <= partialVideoId);
+    }
+
+    /**
+     * Moves the watermark past a committed batch, the same way the counter UPDATE does
+     * @param position the position reached by the batch
+     */
+    public void advance(JournalPosition position) {
+        if (position.complete()) {
+            appliedThrough = position.sequence();
+            partialSequence = 0;
+            partialVideoId = 0;
+        } else {
+            partialSequence = position.sequence();
+            partialVideoId = position.videoId();
+        }
+    }
+}
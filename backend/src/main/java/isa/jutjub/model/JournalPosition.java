@@ -0,0 +1,11 @@
+package isa.jutjub.model;
+
+/**
+ * Position in a node's counter journal reached by a committed batch of counter deltas
+ * @param journalId the journal the deltas were recorded in
+ * @param sequence the last segment holding deltas of the batch's generation
+ * @param videoId the highest video post ID of the batch; batches of a counter go in ID order
+ * @param complete whether this was the last batch of the counter in its generation
+ */
+public record JournalPosition(String journalId, long sequence, long videoId, boolean complete) {
+}
@@ -0,0 +1,45 @@
+package isa.jutjub.model;
+
+/**
+ * Kinds of player telemetry accepted by the beacon endpoint
+ */
+public enum PlaybackEventType {
+    STARTUP("startup"),
+    STALL("stall"),
+    WATCH_TIME("watch_time"),
+    BITRATE("bitrate");
+
+    private static final PlaybackEventType[] VALUES = values();
+
+    private final String code;
+
+    PlaybackEventType(String code) {
+        this.code = code;
+    }
+
+    /**
+     * @return the name used in beacon payloads
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Looks up an event type by its payload name
+     * @param code the payload name, case insensitive
+     * @return the event type
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static PlaybackEventType fromCode(String code) {
+        for (PlaybackEventType type : VALUES) {
+            if (type.code.equalsIgnoreCase(code)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown event type: " + code);
+    }
+
+    public static PlaybackEventType fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,55 @@
+package isa.jutjub.model;
+
+import lombok.Getter;
+
+/**
+ * Running totals of the playback telemetry of one video
+ */
+@Getter
+public class PlaybackSummary {
+
+    private long startupCount;
+    private long startupMsTotal;
+    private long stallCount;
+    private long stallMsTotal;
+    private long watchTimeMs;
+    private long bitrateSamples;
+    private long bitrateKbpsTotal;
+
+    /**
+     * Adds one event to the totals
+     * @param type the event type
+     * @param value startup or stall duration in ms, watched ms, or bitrate in kbps
+     */
+    public void add(PlaybackEventType type, long value) {
+        switch (type) {
+            case STARTUP -> {
+                startupCount++;
+                startupMsTotal += value;
+            }
+            case STALL -> {
+                stallCount++;
+                stallMsTotal += value;
+            }
+            case WATCH_TIME -> watchTimeMs += value;
+            case BITRATE -> {
+                bitrateSamples++;
+                bitrateKbpsTotal += value;
+            }
+        }
+    }
+
+    /**
+     * Adds another summary to this one
+     * @param other the summary to add
+     */
+    public void merge(PlaybackSummary other) {
+        startupCount += other.startupCount;
+        startupMsTotal += other.startupMsTotal;
+        stallCount += other.stallCount;
+        stallMsTotal += other.stallMsTotal;
+        watchTimeMs += other.watchTimeMs;
+        bitrateSamples += other.bitrateSamples;
+        bitrateKbpsTotal += other.bitrateKbpsTotal;
+    }
+}
@@ -0,0 +1,31 @@
+package isa.jutjub.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A like of a video post by a user. The unique constraint makes likes idempotent
+ * even when several nodes race on the same (video, user) pair.
+ */
+@Entity
+@Table(name = "video_likes",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"video_post_id", "user_id"}),
+       indexes = @Index(name = "idx_video_likes_video_post_id", columnList = "video_post_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class VideoLike extends BaseEntity {
+
+    @Column(name = "video_post_id", nullable = false)
+    private Long videoPostId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    public VideoLike(Long videoPostId, Long userId) {
+        this.videoPostId = videoPostId;
+        this.userId = userId;
+    }
+}
@@ -0,0 +1,42 @@
+package isa.jutjub.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Accumulated playback telemetry of a video, written in batches by the telemetry consumer
+ */
+@Entity
+@Table(name = "video_playback_stats",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"video_post_id"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class VideoPlaybackStats extends BaseEntity {
+
+    @Column(name = "video_post_id", nullable = false)
+    private Long videoPostId;
+
+    @Column(name = "startup_count", nullable = false)
+    private long startupCount;
+
+    @Column(name = "startup_ms_total", nullable = false)
+    private long startupMsTotal;
+
+    @Column(name = "stall_count", nullable = false)
+    private long stallCount;
+
+    @Column(name = "stall_ms_total", nullable = false)
+    private long stallMsTotal;
+
+    @Column(name = "watch_time_ms", nullable = false)
+    private long watchTimeMs;
+
+    @Column(name = "bitrate_samples", nullable = false)
+    private long bitrateSamples;
+
+    @Column(name = "bitrate_kbps_total", nullable = false)
+    private long bitrateKbpsTotal;
+}
@@ -1,21 +1,34 @@
 package isa.jutjub.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "video_posts")
+@Table(name = "video_posts",
+       indexes = {
+           @Index(name = "idx_video_posts_created_at_id", columnList = "created_at, id"),
+           @Index(name = "idx_video_posts_likes_count_id", columnList = "likes_count, id"),
+           @Index(name = "idx_video_posts_updated_at_id", columnList = "updated_at, id")
+       })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = VideoPost.CACHE_REGION)
 @Getter
 @Setter
 public class VideoPost extends BaseEntity {
 
+    public static final String CACHE_REGION = "video-posts";
+    public static final String TAGS_CACHE_REGION = "video-post-tags";
+
     @NotBlank(message = "Title is required")
     @Size(max = 200, message = "Title must not exceed 200 characters")
     @Column(nullable = false)
@@ -27,13 +40,16 @@ public class VideoPost extends BaseEntity {
     private String videoDescription;
 
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = VideoPost.TAGS_CACHE_REGION)
     @CollectionTable(name = "video_post_tags", joinColumns = @JoinColumn(name = "video_post_id"))
     @Column(name = "tag")
     private Set<String> tags = new HashSet<>();
 
+    @JsonIgnore
     @Column(name = "thumbnail_path")
     private String thumbnailPath;
 
+    @JsonIgnore
     @Column(name = "video_path", nullable = false)
     private String videoPath;
 
@@ -49,14 +65,14 @@ public class VideoPost extends BaseEntity {
     @Column(name = "location")
     private String location;
 
-    // Interaction counters
-    @Column(name = "likes_count")
+    // Interaction counters, only changed by counter UPDATEs and never written back from the entity
+    @Column(name = "likes_count", updatable = false)
     private Long likesCount = 0L;
 
-    @Column(name = "comments_count")
+    @Column(name = "comments_count", updatable = false)
     private Long commentsCount = 0L;
 
-    @Column(name = "views_count")
+    @Column(name = "views_count", updatable = false)
     private Long viewsCount = 0L;
 
     @PrePersist
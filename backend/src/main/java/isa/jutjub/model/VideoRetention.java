@@ -0,0 +1,33 @@
+package isa.jutjub.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * How often each segment of a video was streamed, as big-endian longs, one per segment
+ */
+@Entity
+@Table(name = "video_retention",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"video_post_id"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class VideoRetention extends BaseEntity {
+
+    @Column(name = "video_post_id", nullable = false)
+    private Long videoPostId;
+
+    // 1,000 segments of 8 bytes each
+    @Column(name = "segment_counts", nullable = false, length = 8000)
+    private byte[] segmentCounts;
+
+    // Optimistic locking, so concurrent flushes from several nodes are never lost
+    @Version
+    private Long version;
+
+    public VideoRetention(Long videoPostId) {
+        this.videoPostId = videoPostId;
+    }
+}
@@ -0,0 +1,39 @@
+package isa.jutjub.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Serialized HyperLogLog of the distinct viewers of a video within one day
+ */
+@Entity
+@Table(name = "video_viewer_sketches",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"video_post_id", "window_day"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class VideoViewerSketch extends BaseEntity {
+
+    @Column(name = "video_post_id", nullable = false)
+    private Long videoPostId;
+
+    @Column(name = "window_day", nullable = false)
+    private LocalDate windowDay;
+
+    // Sparse sketches take a few bytes per viewer, dense ones 4KB
+    @Column(name = "registers", nullable = false, length = 4200)
+    private byte[] registers;
+
+    // Optimistic locking, so concurrent merges from several nodes are never lost
+    @Version
+    private Long version;
+
+    public VideoViewerSketch(Long videoPostId, LocalDate windowDay) {
+        this.videoPostId = videoPostId;
+        this.windowDay = windowDay;
+    }
+}
@@ -0,0 +1,23 @@
+package isa.jutjub.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of the sortable and filterable columns held by the columnar catalogue
+ */
+public interface CatalogueRowView {
+
+    Long getId();
+
+    LocalDateTime getCreatedAt();
+
+    Long getLikesCount();
+
+    Long getViewsCount();
+
+    Long getCommentsCount();
+
+    Long getVideoFileSize();
+
+    String getLocation();
+}
@@ -0,0 +1,18 @@
+package isa.jutjub.repository;
+
+import isa.jutjub.model.CounterWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CounterWatermarkRepository extends JpaRepository<CounterWatermark, Long> {
+
+    /**
+     * Find the watermarks of one node's counter journal
+     * @param journalId the journal ID
+     * @return one watermark per counter type that has been flushed
+     */
+    List<CounterWatermark> findByJournalId(String journalId);
+}
@@ -0,0 +1,11 @@
+package isa.jutjub.repository;
+
+/**
+ * Projection of the number of video posts carrying a tag
+ */
+public interface TagCount {
+
+    String getTag();
+
+    Long getCount();
+}
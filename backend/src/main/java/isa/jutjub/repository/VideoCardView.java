@@ -0,0 +1,26 @@
+package isa.jutjub.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of the columns a video post list view shows, without the full
+ * description, the file paths and the tags
+ */
+public interface VideoCardView {
+
+    Long getId();
+
+    String getTitle();
+
+    String getDescriptionPreview();
+
+    String getLocation();
+
+    LocalDateTime getCreatedAt();
+
+    Long getLikesCount();
+
+    Long getCommentsCount();
+
+    Long getViewsCount();
+}
@@ -0,0 +1,51 @@
+package isa.jutjub.repository;
+
+import isa.jutjub.model.VideoLike;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface VideoLikeRepository extends JpaRepository<VideoLike, Long> {
+
+    /**
+     * Find the IDs of all users who liked a video
+     * @param videoPostId the video post ID
+     * @return list of user IDs
+     */
+    @Query("SELECT l.userId FROM VideoLike l WHERE l.videoPostId = :videoPostId")
+    List<Long> findUserIdsByVideoPostId(@Param("videoPostId") Long videoPostId);
+
+    /**
+     * Check whether a user liked a video
+     * @param videoPostId the video post ID
+     * @param userId the user ID
+     * @return true if the like row exists
+     */
+    boolean existsByVideoPostIdAndUserId(Long videoPostId, Long userId);
+
+    /**
+     * Delete the like of a user
+     * @param videoPostId the video post ID
+     * @param userId the user ID
+     * @return number of rows deleted (0 if the user had not liked the video)
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM VideoLike l WHERE l.videoPostId = :videoPostId AND l.userId = :userId")
+    int deleteByVideoPostIdAndUserId(@Param("videoPostId") Long videoPostId, @Param("userId") Long userId);
+
+    /**
+     * Delete all likes of a video
+     * @param videoPostId the video post ID
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM VideoLike l WHERE l.videoPostId = :videoPostId")
+    void deleteByVideoPostId(@Param("videoPostId") Long videoPostId);
+}
@@ -0,0 +1,29 @@
+package isa.jutjub.repository;
+
+import isa.jutjub.model.VideoPlaybackStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface VideoPlaybackStatsRepository extends JpaRepository<VideoPlaybackStats, Long>, VideoPlaybackStatsRepositoryCustom {
+
+    /**
+     * Find the playback totals of a video
+     * @param videoPostId the video post ID
+     * @return the totals, if any telemetry was received for the video
+     */
+    Optional<VideoPlaybackStats> findByVideoPostId(Long videoPostId);
+
+    /**
+     * Delete the playback totals of a video
+     * @param videoPostId the video post ID
+     */
+    @Modifying
+    @Query("DELETE FROM VideoPlaybackStats s WHERE s.videoPostId = :videoPostId")
+    void deleteByVideoPostId(@Param("videoPostId") Long videoPostId);
+}
@@ -0,0 +1,19 @@
+package isa.jutjub.repository;
+
+import isa.jutjub.model.PlaybackSummary;
+
+import java.util.Map;
+
+/**
+ * Batched JDBC writes of playback telemetry totals
+ */
+public interface VideoPlaybackStatsRepositoryCustom {
+
+    /**
+     * Adds summaries to the stored totals, creating rows for videos seen for the first time.
+     * Summaries of video posts that no longer exist are ignored.
+     * @param summaries map of video post ID to the totals to add
+     * @return number of rows updated or created
+     */
+    int addSummaries(Map<Long, PlaybackSummary> summaries);
+}
@@ -0,0 +1,85 @@
+package isa.jutjub.repository;
+
+import isa.jutjub.model.PlaybackSummary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC backed implementation of {@link VideoPlaybackStatsRepositoryCustom}
+ * Picked up by Spring Data through the "Impl" naming convention
+ */
+public class VideoPlaybackStatsRepositoryImpl implements VideoPlaybackStatsRepositoryCustom {
+
+    private static final String UPDATE_SQL = "UPDATE video_playback_stats SET " +
+            "startup_count = startup_count + ?, startup_ms_total = startup_ms_total + ?, " +
+            "stall_count = stall_count + ?, stall_ms_total = stall_ms_total + ?, " +
+            "watch_time_ms = watch_time_ms + ?, " +
+            "bitrate_samples = bitrate_samples + ?, bitrate_kbps_total = bitrate_kbps_total + ?, " +
+            "updated_at = ? WHERE video_post_id = ?";
+
+    // Only creates rows for video posts that still exist
+    private static final String INSERT_SQL = "INSERT INTO video_playback_stats " +
+            "(startup_count, startup_ms_total, stall_count, stall_ms_total, watch_time_ms, " +
+            "bitrate_samples, bitrate_kbps_total, updated_at, video_post_id, created_at, deleted) " +
+            "SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, FALSE WHERE EXISTS (SELECT 1 FROM video_posts WHERE id = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public VideoPlaybackStatsRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public int addSummaries(Map<Long, PlaybackSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> ids = new ArrayList<>(summaries.keySet());
+        List<Object[]> updates = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            updates.add(totals(summaries.get(id), now, id));
+        }
+
+        int written = 0;
+        List<Object[]> inserts = new ArrayList<>();
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                Object[] totals = updates.get(i);
+                Object[] args = new Object[totals.length + 2];
+                System.arraycopy(totals, 0, args, 0, totals.length);
+                args[totals.length] = now;
+                args[totals.length + 1] = ids.get(i);
+                inserts.add(args);
+            } else {
+                // Some drivers report SUCCESS_NO_INFO (-2) for batched statements
+                written += Math.max(updated[i], 1);
+            }
+        }
+        if (!inserts.isEmpty()) {
+            for (int count : jdbcTemplate.batchUpdate(INSERT_SQL, inserts)) {
+                written += Math.max(count, 0);
+            }
+        }
+        return written;
+    }
+
+    private static Object[] totals(PlaybackSummary summary, Timestamp now, Long id) {
+        return new Object[]{
+                summary.getStartupCount(), summary.getStartupMsTotal(),
+                summary.getStallCount(), summary.getStallMsTotal(),
+                summary.getWatchTimeMs(),
+                summary.getBitrateSamples(), summary.getBitrateKbpsTotal(),
+                now, id
+        };
+    }
+}
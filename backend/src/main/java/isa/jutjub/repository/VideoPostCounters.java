@@ -0,0 +1,19 @@
+package isa.jutjub.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of the interaction counters of a video post
+ */
+public interface VideoPostCounters {
+
+    Long getId();
+
+    Long getViewsCount();
+
+    Long getLikesCount();
+
+    Long getCommentsCount();
+
+    LocalDateTime getCreatedAt();
+}
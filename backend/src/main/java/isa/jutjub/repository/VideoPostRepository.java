@@ -1,21 +1,58 @@
 package isa.jutjub.repository;
 
+import isa.jutjub.dto.VideoCard;
 import isa.jutjub.model.VideoPost;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
-public interface VideoPostRepository extends JpaRepository<VideoPost, Long> {
+public interface VideoPostRepository extends JpaRepository<VideoPost, Long>, VideoPostRepositoryCustom {
+
+    /**
+     * Query cache region of the most recent and most popular listings. Evicted
+     * whenever the counters are written outside of Hibernate.
+     */
+    String LISTINGS_CACHE_REGION = "video-post-listings";
+
+    /**
+     * Rows the export stream fetches per round trip, and video posts written per batch
+     */
+    int EXPORT_FETCH_SIZE = 500;
+
+    /**
+     * Select list of the {@link VideoCardView} projection. The description is only read
+     * when the withDescription parameter is true, otherwise its preview is null.
+     */
+    String CARD_COLUMNS = "vp.id AS id, vp.title AS title, " +
+            "CASE WHEN :withDescription = TRUE " +
+            "THEN SUBSTRING(vp.videoDescription, 1, " + VideoCard.PREVIEW_LENGTH + ") END AS descriptionPreview, " +
+            "vp.location AS location, vp.createdAt AS createdAt, vp.likesCount AS likesCount, " +
+            "vp.commentsCount AS commentsCount, vp.viewsCount AS viewsCount";
+
+    /**
+     * Optional filters of {@link #findFiltered}, a null parameter disables its filter
+     */
+    String FILTER_CONDITIONS = "(:location IS NULL OR LOWER(vp.location) LIKE LOWER(CONCAT('%', :location, '%'))) " +
+            "AND (:tag IS NULL OR :tag MEMBER OF vp.tags) " +
+            "AND (:createdAfter IS NULL OR vp.createdAt > :createdAfter) " +
+            "AND (:minSize IS NULL OR vp.videoFileSize >= :minSize) " +
+            "AND (:maxSize IS NULL OR vp.videoFileSize <= :maxSize)";
 
     /**
      * Find video posts by tags
@@ -50,42 +87,182 @@ public interface VideoPostRepository extends JpaRepository<VideoPost, Long> {
     Page<VideoPost> findByCreatedAtAfter(LocalDateTime date, Pageable pageable);
 
     /**
-     * Find most popular video posts ordered by likes count
+     * Find most popular video posts ordered by likes count, ties by ID so pages never overlap
+     * @param withDescription whether to read the description preview
      * @param pageable pagination information
-     * @return page of most popular video posts
+     * @return slice of most popular video post cards, without a total count
      */
-    @Query("SELECT vp FROM VideoPost vp ORDER BY vp.likesCount DESC")
-    Page<VideoPost> findMostPopular(Pageable pageable);
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = LISTINGS_CACHE_REGION)
+    })
+    @Query("SELECT " + CARD_COLUMNS + " FROM VideoPost vp ORDER BY vp.likesCount DESC, vp.id DESC")
+    Slice<VideoCardView> findMostPopular(@Param("withDescription") boolean withDescription, Pageable pageable);
 
     /**
-     * Find most recent video posts ordered by creation date
+     * Find most recent video posts ordered by creation date, ties by ID so pages never overlap
+     * @param withDescription whether to read the description preview
      * @param pageable pagination information
-     * @return page of most recent video posts
+     * @return slice of most recent video post cards, without a total count
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = LISTINGS_CACHE_REGION)
+    })
+    @Query("SELECT " + CARD_COLUMNS + " FROM VideoPost vp ORDER BY vp.createdAt DESC, vp.id DESC")
+    Slice<VideoCardView> findMostRecent(@Param("withDescription") boolean withDescription, Pageable pageable);
+
+    /**
+     * Find all video posts without counting them
+     * @param withDescription whether to read the description preview
+     * @param pageable pagination and sorting information
+     * @return slice of video post cards
      */
-    @Query("SELECT vp FROM VideoPost vp ORDER BY vp.createdAt DESC")
-    Page<VideoPost> findMostRecent(Pageable pageable);
+    @Query("SELECT " + CARD_COLUMNS + " FROM VideoPost vp")
+    Slice<VideoCardView> findAllSliced(@Param("withDescription") boolean withDescription, Pageable pageable);
+
+    /**
+     * Loads video posts without their tags, optionally only those with a tag
+     * @param tag tag the video posts have, or null for all
+     * @param pageable pagination information, sorted by the caller
+     * @return slice of video posts, without a total count
+     */
+    @Query("SELECT vp FROM VideoPost vp WHERE (:tag IS NULL OR :tag MEMBER OF vp.tags)")
+    Slice<VideoPost> findWithOptionalTag(@Param("tag") String tag, Pageable pageable);
+
+    /**
+     * Finds other video posts sharing any tag with a video post
+     * @param id the video post to exclude
+     * @param tags its tags
+     * @param withDescription whether to read the description preview
+     * @param pageable pagination information, sorted by the caller
+     * @return slice of video post cards, without a total count
+     */
+    @Query("SELECT " + CARD_COLUMNS + " FROM VideoPost vp WHERE vp.id <> :id AND " +
+           "EXISTS (SELECT 1 FROM vp.tags t WHERE t IN :tags)")
+    Slice<VideoCardView> findSharingTags(@Param("id") Long id, @Param("tags") Collection<String> tags,
+                                         @Param("withDescription") boolean withDescription, Pageable pageable);
 
     /**
      * Find video posts by a specific tag
      * @param tag tag to search for
+     * @param withDescription whether to read the description preview
      * @param pageable pagination information
-     * @return page of video posts with specified tag
+     * @return slice of video post cards with specified tag, without a total count
+     */
+    @Query("SELECT " + CARD_COLUMNS + " FROM VideoPost vp JOIN vp.tags t WHERE t = :tag")
+    Slice<VideoCardView> findByTag(@Param("tag") String tag, @Param("withDescription") boolean withDescription,
+                                   Pageable pageable);
+
+    /**
+     * Counts the video posts of every tag
+     * @return number of video posts per tag
+     */
+    @Query("SELECT t AS tag, COUNT(vp) AS count FROM VideoPost vp JOIN vp.tags t GROUP BY t")
+    List<TagCount> countAllByTag();
+
+    /**
+     * Gets the IDs of all video posts
+     * @return every video post ID
      */
-    @Query("SELECT vp FROM VideoPost vp JOIN vp.tags t WHERE t = :tag")
-    Page<VideoPost> findByTag(@Param("tag") String tag, Pageable pageable);
+    @Query("SELECT vp.id FROM VideoPost vp")
+    List<Long> findAllIds();
 
     /**
      * Search video posts by multiple criteria (title, description, tags, location)
      * @param keyword search keyword
+     * @param withDescription whether to read the description preview
      * @param pageable pagination information
-     * @return page of video posts matching search criteria
+     * @return slice of video post cards matching search criteria, without a total count
+     */
+    @Query("SELECT " + CARD_COLUMNS + " FROM VideoPost vp WHERE " +
+           "LOWER(vp.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "LOWER(vp.videoDescription) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "LOWER(vp.location) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "EXISTS (SELECT 1 FROM vp.tags t WHERE LOWER(t) LIKE LOWER(CONCAT('%', :keyword, '%')))")
+    Slice<VideoCardView> searchByKeyword(@Param("keyword") String keyword, @Param("withDescription") boolean withDescription,
+                                         Pageable pageable);
+
+    /**
+     * Counts the video posts matching a search keyword
+     * @param keyword search keyword
+     * @return number of matching video posts
      */
-    @Query("SELECT vp FROM VideoPost vp WHERE " +
+    @Query("SELECT COUNT(vp) FROM VideoPost vp WHERE " +
            "LOWER(vp.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
            "LOWER(vp.videoDescription) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
            "LOWER(vp.location) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
            "EXISTS (SELECT 1 FROM vp.tags t WHERE LOWER(t) LIKE LOWER(CONCAT('%', :keyword, '%')))")
-    Page<VideoPost> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
+    long countByKeyword(@Param("keyword") String keyword);
+
+    /**
+     * Keyset page of the most recent video posts: those ordered after (createdAt, id).
+     * Backed by the created_at, id index, so every page costs the same as the first.
+     * @param createdAt creation time of the last video post already returned
+     * @param id ID of the last video post already returned
+     * @param withDescription whether to read the description preview
+     * @param pageable page size (the page number must be 0)
+     * @return slice of video post cards, newest first
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = LISTINGS_CACHE_REGION)
+    })
+    @Query("SELECT " + CARD_COLUMNS + " FROM VideoPost vp WHERE (vp.createdAt, vp.id) < (:createdAt, :id) " +
+           "ORDER BY vp.createdAt DESC, vp.id DESC")
+    Slice<VideoCardView> findMostRecentBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                          @Param("withDescription") boolean withDescription, Pageable pageable);
+
+    /**
+     * Keyset page of the most liked video posts: those ordered after (likesCount, id)
+     * @param likesCount like count of the last video post already returned
+     * @param id ID of the last video post already returned
+     * @param withDescription whether to read the description preview
+     * @param pageable page size (the page number must be 0)
+     * @return slice of video post cards, most liked first
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = LISTINGS_CACHE_REGION)
+    })
+    @Query("SELECT " + CARD_COLUMNS + " FROM VideoPost vp WHERE (vp.likesCount, vp.id) < (:likesCount, :id) " +
+           "ORDER BY vp.likesCount DESC, vp.id DESC")
+    Slice<VideoCardView> findMostPopularBefore(@Param("likesCount") Long likesCount, @Param("id") Long id,
+                                           @Param("withDescription") boolean withDescription, Pageable pageable);
+
+    /**
+     * Keyset page of the video posts with a tag, newest first
+     * @param tag tag to search for
+     * @param createdAt creation time of the last video post already returned
+     * @param id ID of the last video post already returned
+     * @param withDescription whether to read the description preview
+     * @param pageable page size (the page number must be 0)
+     * @return slice of video post cards with the tag
+     */
+    @Query("SELECT " + CARD_COLUMNS + " FROM VideoPost vp JOIN vp.tags t WHERE t = :tag AND (vp.createdAt, vp.id) < (:createdAt, :id) " +
+           "ORDER BY vp.createdAt DESC, vp.id DESC")
+    Slice<VideoCardView> findByTagBefore(@Param("tag") String tag, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id, @Param("withDescription") boolean withDescription,
+                                     Pageable pageable);
+
+    /**
+     * Keyset page of the keyword search, newest first
+     * @param keyword search keyword
+     * @param createdAt creation time of the last video post already returned
+     * @param id ID of the last video post already returned
+     * @param withDescription whether to read the description preview
+     * @param pageable page size (the page number must be 0)
+     * @return slice of video post cards matching search criteria
+     */
+    @Query("SELECT " + CARD_COLUMNS + " FROM VideoPost vp WHERE (vp.createdAt, vp.id) < (:createdAt, :id) AND (" +
+           "LOWER(vp.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "LOWER(vp.videoDescription) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "LOWER(vp.location) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "EXISTS (SELECT 1 FROM vp.tags t WHERE LOWER(t) LIKE LOWER(CONCAT('%', :keyword, '%')))) " +
+           "ORDER BY vp.createdAt DESC, vp.id DESC")
+    Slice<VideoCardView> searchByKeywordBefore(@Param("keyword") String keyword, @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") Long id, @Param("withDescription") boolean withDescription,
+                                           Pageable pageable);
 
     /**
      * Count video posts by user (assuming we add user relationship later)
@@ -114,6 +291,115 @@ public interface VideoPostRepository extends JpaRepository<VideoPost, Long> {
      */
     @Modifying
     @Transactional
-    @Query("UPDATE VideoPost vp SET vp.viewsCount = vp.viewsCount + 1 WHERE vp.id = :id")
+    @Query("UPDATE VideoPost vp SET vp.viewsCount = vp.viewsCount + 1, vp.updatedAt = LOCAL DATETIME WHERE vp.id = :id")
     int incrementViewsCount(@Param("id") Long id);
+
+    /**
+     * Reads the persisted view count directly, bypassing any managed entity instance
+     * @param id the video post ID
+     * @return the views_count column value, or null if the video post does not exist
+     */
+    @Query("SELECT vp.viewsCount FROM VideoPost vp WHERE vp.id = :id")
+    Long findViewsCountById(@Param("id") Long id);
+
+    /**
+     * Reads the persisted like count directly, bypassing any managed entity instance
+     * @param id the video post ID
+     * @return the likes_count column value, or null if the video post does not exist
+     */
+    @Query("SELECT vp.likesCount FROM VideoPost vp WHERE vp.id = :id")
+    Long findLikesCountById(@Param("id") Long id);
+
+    /**
+     * Reads the interaction counters of all video posts without loading the entities
+     * @return counters of every video post
+     */
+    @Query("SELECT vp.id AS id, vp.viewsCount AS viewsCount, vp.likesCount AS likesCount, " +
+           "vp.commentsCount AS commentsCount, vp.createdAt AS createdAt FROM VideoPost vp")
+    List<VideoPostCounters> findAllCounters();
+
+    /**
+     * Loads video posts together with their tags in one query
+     * @param ids the video post IDs
+     * @return the video posts found, in no particular order
+     */
+    @Query("SELECT DISTINCT vp FROM VideoPost vp LEFT JOIN FETCH vp.tags WHERE vp.id IN :ids")
+    List<VideoPost> findAllWithTagsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Loads video posts without their tags in one query
+     * @param ids the video post IDs
+     * @return the video posts found, in no particular order
+     */
+    @Query("SELECT vp FROM VideoPost vp WHERE vp.id IN :ids")
+    List<VideoPost> findAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Loads the tags of several video posts in one query
+     * @param ids the video post IDs
+     * @return one row per (video post, tag)
+     */
+    @Query("SELECT vp.id AS videoPostId, t AS tag FROM VideoPost vp JOIN vp.tags t WHERE vp.id IN :ids")
+    List<VideoTagView> findTagsByVideoPostIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Loads the cards of several video posts in one query
+     * @param ids the video post IDs
+     * @param withDescription whether to read the description preview
+     * @return the cards found, in no particular order
+     */
+    @Query("SELECT " + CARD_COLUMNS + " FROM VideoPost vp WHERE vp.id IN :ids")
+    List<VideoCardView> findCardsByIdIn(@Param("ids") Collection<Long> ids,
+                                        @Param("withDescription") boolean withDescription);
+
+    /**
+     * Reads the sortable and filterable columns of all video posts
+     * @return one row per video post, in ID order
+     */
+    @Query("SELECT vp.id AS id, vp.createdAt AS createdAt, vp.likesCount AS likesCount, " +
+           "vp.viewsCount AS viewsCount, vp.commentsCount AS commentsCount, " +
+           "vp.videoFileSize AS videoFileSize, vp.location AS location FROM VideoPost vp ORDER BY vp.id")
+    List<CatalogueRowView> findAllCatalogueRows();
+
+    /**
+     * Streams video posts for the catalogue export. Rows are fetched from the database
+     * {@link #EXPORT_FETCH_SIZE} at a time, read only and past the second-level cache.
+     * The stream has to be consumed inside a transaction and closed.
+     * @param updatedSince only video posts changed at or after this time, or null for all
+     * @return video posts, least recently changed first
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("SELECT vp FROM VideoPost vp WHERE (:updatedSince IS NULL OR vp.updatedAt >= :updatedSince) " +
+           "ORDER BY vp.updatedAt, vp.id")
+    Stream<VideoPost> streamForExport(@Param("updatedSince") LocalDateTime updatedSince);
+
+    /**
+     * Loads the tags of all video posts
+     * @return one row per (video post, tag)
+     */
+    @Query("SELECT vp.id AS videoPostId, t AS tag FROM VideoPost vp JOIN vp.tags t")
+    List<VideoTagView> findAllTags();
+
+    /**
+     * Filters video posts in SQL, used while the columnar catalogue is not loaded or
+     * for sorts it does not hold. Every filter is optional.
+     * @param location location containing this text, ignoring case
+     * @param tag tag the video post has
+     * @param createdAfter created strictly after this time
+     * @param minSize minimum file size in bytes
+     * @param maxSize maximum file size in bytes
+     * @param withDescription whether to read the description preview
+     * @param pageable pagination and sort information
+     * @return page of video post cards
+     */
+    @Query(value = "SELECT " + CARD_COLUMNS + " FROM VideoPost vp WHERE " + FILTER_CONDITIONS,
+           countQuery = "SELECT COUNT(vp) FROM VideoPost vp WHERE " + FILTER_CONDITIONS)
+    Page<VideoCardView> findFiltered(@Param("location") String location, @Param("tag") String tag,
+                                     @Param("createdAfter") LocalDateTime createdAfter,
+                                     @Param("minSize") Long minSize, @Param("maxSize") Long maxSize,
+                                     @Param("withDescription") boolean withDescription, Pageable pageable);
 }
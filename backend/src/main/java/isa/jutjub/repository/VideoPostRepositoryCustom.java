@@ -0,0 +1,31 @@
+package isa.jutjub.repository;
+
+import isa.jutjub.model.CounterType;
+import isa.jutjub.model.JournalPosition;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Custom repository operations for video posts that need plain JDBC
+ * (batched counter updates which bypass the entity lifecycle)
+ */
+public interface VideoPostRepositoryCustom {
+
+    /**
+     * Adds the given deltas to a counter column using a single JDBC batch, and in the
+     * same transaction moves the counter's journal watermark to the given position
+     * @param type the counter to update
+     * @param deltas map of video post ID to the amount to add
+     * @param position the journal position the deltas reach, or null if they are not journaled
+     * @return number of rows updated
+     */
+    int addCounts(CounterType type, Map<Long, Long> deltas, JournalPosition position);
+
+    /**
+     * Evicts video posts from the second-level cache, and the listings that may hold them
+     * from the query cache, after their rows were changed past Hibernate
+     * @param ids the video post IDs
+     */
+    void evictCached(Collection<Long> ids);
+}
@@ -0,0 +1,116 @@
+package isa.jutjub.repository;
+
+import isa.jutjub.model.CounterType;
+import isa.jutjub.model.JournalPosition;
+import isa.jutjub.model.VideoPost;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC backed implementation of {@link VideoPostRepositoryCustom}
+ * Picked up by Spring Data through the "Impl" naming convention
+ */
+public class VideoPostRepositoryImpl implements VideoPostRepositoryCustom {
+
+    private static final String COMPLETE_WATERMARK_SQL = "UPDATE counter_watermarks SET " +
+            "applied_through = ?, partial_sequence = 0, partial_video_id = 0, updated_at = ? " +
+            "WHERE journal_id = ? AND counter_type = ?";
+
+    private static final String PARTIAL_WATERMARK_SQL = "UPDATE counter_watermarks SET " +
+            "partial_sequence = ?, partial_video_id = ?, updated_at = ? " +
+            "WHERE journal_id = ? AND counter_type = ?";
+
+    private static final String INSERT_WATERMARK_SQL = "INSERT INTO counter_watermarks " +
+            "(journal_id, counter_type, applied_through, partial_sequence, partial_video_id, created_at, updated_at, deleted) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, FALSE)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public VideoPostRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    @Transactional
+    public int addCounts(CounterType type, Map<Long, Long> deltas, JournalPosition position) {
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        // Column name comes from the enum, never from user input. updated_at moves too, so
+        // incremental catalogue exports pick up the changed counters
+        String sql = "UPDATE video_posts SET " + type.getColumn() + " = " + type.getColumn() + " + ?, updated_at = ? WHERE id = ?";
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((id, delta) -> args.add(new Object[]{delta, now, id}));
+
+        // The batch bypasses Hibernate. Cached video posts keep their stale counters and take the
+        // current ones from the columnar catalogue, but likes order the popular listings, so those
+        // are evicted: before the update and again once it is visible, so no reader re-caches the old order
+        if (type == CounterType.LIKES) {
+            evictListings();
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        evictListings();
+                    }
+                });
+            }
+        }
+
+        int updated = 0;
+        for (int count : jdbcTemplate.batchUpdate(sql, args)) {
+            // Some drivers report SUCCESS_NO_INFO (-2) for batched statements
+            updated += Math.max(count, 0);
+        }
+        if (position != null) {
+            advanceWatermark(type, position);
+        }
+        return updated;
+    }
+
+    private void advanceWatermark(CounterType type, JournalPosition position) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int updated = position.complete()
+                ? jdbcTemplate.update(COMPLETE_WATERMARK_SQL, position.sequence(), now, position.journalId(), type.name())
+                : jdbcTemplate.update(PARTIAL_WATERMARK_SQL, position.sequence(), position.videoId(), now,
+                        position.journalId(), type.name());
+        if (updated == 0) {
+            // First flush of this counter from this journal
+            jdbcTemplate.update(INSERT_WATERMARK_SQL, position.journalId(), type.name(),
+                    position.complete() ? position.sequence() : 0,
+                    position.complete() ? 0 : position.sequence(),
+                    position.complete() ? 0 : position.videoId(), now, now);
+        }
+    }
+
+    @Override
+    public void evictCached(Collection<Long> ids) {
+        Cache cache = entityManagerFactory.getCache();
+        for (Long id : ids) {
+            cache.evict(VideoPost.class, id);
+        }
+        evictListings();
+    }
+
+    private void evictListings() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache()
+                .evictQueryRegion(VideoPostRepository.LISTINGS_CACHE_REGION);
+    }
+}
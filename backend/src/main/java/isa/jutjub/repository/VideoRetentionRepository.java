@@ -0,0 +1,29 @@
+package isa.jutjub.repository;
+
+import isa.jutjub.model.VideoRetention;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface VideoRetentionRepository extends JpaRepository<VideoRetention, Long> {
+
+    /**
+     * Find the stored segment counts of a video
+     * @param videoPostId the video post ID
+     * @return the segment counts, if the video was ever streamed
+     */
+    Optional<VideoRetention> findByVideoPostId(Long videoPostId);
+
+    /**
+     * Delete the segment counts of a video
+     * @param videoPostId the video post ID
+     */
+    @Modifying
+    @Query("DELETE FROM VideoRetention r WHERE r.videoPostId = :videoPostId")
+    void deleteByVideoPostId(@Param("videoPostId") Long videoPostId);
+}
@@ -0,0 +1,11 @@
+package isa.jutjub.repository;
+
+/**
+ * Projection of one tag of a video post
+ */
+public interface VideoTagView {
+
+    Long getVideoPostId();
+
+    String getTag();
+}
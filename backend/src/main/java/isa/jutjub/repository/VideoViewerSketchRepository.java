@@ -0,0 +1,40 @@
+package isa.jutjub.repository;
+
+import isa.jutjub.model.VideoViewerSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface VideoViewerSketchRepository extends JpaRepository<VideoViewerSketch, Long> {
+
+    /**
+     * Find the sketch of a video for a single day
+     * @param videoPostId the video post ID
+     * @param windowDay the day
+     * @return the sketch, if any viewer was recorded that day
+     */
+    Optional<VideoViewerSketch> findByVideoPostIdAndWindowDay(Long videoPostId, LocalDate windowDay);
+
+    /**
+     * Find all daily sketches of a video from the given day on
+     * @param videoPostId the video post ID
+     * @param from first day to include
+     * @return list of daily sketches
+     */
+    List<VideoViewerSketch> findByVideoPostIdAndWindowDayGreaterThanEqual(Long videoPostId, LocalDate from);
+
+    /**
+     * Delete all sketches of a video
+     * @param videoPostId the video post ID
+     */
+    @Modifying
+    @Query("DELETE FROM VideoViewerSketch s WHERE s.videoPostId = :videoPostId")
+    void deleteByVideoPostId(@Param("videoPostId") Long videoPostId);
+}
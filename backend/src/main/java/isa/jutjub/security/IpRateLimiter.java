@@ -29,14 +29,6 @@ public class IpRateLimiter extends OncePerRequestFilter {
                 .build();
     }
 
-    private String getClientIp(HttpServletRequest request) {
-        String forwarded = request.getHeader("X-Forwarded-For");
-        if (forwarded != null && !forwarded.isBlank()) {
-            return forwarded.split(",")[0];
-        }
-        return request.getRemoteAddr();
-    }
-
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         // Apply only to auth endpoints
@@ -50,7 +42,7 @@ public class IpRateLimiter extends OncePerRequestFilter {
             FilterChain filterChain
     ) throws ServletException, IOException {
 
-        String ip = getClientIp(request);
+        String ip = ViewerIdentityResolver.getClientIp(request);
         Bucket bucket = buckets.computeIfAbsent(ip, k -> newBucket());
 
         if (bucket.tryConsume(1)) {
@@ -0,0 +1,63 @@
+package isa.jutjub.security;
+
+import isa.jutjub.util.Hashing;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+/**
+ * Identifies the viewer behind a request: the authenticated user when a valid
+ * bearer token is present, the client IP otherwise
+ */
+@Component
+public class ViewerIdentityResolver {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtUtil jwtUtil;
+
+    public ViewerIdentityResolver(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    /**
+     * Resolves the viewer of a request to a 64-bit hash
+     * @param request the HTTP request
+     * @return hash of "user:&lt;username&gt;" or "ip:&lt;address&gt;"
+     */
+    public long resolveViewerHash(HttpServletRequest request) {
+        String username = getUsername(request);
+        if (username != null) {
+            return Hashing.hash64("user:" + username);
+        }
+        return Hashing.hash64("ip:" + getClientIp(request));
+    }
+
+    /**
+     * Gets the username from the bearer token, if any
+     * @param request the HTTP request
+     * @return the username, or null for anonymous requests and invalid tokens
+     */
+    public String getUsername(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+        try {
+            return jwtUtil.getUsernameFromToken(header.substring(BEARER_PREFIX.length()));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the client address. X-Forwarded-For is resolved by the server only for requests
+     * from the trusted proxies in server.tomcat.remoteip.internal-proxies, a header sent by
+     * anyone else is ignored.
+     * @param request the HTTP request
+     * @return the client IP address
+     */
+    public static String getClientIp(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+}
@@ -90,7 +90,7 @@ public class AuthService {
         }
 
         // Generate JWT token
-        String token = jwtUtil.generateToken(existingUser.getUsername());
+        String token = jwtUtil.generateToken(existingUser.getUsername(), existingUser.getRole());
         System.out.println("Generated token for user: " + existingUser.getUsername());
         return token;
     }
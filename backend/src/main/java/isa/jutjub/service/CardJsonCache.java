@@ -0,0 +1,293 @@
+package isa.jutjub.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import isa.jutjub.dto.FieldSet;
+import isa.jutjub.dto.VideoCard;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pre-serialized JSON of {@link VideoCard}s, so list responses are written by copying
+ * cached bytes instead of running Jackson over every card of every page.
+ *
+ * A card is cached as two fragments: everything before the counters, ending with the
+ * likesCount field name, and the tags after them. The counters change too often to
+ * cache and are spliced in between when the card is written. A cached card is only
+ * used while its title, description preview, location, creation time and tags still
+ * equal those of the card being written, otherwise it is rebuilt; updates and deletes
+ * also drop it once they commit. The cache is bounded by app.card-json.max-bytes.
+ *
+ * The output is byte for byte what Jackson writes for the same cards. Generators
+ * that are not JSON (e.g. other content types) get the cards serialized as usual, and
+ * cards limited to some of their fields are written field by field.
+ */
+@Service
+public class CardJsonCache {
+
+    private static final SerializableString COMMENTS_FIELD = new SerializedString(",\"commentsCount\":");
+    private static final SerializableString VIEWS_FIELD = new SerializedString(",\"viewsCount\":");
+    private static final SerializableString NULL = new SerializedString("null");
+    // Strings of the fragment plus its cached UTF-8 bytes and the object headers
+    private static final int FRAGMENT_OVERHEAD_BYTES = 160;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.card-json.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.card-json.max-bytes:16777216}")
+    private long maxBytes;
+
+    private Cache<Long, Fragment> fragments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder builds = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public CardJsonCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        fragments = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long id, Fragment fragment) -> fragment.weight())
+                .build();
+    }
+
+    /**
+     * Wraps cards for a response body, see {@link Cards}
+     * @param cards the cards in response order
+     * @return a value serializing to the same JSON array as the list
+     */
+    public Cards of(List<VideoCard> cards) {
+        return of(cards, FieldSet.ALL);
+    }
+
+    /**
+     * Wraps cards for a response body, see {@link Cards}
+     * @param cards the cards in response order
+     * @param fields the fields to write
+     * @return a value serializing to the JSON array of the selected fields of the cards
+     */
+    public Cards of(List<VideoCard> cards, FieldSet fields) {
+        return new Cards(cards, fields);
+    }
+
+    /**
+     * Drops the cached JSON of a video post once the current transaction commits
+     * @param id the video post ID
+     */
+    public void evict(long id) {
+        Runnable evict = () -> {
+            fragments.invalidate(id);
+            evictions.increment();
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
+    }
+
+    private Fragment fragment(VideoCard card) throws IOException {
+        Fragment fragment = fragments.getIfPresent(card.id());
+        if (fragment != null) {
+            if (fragment.matches(card)) {
+                hits.increment();
+                return fragment;
+            }
+            rebuilds.increment();
+        } else {
+            builds.increment();
+        }
+        fragment = build(card);
+        fragments.put(card.id(), fragment);
+        return fragment;
+    }
+
+    private Fragment build(VideoCard card) throws IOException {
+        StringWriter head = new StringWriter(256);
+        try (JsonGenerator generator = objectMapper.createGenerator(head)) {
+            // Leave the object open after the last static field
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.writeStartObject();
+            writeField(generator, "id", card.id());
+            writeField(generator, "title", card.title());
+            writeField(generator, "descriptionPreview", card.descriptionPreview());
+            writeField(generator, "location", card.location());
+            writeField(generator, "createdAt", card.createdAt());
+        }
+        head.write(",\"likesCount\":");
+        String tail = ",\"tags\":" + objectMapper.writeValueAsString(card.tags()) + "}";
+        return new Fragment(card, warm(head.toString()), warm(tail));
+    }
+
+    private void writeField(JsonGenerator generator, String name, Object value) throws IOException {
+        generator.writeFieldName(name);
+        objectMapper.writeValue(generator, value);
+    }
+
+    private static SerializedString warm(String json) {
+        SerializedString fragment = new SerializedString(json);
+        // Encodes and keeps the UTF-8 bytes now instead of on the first response
+        fragment.asUnquotedUTF8();
+        return fragment;
+    }
+
+    private void writeCard(VideoCard card, JsonGenerator generator, char[] digits) throws IOException {
+        Fragment fragment = fragment(card);
+        generator.writeRaw(fragment.head());
+        writeCount(card.likesCount(), generator, digits);
+        generator.writeRaw(COMMENTS_FIELD);
+        writeCount(card.commentsCount(), generator, digits);
+        generator.writeRaw(VIEWS_FIELD);
+        writeCount(card.viewsCount(), generator, digits);
+        generator.writeRaw(fragment.tail());
+    }
+
+    /**
+     * Writes a counter without allocating a string for it
+     */
+    private static void writeCount(Long count, JsonGenerator generator, char[] digits) throws IOException {
+        if (count == null) {
+            generator.writeRaw(NULL);
+            return;
+        }
+        long value = count;
+        if (value < 0) {
+            generator.writeRaw(Long.toString(value));
+            return;
+        }
+        int start = digits.length;
+        do {
+            digits[--start] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        generator.writeRaw(digits, start, digits.length - start);
+    }
+
+    /**
+     * Gets fragment hit, build and rebuild counts and the cache size
+     * @return card JSON cache statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", fragments.estimatedSize());
+        stats.put("maxBytes", maxBytes);
+        stats.put("sizeBytes", fragments.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L));
+        stats.put("hits", hits.sum());
+        stats.put("builds", builds.sum());
+        stats.put("rebuilds", rebuilds.sum());
+        stats.put("evictions", evictions.sum());
+        long written = hits.sum() + builds.sum() + rebuilds.sum();
+        stats.put("hitRate", written > 0 ? (double) hits.sum() / written : 0.0);
+        return stats;
+    }
+
+    /**
+     * Cards of a response body. Written as raw cached fragments into JSON output and
+     * serialized normally into anything else.
+     */
+    public final class Cards implements JsonSerializable {
+
+        private final List<VideoCard> cards;
+        private final FieldSet fields;
+
+        private Cards(List<VideoCard> cards, FieldSet fields) {
+            this.cards = cards;
+            this.fields = fields;
+        }
+
+        public List<VideoCard> getCards() {
+            return cards;
+        }
+
+        @Override
+        public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+            if (!fields.isAll()) {
+                writeSelected(generator, serializers);
+                return;
+            }
+            if (!enabled || !(generator instanceof JsonGeneratorImpl)) {
+                serializers.defaultSerializeValue(cards, generator);
+                return;
+            }
+            char[] digits = new char[20];
+            generator.writeStartArray(cards, cards.size());
+            for (int i = 0; i < cards.size(); i++) {
+                if (i > 0) {
+                    generator.writeRaw(',');
+                }
+                writeCard(cards.get(i), generator, digits);
+            }
+            generator.writeEndArray();
+        }
+
+        private void writeSelected(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+            generator.writeStartArray(cards, cards.size());
+            for (VideoCard card : cards) {
+                generator.writeStartObject(card);
+                for (String field : fields.getNames()) {
+                    generator.writeFieldName(field);
+                    serializers.defaultSerializeValue(card.get(field), generator);
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+
+        @Override
+        public void serializeWithType(JsonGenerator generator, SerializerProvider serializers,
+                                      TypeSerializer typeSerializer) throws IOException {
+            // Written as a plain array, like the list it stands for
+            serialize(generator, serializers);
+        }
+    }
+
+    private record Fragment(VideoCard source, SerializedString head, SerializedString tail) {
+
+        boolean matches(VideoCard card) {
+            return Objects.equals(source.title(), card.title())
+                    && Objects.equals(source.descriptionPreview(), card.descriptionPreview())
+                    && Objects.equals(source.location(), card.location())
+                    && Objects.equals(source.createdAt(), card.createdAt())
+                    && Objects.equals(source.tags(), card.tags());
+        }
+
+        int weight() {
+            return 2 * (head.charLength() + tail.charLength()) + FRAGMENT_OVERHEAD_BYTES;
+        }
+    }
+}
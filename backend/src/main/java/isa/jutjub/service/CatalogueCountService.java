@@ -0,0 +1,233 @@
+package isa.jutjub.service;
+
+import isa.jutjub.repository.TagCount;
+import isa.jutjub.repository.VideoPostRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maintained totals for the paged listings, so they can skip their COUNT query.
+ *
+ * The number of video posts in the catalogue and per tag is counted once at startup
+ * and then adjusted when a create, update or delete commits. A periodic reconcile
+ * recounts from the database to correct drift from writes this node did not see.
+ *
+ * Search totals cannot be maintained, they are counted once per keyword and reused
+ * for app.counts.search-ttl-ms, so they are estimates.
+ */
+@Service
+@Slf4j
+public class CatalogueCountService {
+
+    private final VideoPostRepository videoPostRepository;
+
+    @Value("${app.counts.reconcile-interval-ms:600000}")
+    private long reconcileIntervalMs;
+
+    @Value("${app.counts.search-ttl-ms:60000}")
+    private long searchTtlMs;
+
+    @Value("${app.counts.search-cache-size:1000}")
+    private int searchCacheSize;
+
+    private final AtomicLong total = new AtomicLong();
+    private volatile Map<String, AtomicLong> tagCounts = new ConcurrentHashMap<>();
+    private volatile boolean seeded;
+
+    private final Map<String, SearchCount> searchCounts = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService reconcileExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "catalogue-count-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong reconciles = new AtomicLong();
+    private final AtomicLong searchCountHits = new AtomicLong();
+    private final AtomicLong searchCountQueries = new AtomicLong();
+
+    @Autowired
+    public CatalogueCountService(VideoPostRepository videoPostRepository) {
+        this.videoPostRepository = videoPostRepository;
+    }
+
+    /**
+     * Counts once the sample data is in place and schedules the reconcile
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reconcile();
+        reconcileExecutor.scheduleWithFixedDelay(this::reconcileSafely, reconcileIntervalMs, reconcileIntervalMs,
+                TimeUnit.MILLISECONDS);
+        log.info("Catalogue counts maintained for {} video posts and {} tags", total.get(), tagCounts.size());
+    }
+
+    /**
+     * Recounts the catalogue and the tags from the database
+     */
+    public synchronized void reconcile() {
+        Map<String, AtomicLong> counted = new ConcurrentHashMap<>();
+        for (TagCount tagCount : videoPostRepository.countAllByTag()) {
+            counted.put(tagCount.getTag(), new AtomicLong(tagCount.getCount()));
+        }
+        total.set(videoPostRepository.count());
+        tagCounts = counted;
+        seeded = true;
+        reconciles.incrementAndGet();
+    }
+
+    private void reconcileSafely() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("Catalogue count reconcile failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Counts a created video post once its transaction commits
+     * @param tags tags of the video post
+     */
+    public void recordCreated(Collection<String> tags) {
+        afterCommit(() -> {
+            total.incrementAndGet();
+            tags.forEach(tag -> adjustTag(tag, 1));
+        });
+    }
+
+    /**
+     * Uncounts a deleted video post once its transaction commits
+     * @param tags tags the video post had
+     */
+    public void recordDeleted(Collection<String> tags) {
+        afterCommit(() -> {
+            total.decrementAndGet();
+            tags.forEach(tag -> adjustTag(tag, -1));
+        });
+    }
+
+    /**
+     * Moves an updated video post between tags once its transaction commits
+     * @param oldTags tags before the update
+     * @param newTags tags after the update
+     */
+    public void recordTagsChanged(Collection<String> oldTags, Collection<String> newTags) {
+        afterCommit(() -> {
+            oldTags.stream().filter(tag -> !newTags.contains(tag)).forEach(tag -> adjustTag(tag, -1));
+            newTags.stream().filter(tag -> !oldTags.contains(tag)).forEach(tag -> adjustTag(tag, 1));
+        });
+    }
+
+    private void adjustTag(String tag, long delta) {
+        tagCounts.compute(tag, (t, count) -> {
+            long updated = (count == null ? 0 : count.get()) + delta;
+            if (updated <= 0) {
+                return null;
+            }
+            if (count == null) {
+                return new AtomicLong(updated);
+            }
+            count.set(updated);
+            return count;
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * @return number of video posts in the catalogue
+     */
+    public long getTotal() {
+        return seeded ? total.get() : videoPostRepository.count();
+    }
+
+    /**
+     * @param tag the tag
+     * @return number of video posts with the tag
+     */
+    public long getTagTotal(String tag) {
+        if (!seeded) {
+            reconcile();
+        }
+        AtomicLong count = tagCounts.get(tag);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * Gets the number of video posts matching a keyword, counted at most once per
+     * app.counts.search-ttl-ms for the same keyword
+     * @param keyword search keyword
+     * @return approximate number of matching video posts
+     */
+    public long getSearchTotal(String keyword) {
+        String key = keyword.toLowerCase(Locale.ROOT);
+        long now = System.currentTimeMillis();
+        SearchCount cached = searchCounts.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            searchCountHits.incrementAndGet();
+            return cached.count;
+        }
+        long count = videoPostRepository.countByKeyword(keyword);
+        searchCountQueries.incrementAndGet();
+        if (searchCounts.size() >= searchCacheSize) {
+            searchCounts.values().removeIf(entry -> entry.expiresAt <= now);
+            if (searchCounts.size() >= searchCacheSize) {
+                searchCounts.clear();
+            }
+        }
+        searchCounts.put(key, new SearchCount(count, now + searchTtlMs));
+        return count;
+    }
+
+    /**
+     * Gets count maintenance statistics
+     * @return count maintenance statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("total", total.get());
+        stats.put("tags", tagCounts.size());
+        stats.put("reconciles", reconciles.get());
+        stats.put("reconcileIntervalMs", reconcileIntervalMs);
+        stats.put("searchCountsCached", searchCounts.size());
+        stats.put("searchCountHits", searchCountHits.get());
+        stats.put("searchCountQueries", searchCountQueries.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reconcileExecutor.shutdownNow();
+    }
+
+    private record SearchCount(long count, long expiresAt) {
+    }
+}
@@ -0,0 +1,102 @@
+package isa.jutjub.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import isa.jutjub.dto.ExportedVideoPost;
+import isa.jutjub.model.VideoPost;
+import isa.jutjub.repository.VideoPostRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes the catalogue as newline-delimited JSON, one {@link ExportedVideoPost} per
+ * line, for indexers that mirror it.
+ *
+ * The video posts are read from one forward-only result stream instead of offset
+ * pages. They are written in batches of {@link VideoPostRepository#EXPORT_FETCH_SIZE}:
+ * the tags of a batch are loaded with one query, the batch is flushed to the client
+ * and the persistence context is cleared, so memory stays flat however large the
+ * catalogue is. Counters are the persisted ones and may trail the live counters by
+ * the write-behind flush interval.
+ *
+ * Video posts come least recently changed first, so an incremental sync can pass the
+ * last updatedAt it received as updatedSince of the next export. Video posts changed
+ * at exactly that time are sent again. Counter updates move updatedAt as well, so
+ * video posts whose views, likes or comments changed are sent again too.
+ */
+@Service
+@Slf4j
+public class CatalogueExportService {
+
+    private final VideoPostRepository videoPostRepository;
+    private final VideoCardService videoCardService;
+    private final EntityManager entityManager;
+    private final ObjectWriter writer;
+
+    @Autowired
+    public CatalogueExportService(VideoPostRepository videoPostRepository, VideoCardService videoCardService,
+                                  EntityManager entityManager, ObjectMapper objectMapper) {
+        this.videoPostRepository = videoPostRepository;
+        this.videoCardService = videoCardService;
+        this.entityManager = entityManager;
+        // Flushed once per batch, not after every line
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Writes the video posts as NDJSON
+     * @param updatedSince only video posts changed at or after this time, or null for all
+     * @param out the response body, left open
+     * @return number of video posts written
+     * @throws IOException if writing fails, e.g. the client went away
+     */
+    @Transactional(readOnly = true)
+    public long export(LocalDateTime updatedSince, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        long written = 0;
+        try (Stream<VideoPost> videoPosts = videoPostRepository.streamForExport(updatedSince);
+             JsonGenerator generator = writer.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Lines are separated by the newline written after each one
+            generator.setRootValueSeparator(null);
+            Iterator<VideoPost> iterator = videoPosts.iterator();
+            List<VideoPost> batch = new ArrayList<>(VideoPostRepository.EXPORT_FETCH_SIZE);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == VideoPostRepository.EXPORT_FETCH_SIZE || !iterator.hasNext()) {
+                    written += writeBatch(batch, generator);
+                    batch.clear();
+                }
+            }
+        }
+        log.info("Exported {} video posts updated since {} in {} ms", written, updatedSince,
+                System.currentTimeMillis() - start);
+        return written;
+    }
+
+    private int writeBatch(List<VideoPost> batch, JsonGenerator generator) throws IOException {
+        List<Long> ids = batch.stream().map(VideoPost::getId).toList();
+        Map<Long, List<String>> tags = videoCardService.loadTags(ids);
+        for (VideoPost videoPost : batch) {
+            writer.writeValue(generator, ExportedVideoPost.of(videoPost, tags.getOrDefault(videoPost.getId(), List.of())));
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+        entityManager.clear();
+        return batch.size();
+    }
+}
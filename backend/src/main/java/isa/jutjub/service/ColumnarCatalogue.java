@@ -0,0 +1,730 @@
+package isa.jutjub.service;
+
+import isa.jutjub.dto.VideoCounters;
+import isa.jutjub.dto.VideoFilter;
+import isa.jutjub.model.CounterType;
+import isa.jutjub.repository.CatalogueRowView;
+import isa.jutjub.repository.VideoPostRepository;
+import isa.jutjub.repository.VideoTagView;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Columnar in-memory snapshot of the catalogue that answers the sorted and filtered
+ * listing without scanning or sorting the table.
+ *
+ * Rows are kept in ID order in parallel primitive arrays: ID, creation time, likes,
+ * views, comments and file size, plus a dictionary code of the location. Tags are
+ * dictionary encoded as one bitmap of video IDs per tag. Every sortable column except
+ * the ID has a permutation of the rows sorted by (value, ID): a sorted page is a slice
+ * of that permutation and a range filter on the sorted column is a binary search in
+ * it. Other filters are checked per row while walking the permutation. That is 72
+ * bytes per video plus the tag bitmaps.
+ *
+ * The snapshot is loaded once the application is ready and reloaded every
+ * app.catalogue.reload-interval-ms, which also picks up views counted in direct mode.
+ * Creates, updates and deletes are applied when they commit, flushed counter deltas
+ * as they are written. That makes it the source of the counters of video posts read
+ * from the second-level and query caches, which flushes leave in place. The permutations of the counter columns are re-sorted in the
+ * background at most every app.catalogue.resort-interval-ms, so a listing sorted by
+ * a counter orders by values up to that old; the values themselves are current.
+ */
+@Service
+@Slf4j
+public class ColumnarCatalogue {
+
+    /**
+     * Columns a listing can be sorted by, with the property name used in the request
+     */
+    public enum Column {
+        ID("id"),
+        CREATED_AT("createdAt"),
+        LIKES("likesCount"),
+        VIEWS("viewsCount"),
+        COMMENTS("commentsCount"),
+        FILE_SIZE("videoFileSize");
+
+        private final String property;
+
+        Column(String property) {
+            this.property = property;
+        }
+
+        /**
+         * @param property a sort property
+         * @return the column, or null if the catalogue cannot sort by it
+         */
+        public static Column of(String property) {
+            for (Column column : values()) {
+                if (column.property.equals(property)) {
+                    return column;
+                }
+            }
+            return null;
+        }
+    }
+
+    // Stands for a missing file size, sorts first like SQL NULLs do in H2
+    private static final long NO_SIZE = Long.MIN_VALUE;
+    private static final int NO_LOCATION = -1;
+    private static final int BYTES_PER_ROW = 6 * Long.BYTES + Integer.BYTES + 5 * Integer.BYTES;
+
+    private final VideoPostRepository videoPostRepository;
+
+    @Value("${app.catalogue.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.catalogue.reload-interval-ms:600000}")
+    private long reloadIntervalMs;
+
+    @Value("${app.catalogue.resort-interval-ms:1000}")
+    private long resortIntervalMs;
+
+    @Value("${app.views.mode:write-behind}")
+    private String viewsMode;
+
+    // Readers share the read lock; writers serialize on writeLock and hold the
+    // write lock only while they change the arrays. A reload holds writeLock for the
+    // whole database read, so no change lands between the read and the swap.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object writeLock = new Object();
+    private volatile boolean loaded;
+
+    private int size;
+    private long[] ids = new long[0];
+    private long[] createdAt = new long[0];
+    private long[] likes = new long[0];
+    private long[] views = new long[0];
+    private long[] comments = new long[0];
+    private long[] fileSizes = new long[0];
+    private int[] locations = new int[0];
+    private List<String> locationDictionary = new ArrayList<>();
+    private Map<String, Integer> locationCodes = new HashMap<>();
+    private Map<String, RoaringBitmap> tagIds = new HashMap<>();
+    private final int[][] orders = new int[Column.values().length][];
+    private final boolean[] stale = new boolean[Column.values().length];
+
+    private final ScheduledExecutorService maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "columnar-catalogue");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong resorts = new AtomicLong();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder unsupported = new LongAdder();
+    private final LongAdder queryNanos = new LongAdder();
+
+    @Autowired
+    public ColumnarCatalogue(VideoPostRepository videoPostRepository) {
+        this.videoPostRepository = videoPostRepository;
+    }
+
+    /**
+     * Loads the catalogue once the sample data is in place and schedules the
+     * reload and the re-sort of the counter columns
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Columnar catalogue disabled, listings are sorted and filtered in SQL");
+            return;
+        }
+        reload();
+        maintenanceExecutor.scheduleWithFixedDelay(() -> runSafely(this::reload, "reload"),
+                reloadIntervalMs, reloadIntervalMs, TimeUnit.MILLISECONDS);
+        maintenanceExecutor.scheduleWithFixedDelay(() -> runSafely(this::resort, "re-sort"),
+                resortIntervalMs, resortIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Columnar catalogue loaded with {} video posts, {} locations and {} tags",
+                size, locationDictionary.size(), tagIds.size());
+    }
+
+    private void runSafely(Runnable task, String name) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            log.error("Columnar catalogue {} failed: {}", name, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reloads the whole catalogue from the database
+     */
+    public void reload() {
+        synchronized (writeLock) {
+            List<CatalogueRowView> rows = videoPostRepository.findAllCatalogueRows();
+            int count = rows.size();
+            long[] newIds = new long[count];
+            long[] newCreatedAt = new long[count];
+            long[] newLikes = new long[count];
+            long[] newViews = new long[count];
+            long[] newComments = new long[count];
+            long[] newFileSizes = new long[count];
+            int[] newLocations = new int[count];
+            List<String> newLocationDictionary = new ArrayList<>();
+            Map<String, Integer> newLocationCodes = new HashMap<>();
+            for (int row = 0; row < count; row++) {
+                CatalogueRowView view = rows.get(row);
+                newIds[row] = view.getId();
+                newCreatedAt[row] = epochNanos(view.getCreatedAt());
+                newLikes[row] = orZero(view.getLikesCount());
+                newViews[row] = orZero(view.getViewsCount());
+                newComments[row] = orZero(view.getCommentsCount());
+                newFileSizes[row] = view.getVideoFileSize() != null ? view.getVideoFileSize() : NO_SIZE;
+                newLocations[row] = encodeLocation(view.getLocation(), newLocationDictionary, newLocationCodes);
+            }
+            Map<String, RoaringBitmap> newTagIds = new HashMap<>();
+            for (VideoTagView tag : videoPostRepository.findAllTags()) {
+                newTagIds.computeIfAbsent(tag.getTag(), t -> new RoaringBitmap()).add(Math.toIntExact(tag.getVideoPostId()));
+            }
+            newTagIds.values().forEach(RoaringBitmap::runOptimize);
+            int[] byCreatedAt = sortedOrder(newCreatedAt, count);
+            int[] byLikes = sortedOrder(newLikes, count);
+            int[] byViews = sortedOrder(newViews, count);
+            int[] byComments = sortedOrder(newComments, count);
+            int[] byFileSize = sortedOrder(newFileSizes, count);
+
+            lock.writeLock().lock();
+            try {
+                size = count;
+                ids = newIds;
+                createdAt = newCreatedAt;
+                likes = newLikes;
+                views = newViews;
+                comments = newComments;
+                fileSizes = newFileSizes;
+                locations = newLocations;
+                locationDictionary = newLocationDictionary;
+                locationCodes = newLocationCodes;
+                tagIds = newTagIds;
+                orders[Column.CREATED_AT.ordinal()] = byCreatedAt;
+                orders[Column.LIKES.ordinal()] = byLikes;
+                orders[Column.VIEWS.ordinal()] = byViews;
+                orders[Column.COMMENTS.ordinal()] = byComments;
+                orders[Column.FILE_SIZE.ordinal()] = byFileSize;
+                Arrays.fill(stale, false);
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            reloads.incrementAndGet();
+        }
+    }
+
+    /**
+     * Re-sorts the permutations of the counter columns that changed since their last sort
+     */
+    public void resort() {
+        synchronized (writeLock) {
+            for (Column column : Column.values()) {
+                int index = column.ordinal();
+                if (!stale[index]) {
+                    continue;
+                }
+                // Writers are excluded, so the values cannot change while sorting
+                int[] sorted = sortedOrder(values(column), size);
+                lock.writeLock().lock();
+                try {
+                    orders[index] = sorted;
+                    stale[index] = false;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                resorts.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Pages through the catalogue with optional filters
+     * @param filter the filters
+     * @param pageable page, size and a sort on at most one {@link Column}
+     * @return the IDs of the page with the exact total, or empty if the catalogue is
+     * not loaded or cannot sort this way
+     */
+    public Optional<Page<Long>> query(VideoFilter filter, Pageable pageable) {
+        Sort sort = pageable.getSort();
+        Column column = Column.ID;
+        boolean descending = false;
+        if (sort.isSorted()) {
+            List<Sort.Order> sortOrders = sort.toList();
+            column = sortOrders.size() == 1 ? Column.of(sortOrders.get(0).getProperty()) : null;
+            descending = sortOrders.get(0).isDescending();
+        }
+        if (!loaded || column == null) {
+            unsupported.increment();
+            return Optional.empty();
+        }
+
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            return Optional.of(page(filter, pageable, column, descending));
+        } finally {
+            lock.readLock().unlock();
+            queries.increment();
+            queryNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private Page<Long> page(VideoFilter filter, Pageable pageable, Column column, boolean descending) {
+        int[] order = orders[column.ordinal()];
+        long[] sortValues = values(column);
+
+        // Range filters on the sorted column narrow the permutation to a slice
+        int from = 0;
+        int to = size;
+        boolean rangeOnSortColumn = false;
+        if (column == Column.CREATED_AT && filter.createdAfter() != null) {
+            from = lowerBound(order, sortValues, epochNanos(filter.createdAfter()) + 1);
+            rangeOnSortColumn = true;
+        } else if (column == Column.FILE_SIZE && (filter.minSize() != null || filter.maxSize() != null)) {
+            from = lowerBound(order, sortValues, filter.minSize() != null ? filter.minSize() : NO_SIZE + 1);
+            if (filter.maxSize() != null) {
+                to = filter.maxSize() == Long.MAX_VALUE ? size : lowerBound(order, sortValues, filter.maxSize() + 1);
+            }
+            to = Math.max(from, to);
+            rangeOnSortColumn = true;
+        }
+
+        boolean[] locationMatches = filter.location() != null ? matchLocations(filter.location()) : null;
+        RoaringBitmap tagged = null;
+        if (filter.tag() != null) {
+            tagged = tagIds.get(filter.tag());
+            if (tagged == null) {
+                return new PageImpl<>(List.of(), pageable, 0);
+            }
+        }
+        boolean createdFilter = filter.createdAfter() != null && column != Column.CREATED_AT;
+        long createdAfter = createdFilter ? epochNanos(filter.createdAfter()) : Long.MIN_VALUE;
+        boolean sizeFilter = column != Column.FILE_SIZE && (filter.minSize() != null || filter.maxSize() != null);
+        long minSize = filter.minSize() != null ? filter.minSize() : NO_SIZE + 1;
+        long maxSize = filter.maxSize() != null ? filter.maxSize() : Long.MAX_VALUE;
+        boolean residual = locationMatches != null || tagged != null || createdFilter || sizeFilter;
+
+        long offset = pageable.getOffset();
+        int pageSize = pageable.getPageSize();
+        List<Long> page = new ArrayList<>(pageSize);
+
+        if (!residual) {
+            // Nothing left to check per row: the page is a slice of the permutation
+            int total = to - from;
+            for (long k = offset; k < total && page.size() < pageSize; k++) {
+                int position = descending ? to - 1 - (int) k : from + (int) k;
+                page.add(ids[order != null ? order[position] : position]);
+            }
+            return new PageImpl<>(page, pageable, total);
+        }
+
+        long total = 0;
+        for (int k = 0; k < to - from; k++) {
+            int position = descending ? to - 1 - k : from + k;
+            int row = order != null ? order[position] : position;
+            if (locationMatches != null && (locations[row] == NO_LOCATION || !locationMatches[locations[row]])) {
+                continue;
+            }
+            if (tagged != null && !tagged.contains((int) ids[row])) {
+                continue;
+            }
+            if (createdFilter && createdAt[row] <= createdAfter) {
+                continue;
+            }
+            if (sizeFilter && (fileSizes[row] < minSize || fileSizes[row] > maxSize)) {
+                continue;
+            }
+            if (total >= offset && page.size() < pageSize) {
+                page.add(ids[row]);
+            }
+            total++;
+        }
+        return new PageImpl<>(page, pageable, total);
+    }
+
+    private boolean[] matchLocations(String text) {
+        String needle = text.toLowerCase(Locale.ROOT);
+        boolean[] matches = new boolean[locationDictionary.size()];
+        for (int code = 0; code < matches.length; code++) {
+            matches[code] = locationDictionary.get(code).toLowerCase(Locale.ROOT).contains(needle);
+        }
+        return matches;
+    }
+
+    /**
+     * Adds or updates a video post once its transaction commits
+     * @param id the video post ID
+     * @param created creation time
+     * @param fileSize video file size, or null
+     * @param location location, or null
+     * @param tags tags of the video post
+     */
+    public void recordSaved(long id, LocalDateTime created, Long fileSize, String location, Collection<String> tags) {
+        afterCommit(() -> {
+            synchronized (writeLock) {
+                if (!loaded) {
+                    return;
+                }
+                lock.writeLock().lock();
+                try {
+                    upsert(id, epochNanos(created), fileSize != null ? fileSize : NO_SIZE, location, tags);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes a video post once its transaction commits
+     * @param id the video post ID
+     */
+    public void recordDeleted(long id) {
+        afterCommit(() -> {
+            synchronized (writeLock) {
+                if (!loaded) {
+                    return;
+                }
+                lock.writeLock().lock();
+                try {
+                    remove(id);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes counter deltas and applies them to the catalogue once written. A reload
+     * cannot run in between, so every delta is counted exactly once.
+     * @param type the counter
+     * @param deltas delta per video post ID
+     * @param write writes the deltas to the database
+     * @return the result of the write
+     */
+    public <T> T writeCounts(CounterType type, Map<Long, Long> deltas, Supplier<T> write) {
+        synchronized (writeLock) {
+            T result = write.get();
+            if (!loaded) {
+                return result;
+            }
+            long[] column = switch (type) {
+                case VIEWS -> views;
+                case LIKES -> likes;
+                case COMMENTS -> comments;
+            };
+            lock.writeLock().lock();
+            try {
+                deltas.forEach((id, delta) -> {
+                    int row = Arrays.binarySearch(ids, 0, size, id);
+                    if (row >= 0) {
+                        column[row] += delta;
+                    }
+                });
+                stale[counterColumn(type).ordinal()] = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Gets the counters of a video post as last written to the database. Views counted in
+     * direct mode are written past the catalogue, so the given views are kept in that mode.
+     * @param id the video post ID
+     * @param views views of a possibly cached copy
+     * @param likes likes of a possibly cached copy
+     * @param comments comments of a possibly cached copy
+     * @return the current counters, or the given ones if the catalogue does not hold the video post
+     */
+    public VideoCounters getCounts(long id, long views, long likes, long comments) {
+        if (!loaded) {
+            return new VideoCounters(views, likes, comments);
+        }
+        lock.readLock().lock();
+        try {
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            if (row < 0) {
+                return new VideoCounters(views, likes, comments);
+            }
+            return new VideoCounters(ViewCountService.MODE_DIRECT.equals(viewsMode) ? views : this.views[row],
+                    this.likes[row], this.comments[row]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return whether the catalogue is loaded and keeps the counters current
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    private static Column counterColumn(CounterType type) {
+        return switch (type) {
+            case VIEWS -> Column.VIEWS;
+            case LIKES -> Column.LIKES;
+            case COMMENTS -> Column.COMMENTS;
+        };
+    }
+
+    private void upsert(long id, long created, long fileSize, String location, Collection<String> tags) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        int code = encodeLocation(location, locationDictionary, locationCodes);
+        int intId = Math.toIntExact(id);
+        tagIds.values().forEach(bitmap -> bitmap.remove(intId));
+        for (String tag : tags) {
+            tagIds.computeIfAbsent(tag, t -> new RoaringBitmap()).add(intId);
+        }
+        if (row >= 0) {
+            // Only the location and the tags of a video post can be updated
+            locations[row] = code;
+            return;
+        }
+
+        row = -row - 1;
+        if (size == ids.length) {
+            int capacity = Math.max(16, size * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            likes = Arrays.copyOf(likes, capacity);
+            views = Arrays.copyOf(views, capacity);
+            comments = Arrays.copyOf(comments, capacity);
+            fileSizes = Arrays.copyOf(fileSizes, capacity);
+            locations = Arrays.copyOf(locations, capacity);
+        }
+        // New IDs are the highest, so this only shifts when creates commit out of order
+        int tail = size - row;
+        System.arraycopy(ids, row, ids, row + 1, tail);
+        System.arraycopy(createdAt, row, createdAt, row + 1, tail);
+        System.arraycopy(likes, row, likes, row + 1, tail);
+        System.arraycopy(views, row, views, row + 1, tail);
+        System.arraycopy(comments, row, comments, row + 1, tail);
+        System.arraycopy(fileSizes, row, fileSizes, row + 1, tail);
+        System.arraycopy(locations, row, locations, row + 1, tail);
+        ids[row] = id;
+        createdAt[row] = created;
+        likes[row] = 0;
+        views[row] = 0;
+        comments[row] = 0;
+        fileSizes[row] = fileSize;
+        locations[row] = code;
+        size++;
+
+        for (Column column : Column.values()) {
+            int[] order = orders[column.ordinal()];
+            if (order == null) {
+                continue;
+            }
+            for (int i = 0; i < order.length; i++) {
+                if (order[i] >= row) {
+                    order[i]++;
+                }
+            }
+            int position = lowerBound(order, values(column), values(column)[row], id);
+            int[] inserted = new int[order.length + 1];
+            System.arraycopy(order, 0, inserted, 0, position);
+            inserted[position] = row;
+            System.arraycopy(order, position, inserted, position + 1, order.length - position);
+            orders[column.ordinal()] = inserted;
+        }
+    }
+
+    private void remove(long id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        if (row < 0) {
+            return;
+        }
+        int intId = Math.toIntExact(id);
+        tagIds.values().forEach(bitmap -> bitmap.remove(intId));
+
+        int tail = size - row - 1;
+        System.arraycopy(ids, row + 1, ids, row, tail);
+        System.arraycopy(createdAt, row + 1, createdAt, row, tail);
+        System.arraycopy(likes, row + 1, likes, row, tail);
+        System.arraycopy(views, row + 1, views, row, tail);
+        System.arraycopy(comments, row + 1, comments, row, tail);
+        System.arraycopy(fileSizes, row + 1, fileSizes, row, tail);
+        System.arraycopy(locations, row + 1, locations, row, tail);
+        size--;
+
+        for (Column column : Column.values()) {
+            int[] order = orders[column.ordinal()];
+            if (order == null) {
+                continue;
+            }
+            int[] removed = new int[order.length - 1];
+            int next = 0;
+            for (int entry : order) {
+                if (entry != row) {
+                    removed[next++] = entry > row ? entry - 1 : entry;
+                }
+            }
+            orders[column.ordinal()] = removed;
+        }
+    }
+
+    private long[] values(Column column) {
+        return switch (column) {
+            case ID -> ids;
+            case CREATED_AT -> createdAt;
+            case LIKES -> likes;
+            case VIEWS -> views;
+            case COMMENTS -> comments;
+            case FILE_SIZE -> fileSizes;
+        };
+    }
+
+    private static int[] sortedOrder(long[] values, int count) {
+        Integer[] boxed = new Integer[count];
+        for (int row = 0; row < count; row++) {
+            boxed[row] = row;
+        }
+        // Rows are in ID order and the sort is stable, so equal values stay ordered by ID
+        Arrays.sort(boxed, (a, b) -> Long.compare(values[a], values[b]));
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = boxed[i];
+        }
+        return order;
+    }
+
+    /**
+     * @return the first position in the permutation whose value is at least the given one
+     */
+    private int lowerBound(int[] order, long[] values, long value) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[order[middle]] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the position where a row with this value and ID belongs in the permutation
+     */
+    private int lowerBound(int[] order, long[] values, long value, long id) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int row = order[middle];
+            if (values[row] < value || (values[row] == value && ids[row] < id)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int encodeLocation(String location, List<String> dictionary, Map<String, Integer> codes) {
+        if (location == null) {
+            return NO_LOCATION;
+        }
+        return codes.computeIfAbsent(location, l -> {
+            dictionary.add(l);
+            return dictionary.size() - 1;
+        });
+    }
+
+    private static long epochNanos(LocalDateTime time) {
+        if (time == null) {
+            return Long.MIN_VALUE;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Gets the size of the catalogue and how fast it answers
+     * @return catalogue statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("loaded", loaded);
+        stats.put("reloads", reloads.get());
+        stats.put("resorts", resorts.get());
+        stats.put("queries", queries.sum());
+        stats.put("unsupported", unsupported.sum());
+        long count = queries.sum();
+        stats.put("avgQueryMicros", count > 0 ? queryNanos.sum() / count / 1_000 : 0);
+        lock.readLock().lock();
+        try {
+            stats.put("videos", size);
+            stats.put("locations", locationDictionary.size());
+            stats.put("tags", tagIds.size());
+            long tagBytes = 0;
+            for (RoaringBitmap bitmap : tagIds.values()) {
+                tagBytes += bitmap.getSizeInBytes();
+            }
+            stats.put("columnBytes", (long) size * BYTES_PER_ROW);
+            stats.put("tagBytes", tagBytes);
+            stats.put("bytesPerVideo", BYTES_PER_ROW);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        maintenanceExecutor.shutdownNow();
+    }
+}
@@ -17,6 +17,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Demo script to test concurrent view count increments
+ * Runs the same load against the direct and the write-behind view counter and compares throughput
  * Run with: --spring.profiles.active=demo --app.demo.concurrent-views=true
  */
 @Component
@@ -24,10 +25,10 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class ConcurrentViewDemo implements CommandLineRunner {
 
     @Autowired
-    private VideoPostService videoPostService;
+    private VideoPostRepository videoPostRepository;
 
     @Autowired
-    private VideoPostRepository videoPostRepository;
+    private ViewCountService viewCountService;
 
     @Override
     public void run(String... args) throws Exception {
@@ -38,8 +39,15 @@ public class ConcurrentViewDemo implements CommandLineRunner {
         // Create a demo video
         VideoPost demoVideo = createDemoVideo();
         
-        // Run concurrent view simulation
-        simulateConcurrentViews(demoVideo.getId());
+        // Run concurrent view simulation with both strategies
+        double directRate = simulateConcurrentViews(demoVideo.getId(), ViewCountService.MODE_DIRECT);
+        double writeBehindRate = simulateConcurrentViews(demoVideo.getId(), ViewCountService.MODE_WRITE_BEHIND);
+        
+        System.out.println("\n" + "⚖️  STRATEGY COMPARISON");
+        System.out.println("-".repeat(40));
+        System.out.println("🐢 direct:       " + String.format("%.2f", directRate) + " views/s");
+        System.out.println("🐇 write-behind: " + String.format("%.2f", writeBehindRate) + " views/s");
+        System.out.println("🚀 Speedup: " + String.format("%.1fx", writeBehindRate / directRate));
         
         System.out.println("\n" + "=".repeat(60));
         System.out.println("✅ DEMONSTRATION COMPLETED");
@@ -63,12 +71,13 @@ public class ConcurrentViewDemo implements CommandLineRunner {
         return saved;
     }
 
-    private void simulateConcurrentViews(Long videoId) throws Exception {
+    private double simulateConcurrentViews(Long videoId, String mode) throws Exception {
         final int numberOfThreads = 20;
-        final int viewsPerThread = 5;
+        final int viewsPerThread = 500;
         final int totalExpectedViews = numberOfThreads * viewsPerThread;
+        final long initialViewCount = viewCountService.getPersistedViews(videoId);
         
-        System.out.println("\n🚀 Starting concurrent view simulation...");
+        System.out.println("\n🚀 Starting concurrent view simulation (" + mode + ")...");
         System.out.println("👥 Simulating " + numberOfThreads + " concurrent users");
         System.out.println("👁️  Each user will view the video " + viewsPerThread + " times");
         System.out.println("📈 Total expected views: " + totalExpectedViews);
@@ -89,12 +98,9 @@ public class ConcurrentViewDemo implements CommandLineRunner {
                 for (int j = 0; j < viewsPerThread; j++) {
                     try {
                         // Simulate user viewing the video
-                        videoPostService.incrementViewCount(videoId);
+                        viewCountService.recordView(videoId, mode);
                         successfulViews.incrementAndGet();
                         
-                        // Simulate user watching time (random delay)
-                        Thread.sleep(10 + (int)(Math.random() * 50));
-                        
                         // Progress indicator
                         if (j == viewsPerThread - 1) {
                             System.out.println("👤 User " + userId + " finished viewing " + viewsPerThread + " times");
@@ -119,11 +125,15 @@ public class ConcurrentViewDemo implements CommandLineRunner {
         executorService.shutdown();
         
         long endTime = System.currentTimeMillis();
-        long duration = endTime - startTime;
+        long duration = Math.max(endTime - startTime, 1);
+        
+        // Write-behind views reach the database on flush
+        viewCountService.flush();
         
         // Get final results
         VideoPost finalVideo = videoPostRepository.findById(videoId).orElse(null);
-        long finalViewCount = finalVideo != null ? finalVideo.getViewsCount() : 0;
+        long finalViewCount = (finalVideo != null ? finalVideo.getViewsCount() : 0) - initialViewCount;
+        double viewsPerSecond = (double) finalViewCount / (duration / 1000.0);
         
         // Display results
         System.out.println("\n" + "📊 RESULTS");
@@ -133,7 +143,7 @@ public class ConcurrentViewDemo implements CommandLineRunner {
         System.out.println("❌ Failed views: " + failedViews.get());
         System.out.println("📈 Expected views: " + totalExpectedViews);
         System.out.println("🎯 Actual views: " + finalViewCount);
-        System.out.println("📊 Views per second: " + String.format("%.2f", (double) finalViewCount / (duration / 1000.0)));
+        System.out.println("📊 Views per second: " + String.format("%.2f", viewsPerSecond));
         
         // Verify correctness
         boolean testPassed = finalViewCount == totalExpectedViews && failedViews.get() == 0;
@@ -150,6 +160,8 @@ public class ConcurrentViewDemo implements CommandLineRunner {
         System.out.println("\n📹 Demo video final state:");
         System.out.println("   ID: " + videoId);
         System.out.println("   Title: " + (finalVideo != null ? finalVideo.getTitle() : "N/A"));
-        System.out.println("   Views: " + finalViewCount);
+        System.out.println("   Views: " + (finalViewCount + initialViewCount));
+        
+        return viewsPerSecond;
     }
 }
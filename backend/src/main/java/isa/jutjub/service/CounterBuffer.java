@@ -0,0 +1,438 @@
+package isa.jutjub.service;
+
+import isa.jutjub.model.CounterType;
+import isa.jutjub.model.CounterWatermark;
+import isa.jutjub.model.JournalPosition;
+import isa.jutjub.repository.CounterWatermarkRepository;
+import isa.jutjub.repository.VideoPostRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind buffer for video post counters.
+ *
+ * Deltas are absorbed by a striped LongAdder per (counter, video ID) and flushed
+ * to video_posts in periodic batched UPDATEs. Each delta is appended to the
+ * {@link CounterJournal} before it is acknowledged.
+ *
+ * Deltas are grouped in generations, each owning its own journal segments. A flush
+ * seals the current generation, waits for writers still inside it, applies its sums
+ * in ID order and only then deletes its segments; a generation whose batch failed is
+ * retried as it is before the next one is sealed. A crash at any point therefore
+ * leaves every unapplied delta on disk, next to deltas that were already applied.
+ * To tell them apart, every batch moves a {@link CounterWatermark} in the same
+ * transaction as its UPDATE, and startup replays only the records above it.
+ */
+@Component
+@Slf4j
+public class CounterBuffer {
+
+    private final VideoPostRepository videoPostRepository;
+    private final CounterWatermarkRepository counterWatermarkRepository;
+    private final CounterJournal journal;
+    private final ColumnarCatalogue columnarCatalogue;
+
+    @Value("${app.counters.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${app.counters.batch-size:500}")
+    private int batchSize;
+
+    private volatile Generation current = new Generation();
+    // Sealed and being applied, or waiting for a retry after a failed batch
+    private volatile Generation flushing;
+
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "counter-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Object flushLock = new Object();
+    private final AtomicLong flushedDeltas = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong replayedDeltas = new AtomicLong();
+
+    @Autowired
+    public CounterBuffer(VideoPostRepository videoPostRepository, CounterWatermarkRepository counterWatermarkRepository,
+                         CounterJournal journal, ColumnarCatalogue columnarCatalogue) {
+        this.videoPostRepository = videoPostRepository;
+        this.counterWatermarkRepository = counterWatermarkRepository;
+        this.journal = journal;
+        this.columnarCatalogue = columnarCatalogue;
+    }
+
+    @PostConstruct
+    public void start() {
+        replayJournal();
+        flushExecutor.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Counter buffer started (flush every {}ms, batch size {}, journal {})",
+                flushIntervalMs, batchSize, journal.isEnabled() ? "enabled" : "disabled");
+    }
+
+    /**
+     * Applies deltas of segments that were not flushed before the last shutdown or crash,
+     * skipping the records the watermarks show as already applied
+     */
+    void replayJournal() {
+        if (!journal.isEnabled()) {
+            return;
+        }
+        Map<CounterType, CounterWatermark> watermarks = new EnumMap<>(CounterType.class);
+        for (CounterWatermark watermark : counterWatermarkRepository.findByJournalId(journal.getJournalId())) {
+            watermarks.put(watermark.getCounterType(), watermark);
+            journal.advanceSequence(Math.max(watermark.getAppliedThrough(), watermark.getPartialSequence()));
+        }
+
+        List<Path> segments = journal.listSegments();
+        if (segments.isEmpty()) {
+            return;
+        }
+
+        Generation replayed = new Generation(segments);
+        long total = 0;
+        long skipped = 0;
+        for (Path segment : segments) {
+            long sequence = CounterJournal.sequenceOf(segment);
+            for (Map.Entry<CounterType, Map<Long, Long>> deltas : journal.readSegments(List.of(segment)).entrySet()) {
+                CounterWatermark watermark = watermarks.get(deltas.getKey());
+                Map<Long, LongAdder> adders = replayed.adders(deltas.getKey());
+                for (Map.Entry<Long, Long> delta : deltas.getValue().entrySet()) {
+                    if (watermark != null && watermark.covers(sequence, delta.getKey())) {
+                        skipped += delta.getValue();
+                    } else {
+                        adders.computeIfAbsent(delta.getKey(), k -> new LongAdder()).add(delta.getValue());
+                        total += delta.getValue();
+                    }
+                }
+            }
+        }
+        log.info("Replaying {} counter deltas from {} journal segments, {} already applied",
+                total, segments.size(), skipped);
+
+        // Applied like a sealed generation; if the database is not reachable it stays pending
+        // and the flusher retries it before sealing the next one
+        flushing = replayed;
+        flush();
+        replayedDeltas.addAndGet(total);
+    }
+
+    /**
+     * Records a counter delta. It is journaled before this method returns.
+     * @param id the video post ID
+     * @param type the counter
+     * @param delta the amount to add
+     */
+    public void record(Long id, CounterType type, long delta) {
+        while (true) {
+            Generation generation = current;
+            generation.inFlight.incrementAndGet();
+            try {
+                if (generation != current) {
+                    // Sealed between the read and the increment, retry on the new one
+                    continue;
+                }
+                generation.append(id, type, delta);
+                generation.adders(type).computeIfAbsent(id, k -> new LongAdder()).add(delta);
+                return;
+            } finally {
+                generation.inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Gets deltas recorded but not yet flushed to the database
+     * @param id the video post ID
+     * @param type the counter
+     * @return the pending delta
+     */
+    public long getPending(Long id, CounterType type) {
+        while (true) {
+            // flush() publishes the sealed generation before replacing current, so read in the same order
+            Generation sealed = flushing;
+            Generation live = current;
+            if (flushing != sealed) {
+                // Sealed or released between the two reads, retry
+                continue;
+            }
+            long pending = live.pending(id, type);
+            if (sealed != null && sealed != live) {
+                pending += sealed.pending(id, type);
+            }
+            return pending;
+        }
+    }
+
+    /**
+     * Drops pending deltas for a deleted video post
+     * @param id the video post ID
+     */
+    public void discard(Long id) {
+        for (CounterType type : CounterType.values()) {
+            current.adders(type).remove(id);
+        }
+    }
+
+    /**
+     * Flushes all pending deltas to the database in batches of app.counters.batch-size
+     * A generation whose batch failed keeps its remaining deltas and is retried on the next flush
+     * @return sum of the deltas written
+     */
+    public long flush() {
+        synchronized (flushLock) {
+            Generation sealed = flushing;
+            if (sealed == null) {
+                sealed = current;
+                if (sealed.isEmpty()) {
+                    return 0;
+                }
+                flushing = sealed;
+                current = new Generation();
+                sealed.awaitQuiescence();
+            }
+
+            long written = 0;
+            for (CounterType type : CounterType.values()) {
+                written += flushCounter(sealed, type);
+            }
+
+            if (sealed.isApplied()) {
+                // Every delta of the sealed generation is now in the database
+                sealed.releaseSegments(journal);
+                flushing = null;
+            }
+
+            if (written != 0) {
+                flushedDeltas.addAndGet(written);
+                flushCount.incrementAndGet();
+                log.debug("Flushed {} counter deltas", written);
+            }
+            return written;
+        }
+    }
+
+    private long flushCounter(Generation sealed, CounterType type) {
+        Map<Long, LongAdder> adders = sealed.adders(type);
+        if (adders.isEmpty()) {
+            return 0;
+        }
+
+        // Sorted by ID so concurrent flushers on other nodes lock rows in the same order,
+        // and so a watermark can describe the committed batches by their highest ID
+        TreeMap<Long, Long> deltas = new TreeMap<>();
+        adders.forEach((id, adder) -> deltas.put(id, adder.sum()));
+
+        // A replayed generation's records were filtered against the watermarks, so its
+        // deltas are applied in one batch that moves the watermark past all of them at once
+        int limit = sealed.replayed ? Integer.MAX_VALUE : batchSize;
+        long written = 0;
+        Map<Long, Long> batch = new TreeMap<>();
+        for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            boolean last = entry.getKey().equals(deltas.lastKey());
+            if (batch.size() >= limit || last) {
+                Long batchWritten = writeBatch(adders, type, batch, sealed.position(entry.getKey(), last));
+                if (batchWritten == null) {
+                    // Later batches wait too, so the committed ones stay a prefix in ID order
+                    return written;
+                }
+                written += batchWritten;
+                batch = new TreeMap<>();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * @return sum of the deltas written, or null if the batch failed and stays pending
+     */
+    private Long writeBatch(Map<Long, LongAdder> adders, CounterType type, Map<Long, Long> batch, JournalPosition position) {
+        // Cached video posts take their counters from the catalogue; until it is loaded they are
+        // evicted before the update and again once it is visible, so no reader re-caches the old counts
+        boolean evict = !columnarCatalogue.isLoaded();
+        try {
+            if (evict) {
+                videoPostRepository.evictCached(batch.keySet());
+            }
+            columnarCatalogue.writeCounts(type, batch, () -> videoPostRepository.addCounts(type, batch, position));
+            if (evict) {
+                videoPostRepository.evictCached(batch.keySet());
+            }
+        } catch (Exception e) {
+            log.error("Failed to flush {} {} deltas, retrying on the next flush: {}", batch.size(), type, e.getMessage());
+            return null;
+        }
+        // Committed: stop reporting these as pending
+        batch.keySet().forEach(adders::remove);
+        return batch.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Counter flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets buffer statistics
+     * @return buffer statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("flushIntervalMs", flushIntervalMs);
+        stats.put("batchSize", batchSize);
+        stats.put("flushedDeltas", flushedDeltas.get());
+        stats.put("flushCount", flushCount.get());
+        stats.put("replayedDeltas", replayedDeltas.get());
+        stats.put("journalRecords", current.recordCount());
+        stats.put("journal", journal.getStats());
+        Map<String, Long> pending = new HashMap<>();
+        for (CounterType type : CounterType.values()) {
+            pending.put(type.name(), current.adders(type).values().stream().mapToLong(LongAdder::sum).sum());
+        }
+        stats.put("pending", pending);
+        return stats;
+    }
+
+    /**
+     * Stops the flusher and writes out any remaining deltas
+     */
+    @PreDestroy
+    public void shutdown() {
+        log.info("Shutting down CounterBuffer...");
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                flushExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flushExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flushSafely();
+    }
+
+    /**
+     * Pending deltas plus the journal segments that hold them
+     */
+    private final class Generation {
+
+        private final EnumMap<CounterType, Map<Long, LongAdder>> adders = new EnumMap<>(CounterType.class);
+        private final List<CounterJournal.Segment> segments = new ArrayList<>();
+        private final List<Path> replayedSegments;
+        private final boolean replayed;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile CounterJournal.Segment segment;
+
+        Generation() {
+            this(List.of(), false);
+        }
+
+        /**
+         * A generation read back from segments left on disk
+         */
+        Generation(List<Path> replayedSegments) {
+            this(replayedSegments, true);
+        }
+
+        private Generation(List<Path> replayedSegments, boolean replayed) {
+            this.replayedSegments = replayedSegments;
+            this.replayed = replayed;
+            for (CounterType type : CounterType.values()) {
+                adders.put(type, new ConcurrentHashMap<>());
+            }
+        }
+
+        Map<Long, LongAdder> adders(CounterType type) {
+            return adders.get(type);
+        }
+
+        long pending(Long id, CounterType type) {
+            LongAdder adder = adders.get(type).get(id);
+            return adder != null ? adder.sum() : 0;
+        }
+
+        boolean isEmpty() {
+            return isApplied() && segment == null && replayedSegments.isEmpty();
+        }
+
+        boolean isApplied() {
+            return adders.values().stream().allMatch(Map::isEmpty);
+        }
+
+        /**
+         * @return the watermark position after a batch up to the given video ID, or null without a journal
+         */
+        synchronized JournalPosition position(long videoId, boolean complete) {
+            long sequence;
+            if (replayed) {
+                sequence = replayedSegments.isEmpty() ? 0 : CounterJournal.sequenceOf(replayedSegments.get(replayedSegments.size() - 1));
+            } else {
+                sequence = segments.isEmpty() ? 0 : CounterJournal.sequenceOf(segments.get(segments.size() - 1).getPath());
+            }
+            return sequence == 0 ? null : new JournalPosition(journal.getJournalId(), sequence, videoId, complete);
+        }
+
+        void append(long id, CounterType type, long delta) {
+            if (!journal.isEnabled()) {
+                return;
+            }
+            CounterJournal.Segment active = segment;
+            while (active == null || !active.append(id, type, delta)) {
+                active = roll(active);
+            }
+        }
+
+        /**
+         * Opens a new segment unless another writer already replaced the full one
+         */
+        private synchronized CounterJournal.Segment roll(CounterJournal.Segment full) {
+            if (segment == full) {
+                segment = journal.createSegment();
+                segments.add(segment);
+            }
+            return segment;
+        }
+
+        void awaitQuiescence() {
+            while (inFlight.get() != 0) {
+                Thread.onSpinWait();
+            }
+        }
+
+        synchronized int recordCount() {
+            return segments.stream().mapToInt(CounterJournal.Segment::getRecordCount).sum();
+        }
+
+        synchronized void releaseSegments(CounterJournal journal) {
+            for (CounterJournal.Segment s : segments) {
+                s.release();
+                journal.delete(s.getPath());
+            }
+            segments.clear();
+            replayedSegments.forEach(journal::delete);
+        }
+    }
+}
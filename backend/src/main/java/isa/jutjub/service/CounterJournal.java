@@ -0,0 +1,313 @@
+package isa.jutjub.service;
+
+import isa.jutjub.model.CounterType;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, memory-mapped log of counter deltas.
+ *
+ * Every buffered counter increment is written here before it is acknowledged, so
+ * a JVM crash does not lose deltas that were not yet flushed to video_posts: the
+ * mapped pages belong to the OS page cache and survive the process.
+ *
+ * Records are fixed size (24 bytes: video ID, delta, counter type, checksum) and
+ * written with absolute puts into a slot reserved by a single atomic add, so the
+ * append path is sequential and allocation free. Segments are deleted once their
+ * deltas are committed to the database.
+ */
+@Component
+@Slf4j
+public class CounterJournal {
+
+    static final int RECORD_SIZE = 24;
+
+    private static final String SEGMENT_PREFIX = "counters-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String ID_FILE = "journal.id";
+    private static final int CHECKSUM_SEED = 0x5EED_C0DE;
+
+    @Value("${app.journal.dir:./journal}")
+    private String journalDir;
+
+    @Value("${app.journal.segment-size-kb:4096}")
+    private int segmentSizeKb;
+
+    @Value("${app.journal.enabled:true}")
+    private boolean enabled;
+
+    private final AtomicLong nextSequence = new AtomicLong();
+    private String journalId;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            log.info("Counter journal disabled");
+            return;
+        }
+
+        Path dir = Paths.get(journalDir);
+        if (!Files.exists(dir)) {
+            Files.createDirectories(dir);
+        }
+
+        // Identifies this journal's watermarks in the database, stable across restarts
+        Path idFile = dir.resolve(ID_FILE);
+        if (!Files.exists(idFile)) {
+            Files.writeString(idFile, UUID.randomUUID().toString(), StandardOpenOption.CREATE_NEW);
+        }
+        journalId = Files.readString(idFile).trim();
+
+        // Continue numbering after any segments left behind by a previous run
+        long maxSequence = listSegments().stream().mapToLong(CounterJournal::sequenceOf).max().orElse(0);
+        nextSequence.set(maxSequence + 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the ID of this journal, or null if the journal is disabled
+     */
+    public String getJournalId() {
+        return journalId;
+    }
+
+    /**
+     * Makes new segments number after the given sequence, so the sequences stay above
+     * the applied watermarks even when every segment was deleted
+     * @param sequence a sequence already used
+     */
+    public void advanceSequence(long sequence) {
+        nextSequence.accumulateAndGet(sequence + 1, Math::max);
+    }
+
+    /**
+     * Creates and maps a new, zero-filled segment
+     * @return the new segment
+     */
+    public Segment createSegment() {
+        long sequence = nextSequence.getAndIncrement();
+        Path path = Paths.get(journalDir, String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        int capacity = (segmentSizeKb * 1024 / RECORD_SIZE) * RECORD_SIZE;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            log.debug("Created journal segment {}", path);
+            return new Segment(path, buffer, capacity);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create journal segment " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lists segments currently on disk, oldest first
+     * @return segment paths
+     */
+    public List<Path> listSegments() {
+        Path dir = Paths.get(journalDir);
+        if (!enabled || !Files.exists(dir)) {
+            return List.of();
+        }
+
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX) &&
+                              path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted()
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list journal segments: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads segments and sums their valid records per counter and video ID
+     * Torn or never-written slots fail the checksum and are skipped
+     * @param segments segment paths to read
+     * @return aggregated deltas per counter type
+     */
+    public Map<CounterType, Map<Long, Long>> readSegments(List<Path> segments) {
+        Map<CounterType, Map<Long, Long>> totals = new EnumMap<>(CounterType.class);
+        CounterType[] types = CounterType.values();
+
+        for (Path path : segments) {
+            MappedByteBuffer buffer = null;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                int skipped = 0;
+                for (int offset = 0; offset + RECORD_SIZE <= buffer.capacity(); offset += RECORD_SIZE) {
+                    long videoId = buffer.getLong(offset);
+                    long delta = buffer.getLong(offset + 8);
+                    int type = buffer.getInt(offset + 16);
+                    int checksum = buffer.getInt(offset + 20);
+
+                    if (checksum != checksum(videoId, delta, type) || type < 0 || type >= types.length) {
+                        if (checksum != 0) {
+                            skipped++;
+                        }
+                        continue;
+                    }
+                    totals.computeIfAbsent(types[type], t -> new HashMap<>()).merge(videoId, delta, Long::sum);
+                }
+                if (skipped > 0) {
+                    log.warn("Skipped {} torn records in journal segment {}", skipped, path);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read journal segment " + path + ": " + e.getMessage(), e);
+            } finally {
+                if (buffer != null) {
+                    Unmapper.unmap(buffer);
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Deletes a segment file whose deltas have been applied
+     * @param path the segment path
+     */
+    public void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.error("Failed to delete journal segment {}: {}", path, e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("journalDir", journalDir);
+        stats.put("segmentSizeKb", segmentSizeKb);
+        stats.put("segmentsOnDisk", listSegments().size());
+        return stats;
+    }
+
+    static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    static int checksum(long videoId, long delta, int type) {
+        long h = videoId * 0x9E3779B97F4A7C15L ^ delta * 0xC2B2AE3D27D4EB4FL ^ type;
+        // Never zero, so an untouched slot is distinguishable from a valid record
+        return ((int) (h ^ (h >>> 32)) ^ CHECKSUM_SEED) | 1;
+    }
+
+    /**
+     * A mapped segment file. Writers reserve slots with a single atomic add,
+     * so concurrent appends never overlap and need no lock.
+     */
+    public static final class Segment {
+
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        private final AtomicInteger reserved = new AtomicInteger();
+
+        private Segment(Path path, MappedByteBuffer buffer, int capacity) {
+            this.path = path;
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+
+        /**
+         * Appends a record
+         * @return false if the segment is full and the caller has to roll
+         */
+        public boolean append(long videoId, CounterType type, long delta) {
+            if (reserved.get() >= capacity) {
+                return false;
+            }
+            int offset = reserved.getAndAdd(RECORD_SIZE);
+            if (offset + RECORD_SIZE > capacity) {
+                return false;
+            }
+            int typeOrdinal = type.ordinal();
+            buffer.putLong(offset, videoId);
+            buffer.putLong(offset + 8, delta);
+            buffer.putInt(offset + 16, typeOrdinal);
+            // Checksum last, so a record torn by a crash is rejected on replay
+            buffer.putInt(offset + 20, checksum(videoId, delta, typeOrdinal));
+            return true;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public int getRecordCount() {
+            return Math.min(reserved.get(), capacity) / RECORD_SIZE;
+        }
+
+        /**
+         * Unmaps the segment so the file can be deleted (required on Windows)
+         */
+        public void release() {
+            Unmapper.unmap(buffer);
+        }
+    }
+
+    /**
+     * Releases mapped buffers eagerly instead of waiting for GC
+     */
+    private static final class Unmapper {
+
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                unsafe = field.get(null);
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (Exception e) {
+                log.warn("Mapped buffers cannot be released eagerly: {}", e.getMessage());
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        static void unmap(MappedByteBuffer buffer) {
+            if (INVOKE_CLEANER == null) {
+                return;
+            }
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } catch (Exception e) {
+                log.warn("Failed to unmap journal segment: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package isa.jutjub.service;
+
+import isa.jutjub.model.VideoPost;
+import isa.jutjub.repository.VideoPostRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reports the Hibernate second-level and query cache statistics
+ */
+@Service
+public class EntityCacheService {
+
+    private static final List<String> REGIONS = List.of(VideoPost.CACHE_REGION, VideoPost.TAGS_CACHE_REGION);
+
+    private final Statistics statistics;
+
+    @Autowired
+    public EntityCacheService(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Gets per region hit, miss and put counts
+     * @return cache statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", statistics.isStatisticsEnabled());
+        stats.put("secondLevelHits", statistics.getSecondLevelCacheHitCount());
+        stats.put("secondLevelMisses", statistics.getSecondLevelCacheMissCount());
+        stats.put("secondLevelPuts", statistics.getSecondLevelCachePutCount());
+        stats.put("queryHits", statistics.getQueryCacheHitCount());
+        stats.put("queryMisses", statistics.getQueryCacheMissCount());
+        stats.put("queryPuts", statistics.getQueryCachePutCount());
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String region : REGIONS) {
+            regions.put(region, regionStats(statistics.getDomainDataRegionStatistics(region)));
+        }
+        regions.put(VideoPostRepository.LISTINGS_CACHE_REGION,
+                regionStats(statistics.getQueryRegionStatistics(VideoPostRepository.LISTINGS_CACHE_REGION)));
+        stats.put("regions", regions);
+        return stats;
+    }
+
+    private static Map<String, Object> regionStats(CacheRegionStatistics region) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (region == null) {
+            return stats;
+        }
+        stats.put("hits", region.getHitCount());
+        stats.put("misses", region.getMissCount());
+        stats.put("puts", region.getPutCount());
+        // JCache does not report sizes, Hibernate then returns a negative count
+        if (region.getElementCountInMemory() >= 0) {
+            stats.put("entriesInMemory", region.getElementCountInMemory());
+        }
+        return stats;
+    }
+}
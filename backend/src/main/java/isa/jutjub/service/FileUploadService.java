@@ -1,7 +1,9 @@
 package isa.jutjub.service;
 
 import jakarta.annotation.PreDestroy;
+import isa.jutjub.util.SingleFlight;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
@@ -40,6 +42,15 @@ public class FileUploadService {
 
     private final ThreadPoolExecutor uploadExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(4);
 
+    private final SingleFlight<String, Resource> videoFileLoads;
+    private final SingleFlight<String, Resource> thumbnailLoads;
+
+    @Autowired
+    public FileUploadService(RequestCoalescer requestCoalescer) {
+        this.videoFileLoads = requestCoalescer.newGroup("videoFiles");
+        this.thumbnailLoads = requestCoalescer.newGroup("thumbnails");
+    }
+
     /**
      * Uploads video file with timeout monitoring
      * @param videoFile the video file to upload
@@ -169,12 +180,16 @@ public class FileUploadService {
     }
 
     /**
-     * Gets video file resource for streaming
+     * Gets video file resource for streaming. Concurrent lookups of the same file share one lookup.
      * @param filePath the file path
      * @return the video file resource
      * @throws RuntimeException if file not found
      */
     public Resource getVideoFile(String filePath) {
+        return videoFileLoads.load(filePath, () -> loadVideoFile(filePath));
+    }
+
+    private Resource loadVideoFile(String filePath) {
         try {
             // Handle Windows paths and normalize
             Path path = Paths.get(filePath).normalize();
@@ -209,12 +224,16 @@ public class FileUploadService {
     }
 
     /**
-     * Gets thumbnail file resource
+     * Gets thumbnail file resource. Concurrent lookups of the same file share one lookup.
      * @param filePath the file path
      * @return the thumbnail file resource
      * @throws RuntimeException if file not found
      */
     public Resource getThumbnailFile(String filePath) {
+        return thumbnailLoads.load(filePath, () -> loadThumbnailFile(filePath));
+    }
+
+    private Resource loadThumbnailFile(String filePath) {
         try {
             Path path = Paths.get(filePath);
             Resource resource = new UrlResource(path.toUri());
@@ -0,0 +1,202 @@
+package isa.jutjub.service;
+
+import isa.jutjub.util.CountMinSketch;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects video IDs that dominate request traffic.
+ *
+ * Every request for a video post, its stream or its thumbnail is counted in a
+ * fixed-size {@link CountMinSketch}. IDs whose estimate reaches the admission
+ * threshold compete for a small fixed table of heavy hitters, replacing the weakest
+ * entry with a single CAS. Counters are halved every app.hot-keys.decay-interval-ms,
+ * so the table follows current traffic. Nothing on the request path locks or allocates.
+ */
+@Service
+@Slf4j
+public class HotVideoTracker {
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    @Value("${app.hot-keys.width:16384}")
+    private int width;
+
+    @Value("${app.hot-keys.depth:4}")
+    private int depth;
+
+    @Value("${app.hot-keys.capacity:32}")
+    private int capacity;
+
+    @Value("${app.hot-keys.min-count:50}")
+    private long minCount;
+
+    @Value("${app.hot-keys.decay-interval-ms:60000}")
+    private long decayIntervalMs;
+
+    private CountMinSketch sketch;
+    private long[] hitters;
+
+    /**
+     * Smallest estimate an ID needs to enter the heavy-hitter table,
+     * the weakest entry's estimate once the table is full
+     */
+    private volatile long admissionThreshold;
+
+    private final ScheduledExecutorService decayExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "hot-video-decay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder replacements = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        sketch = new CountMinSketch(width, depth);
+        hitters = new long[capacity];
+        Arrays.fill(hitters, EMPTY);
+        admissionThreshold = minCount;
+        decayExecutor.scheduleWithFixedDelay(this::decaySafely, decayIntervalMs, decayIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Hot video tracking: {}x{} sketch ({} KB), {} heavy hitters",
+                sketch.getDepth(), sketch.getWidth(), sketch.getSizeInBytes() / 1024, capacity);
+    }
+
+    /**
+     * Counts a request for a video post
+     * @param videoId the video post ID
+     */
+    public void record(Long videoId) {
+        requests.increment();
+        long estimate = sketch.add(videoId, 1);
+        if (estimate >= admissionThreshold) {
+            admit(videoId, estimate);
+        }
+    }
+
+    private void admit(long videoId, long estimate) {
+        int weakest = -1;
+        long weakestEstimate = Long.MAX_VALUE;
+        for (int i = 0; i < hitters.length; i++) {
+            long id = (long) SLOTS.getVolatile(hitters, i);
+            if (id == videoId) {
+                return;
+            }
+            long slotEstimate = id == EMPTY ? -1 : sketch.estimate(id);
+            if (slotEstimate < weakestEstimate) {
+                weakest = i;
+                weakestEstimate = slotEstimate;
+            }
+        }
+        if (weakestEstimate < estimate) {
+            long displaced = (long) SLOTS.getVolatile(hitters, weakest);
+            // Losing this race to another writer is fine, the next request retries
+            if (SLOTS.compareAndSet(hitters, weakest, displaced, videoId)) {
+                replacements.increment();
+            }
+        }
+    }
+
+    /**
+     * Checks whether a video currently receives a large share of the traffic
+     * @param videoId the video post ID
+     * @return true if the video is a heavy hitter with at least app.hot-keys.min-count recent requests
+     */
+    public boolean isHot(Long videoId) {
+        for (int i = 0; i < hitters.length; i++) {
+            if ((long) SLOTS.getVolatile(hitters, i) == videoId) {
+                return sketch.estimate(videoId) >= minCount;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the current heavy hitters
+     * @return video IDs with their estimated recent request counts, hottest first
+     */
+    public List<Map<String, Object>> getHotVideos() {
+        List<Map<String, Object>> hot = new ArrayList<>();
+        for (int i = 0; i < hitters.length; i++) {
+            long id = (long) SLOTS.getVolatile(hitters, i);
+            if (id == EMPTY) {
+                continue;
+            }
+            long estimate = sketch.estimate(id);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("videoId", id);
+            entry.put("estimatedRequests", estimate);
+            entry.put("hot", estimate >= minCount);
+            hot.add(entry);
+        }
+        hot.sort(Comparator.comparingLong((Map<String, Object> e) -> (Long) e.get("estimatedRequests")).reversed());
+        return hot;
+    }
+
+    /**
+     * Halves all counts and recomputes the admission threshold
+     */
+    void decay() {
+        sketch.halve();
+        long weakest = Long.MAX_VALUE;
+        for (int i = 0; i < hitters.length; i++) {
+            long id = (long) SLOTS.getVolatile(hitters, i);
+            if (id == EMPTY) {
+                weakest = 0;
+                break;
+            }
+            weakest = Math.min(weakest, sketch.estimate(id));
+        }
+        admissionThreshold = Math.max(minCount, weakest);
+    }
+
+    private void decaySafely() {
+        try {
+            decay();
+        } catch (Exception e) {
+            log.error("Hot video decay failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets tracker statistics
+     * @return tracker statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("sketchWidth", sketch.getWidth());
+        stats.put("sketchDepth", sketch.getDepth());
+        stats.put("sketchBytes", sketch.getSizeInBytes());
+        stats.put("capacity", capacity);
+        stats.put("minCount", minCount);
+        stats.put("admissionThreshold", admissionThreshold);
+        stats.put("decayIntervalMs", decayIntervalMs);
+        stats.put("requests", requests.sum());
+        stats.put("replacements", replacements.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        decayExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,286 @@
+package isa.jutjub.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import isa.jutjub.model.CounterType;
+import isa.jutjub.model.User;
+import isa.jutjub.model.VideoLike;
+import isa.jutjub.repository.UserRepository;
+import isa.jutjub.repository.VideoLikeRepository;
+import isa.jutjub.repository.VideoPostRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Idempotent per-user likes.
+ *
+ * Likes are stored in video_likes, one row per (video, user). Each video with like
+ * activity also keeps a compressed bitmap of the users who liked it, loaded from
+ * the table on first use, so "has this user liked it" never hits the database.
+ * Bitmaps are only created for existing video posts, the least recently used ones
+ * are evicted and all of them are reloaded after a TTL, so likes made through other
+ * nodes show up within that time. The bitmap is never trusted to drop a write: a
+ * repeated like is confirmed against the table and an unlike always runs its
+ * DELETE, whose row count and the unique constraint decide what is counted.
+ * likes_count is only changed through the {@link CounterBuffer} and its batched
+ * atomic UPDATEs.
+ */
+@Service
+@Slf4j
+public class LikeService {
+
+    private final VideoLikeRepository videoLikeRepository;
+    private final VideoPostRepository videoPostRepository;
+    private final UserRepository userRepository;
+    private final CounterBuffer counterBuffer;
+
+    @Value("${app.likes.max-videos:10000}")
+    private long maxVideos;
+
+    @Value("${app.likes.max-usernames:100000}")
+    private long maxUsernames;
+
+    @Value("${app.likes.bitmap-ttl-seconds:30}")
+    private long bitmapTtlSeconds;
+
+    private Cache<Long, VideoLikes> likes;
+    private Cache<String, Long> userIds;
+
+    private final AtomicLong likeCount = new AtomicLong();
+    private final AtomicLong unlikeCount = new AtomicLong();
+    private final AtomicLong ignoredToggles = new AtomicLong();
+
+    @Autowired
+    public LikeService(VideoLikeRepository videoLikeRepository, VideoPostRepository videoPostRepository,
+                       UserRepository userRepository, CounterBuffer counterBuffer) {
+        this.videoLikeRepository = videoLikeRepository;
+        this.videoPostRepository = videoPostRepository;
+        this.userRepository = userRepository;
+        this.counterBuffer = counterBuffer;
+    }
+
+    @PostConstruct
+    public void init() {
+        likes = Caffeine.newBuilder()
+                .maximumSize(maxVideos)
+                .expireAfterWrite(Duration.ofSeconds(bitmapTtlSeconds))
+                .build();
+        userIds = Caffeine.newBuilder()
+                .maximumSize(maxUsernames)
+                .build();
+    }
+
+    /**
+     * Likes a video. Liking an already liked video changes nothing.
+     * @param videoId the video post ID
+     * @param userId the user ID
+     * @return true if the like was added, false if the user had already liked the video
+     */
+    public boolean like(Long videoId, Long userId) {
+        VideoLikes videoLikes = requireVideoLikes(videoId);
+        int user = toBitmapKey(userId);
+        boolean added;
+        synchronized (videoLikes) {
+            added = videoLikes.users.checkedAdd(user);
+        }
+        if (!added && videoLikeRepository.existsByVideoPostIdAndUserId(videoId, userId)) {
+            // Only a stale bitmap (unliked through another node) gets past the check above
+            ignoredToggles.incrementAndGet();
+            return false;
+        }
+
+        try {
+            videoLikeRepository.saveAndFlush(new VideoLike(videoId, userId));
+        } catch (DataIntegrityViolationException e) {
+            // Liked concurrently through another node, the row and its count already exist
+            ignoredToggles.incrementAndGet();
+            return false;
+        } catch (RuntimeException e) {
+            synchronized (videoLikes) {
+                videoLikes.users.remove(user);
+            }
+            throw e;
+        }
+
+        counterBuffer.record(videoId, CounterType.LIKES, 1);
+        likeCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Removes a like. Unliking a video that is not liked changes nothing.
+     * @param videoId the video post ID
+     * @param userId the user ID
+     * @return true if the like was removed, false if the user had not liked the video
+     */
+    public boolean unlike(Long videoId, Long userId) {
+        VideoLikes videoLikes = requireVideoLikes(videoId);
+        int user = toBitmapKey(userId);
+        boolean removed;
+        synchronized (videoLikes) {
+            removed = videoLikes.users.checkedRemove(user);
+        }
+
+        // A miss may be a stale bitmap (liked through another node), the row count decides
+        int deleted;
+        try {
+            deleted = videoLikeRepository.deleteByVideoPostIdAndUserId(videoId, userId);
+        } catch (RuntimeException e) {
+            if (removed) {
+                synchronized (videoLikes) {
+                    videoLikes.users.add(user);
+                }
+            }
+            throw e;
+        }
+        if (deleted == 0) {
+            // Not liked, or unliked concurrently through another node, which already decremented the count
+            ignoredToggles.incrementAndGet();
+            return false;
+        }
+
+        counterBuffer.record(videoId, CounterType.LIKES, -1);
+        unlikeCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Checks whether a user likes a video, answered from memory once the video's bitmap is loaded
+     * @param videoId the video post ID
+     * @param userId the user ID
+     * @return true if the user likes the video, false also if the video does not exist
+     */
+    public boolean hasLiked(Long videoId, Long userId) {
+        VideoLikes videoLikes = videoLikes(videoId);
+        if (videoLikes == null) {
+            return false;
+        }
+        synchronized (videoLikes) {
+            return videoLikes.users.contains(toBitmapKey(userId));
+        }
+    }
+
+    /**
+     * Gets the like count including likes not yet flushed to the database
+     * @param videoId the video post ID
+     * @return the up to date like count
+     */
+    public long getLikeCount(Long videoId) {
+        return getLikeCount(videoId, videoPostRepository.findLikesCountById(videoId));
+    }
+
+    /**
+     * Gets the like count from an already loaded persisted value, without a query
+     * @param videoId the video post ID
+     * @param persistedLikes the likes_count column value, or null
+     * @return the up to date like count
+     */
+    public long getLikeCount(Long videoId, Long persistedLikes) {
+        return (persistedLikes != null ? persistedLikes : 0) + counterBuffer.getPending(videoId, CounterType.LIKES);
+    }
+
+    /**
+     * Resolves a username to a user ID, cached since usernames never change
+     * @param username the username
+     * @return the user ID
+     * @throws RuntimeException if the user does not exist
+     */
+    public Long getUserId(String username) {
+        Long cached = userIds.getIfPresent(username);
+        if (cached != null) {
+            return cached;
+        }
+        Long id = userRepository.findByUsername(username)
+                .map(User::getId)
+                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+        userIds.put(username, id);
+        return id;
+    }
+
+    /**
+     * Drops all likes of a deleted video post
+     * @param videoId the video post ID
+     */
+    public void discard(Long videoId) {
+        likes.invalidate(videoId);
+        videoLikeRepository.deleteByVideoPostId(videoId);
+    }
+
+    private VideoLikes requireVideoLikes(Long videoId) {
+        VideoLikes videoLikes = videoLikes(videoId);
+        if (videoLikes == null) {
+            throw new RuntimeException("Video post not found with ID: " + videoId);
+        }
+        return videoLikes;
+    }
+
+    /**
+     * Gets the loaded bitmap of a video, checking that the video exists before creating one
+     * @return the bitmap, or null if the video post does not exist
+     */
+    private VideoLikes videoLikes(Long videoId) {
+        VideoLikes videoLikes = likes.getIfPresent(videoId);
+        if (videoLikes == null) {
+            if (!videoPostRepository.existsById(videoId)) {
+                return null;
+            }
+            videoLikes = likes.get(videoId, id -> new VideoLikes());
+        }
+        if (!videoLikes.loaded) {
+            synchronized (videoLikes) {
+                if (!videoLikes.loaded) {
+                    for (Long userId : videoLikeRepository.findUserIdsByVideoPostId(videoId)) {
+                        videoLikes.users.add(toBitmapKey(userId));
+                    }
+                    videoLikes.users.runOptimize();
+                    videoLikes.loaded = true;
+                }
+            }
+        }
+        return videoLikes;
+    }
+
+    private static int toBitmapKey(Long userId) {
+        // Roaring bitmaps hold 32-bit values, user IDs are IDENTITY keys well below that
+        return Math.toIntExact(userId);
+    }
+
+    /**
+     * Gets like statistics
+     * @return like statistics
+     */
+    public Map<String, Object> getStats() {
+        long bitmapBytes = 0;
+        long likesInMemory = 0;
+        for (VideoLikes videoLikes : likes.asMap().values()) {
+            synchronized (videoLikes) {
+                bitmapBytes += videoLikes.users.getLongSizeInBytes();
+                likesInMemory += videoLikes.users.getLongCardinality();
+            }
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("videosInMemory", likes.estimatedSize());
+        stats.put("maxVideos", maxVideos);
+        stats.put("likesInMemory", likesInMemory);
+        stats.put("bitmapBytes", bitmapBytes);
+        stats.put("likes", likeCount.get());
+        stats.put("unlikes", unlikeCount.get());
+        stats.put("ignoredToggles", ignoredToggles.get());
+        return stats;
+    }
+
+    private static final class VideoLikes {
+        private final RoaringBitmap users = new RoaringBitmap();
+        private volatile boolean loaded;
+    }
+}
@@ -0,0 +1,267 @@
+package isa.jutjub.service;
+
+import isa.jutjub.repository.VideoPostRepository;
+import isa.jutjub.util.BloomFilter;
+import isa.jutjub.util.ExpiringLongSet;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers lookups of video post IDs that do not exist without going to the database.
+ *
+ * An ID is a definite miss when it is not positive, when the database confirmed it
+ * missing within app.negative-cache.miss-ttl-ms, or when it is not above the highest
+ * ID the last rebuild read and the Bloom filter of existing IDs has never seen it.
+ * The filter is built at startup, fed by creates once they commit and rebuilt every
+ * rebuild interval, which is also what finally drops deleted IDs from it; until then
+ * a delete is remembered as a confirmed miss. IDs above the last rebuild are left to
+ * the database, since rows created by another instance or an import land there
+ * without passing through this one, and a miss there is remembered as confirmed.
+ */
+@Service
+@Slf4j
+public class NegativeLookupCache {
+
+    private final VideoPostRepository videoPostRepository;
+
+    @Value("${app.negative-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.negative-cache.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.negative-cache.min-expected-ids:100000}")
+    private long minExpectedIds;
+
+    @Value("${app.negative-cache.rebuild-interval-ms:600000}")
+    private long rebuildIntervalMs;
+
+    @Value("${app.negative-cache.miss-ttl-ms:300000}")
+    private long missTtlMs;
+
+    @Value("${app.negative-cache.miss-max-entries:100000}")
+    private int missMaxEntries;
+
+    private volatile BloomFilter existingIds;
+    // Filter being rebuilt, creates that commit meanwhile are added to both
+    private volatile BloomFilter rebuildingIds;
+    // Highest ID read by the last rebuild, the filter has every ID up to it
+    private volatile long filteredUpTo;
+    private final AtomicLong creates = new AtomicLong();
+    private ExpiringLongSet confirmedMisses;
+
+    private final ScheduledExecutorService rebuildExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "negative-lookup-rebuilder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final LongAdder invalidIds = new LongAdder();
+    private final LongAdder filterRejects = new LongAdder();
+    private final LongAdder missCacheHits = new LongAdder();
+    private final LongAdder passedThrough = new LongAdder();
+    private final LongAdder aboveFilter = new LongAdder();
+    private final LongAdder recordedMisses = new LongAdder();
+
+    @Autowired
+    public NegativeLookupCache(VideoPostRepository videoPostRepository) {
+        this.videoPostRepository = videoPostRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        confirmedMisses = new ExpiringLongSet(missTtlMs, missMaxEntries, System::currentTimeMillis);
+    }
+
+    /**
+     * Builds the filter once the sample data is in place and schedules the rebuild
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Negative lookup cache disabled");
+            return;
+        }
+        rebuild();
+        rebuildExecutor.scheduleWithFixedDelay(this::rebuildSafely, rebuildIntervalMs, rebuildIntervalMs,
+                TimeUnit.MILLISECONDS);
+        log.info("Negative lookup cache built over IDs up to {} ({} bits, {} hash functions)",
+                filteredUpTo, existingIds.getBitSize(), existingIds.getHashFunctions());
+    }
+
+    /**
+     * Rebuilds the filter from the IDs in the database
+     */
+    public synchronized void rebuild() {
+        // Register the new filter before reading, a create that commits after the read still reaches it
+        long expected = Math.max(minExpectedIds, videoPostRepository.count() * 2);
+        BloomFilter rebuilt = new BloomFilter(expected, falsePositiveRate);
+        rebuildingIds = rebuilt;
+        List<Long> ids = videoPostRepository.findAllIds();
+        long highest = 0;
+        for (Long id : ids) {
+            rebuilt.put(id);
+            highest = Math.max(highest, id);
+        }
+        existingIds = rebuilt;
+        filteredUpTo = highest;
+        rebuildingIds = null;
+        rebuilds.incrementAndGet();
+    }
+
+    private void rebuildSafely() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Negative lookup cache rebuild failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Checks whether a video post may exist. Allocation free.
+     * @param id the video post ID
+     * @return false only if the video post definitely does not exist
+     */
+    public boolean mightExist(long id) {
+        BloomFilter filter = existingIds;
+        if (filter == null) {
+            // Not built yet or disabled
+            return true;
+        }
+        if (id <= 0) {
+            invalidIds.increment();
+            return false;
+        }
+        boolean aboveFilteredIds = id > filteredUpTo;
+        if (!aboveFilteredIds && !filter.mightContain(id)) {
+            filterRejects.increment();
+            return false;
+        }
+        if (confirmedMisses.contains(id)) {
+            missCacheHits.increment();
+            return false;
+        }
+        if (aboveFilteredIds) {
+            aboveFilter.increment();
+        }
+        passedThrough.increment();
+        return true;
+    }
+
+    /**
+     * Marks the start of a database lookup, see {@link #recordMiss(long, long)}
+     * @return the number of creates committed so far
+     */
+    public long lookupStamp() {
+        return creates.get();
+    }
+
+    /**
+     * Remembers an ID the database reported missing. The miss is dropped if a create
+     * committed since the lookup started, the ID may have been created meanwhile.
+     * @param id the video post ID
+     * @param stamp {@link #lookupStamp()} taken before the lookup
+     */
+    public void recordMiss(long id, long stamp) {
+        if (creates.get() == stamp) {
+            remember(id);
+        }
+    }
+
+    private void remember(long id) {
+        if (existingIds != null) {
+            confirmedMisses.add(id);
+            recordedMisses.increment();
+        }
+    }
+
+    /**
+     * Adds a created video post once its transaction commits
+     * @param id the video post ID
+     */
+    public void recordCreated(long id) {
+        afterCommit(() -> {
+            BloomFilter filter = existingIds;
+            if (filter != null) {
+                filter.put(id);
+            }
+            BloomFilter rebuilding = rebuildingIds;
+            if (rebuilding != null) {
+                rebuilding.put(id);
+            }
+            creates.incrementAndGet();
+            confirmedMisses.remove(id);
+        });
+    }
+
+    /**
+     * Marks a deleted video post missing once its transaction commits
+     * @param id the video post ID
+     */
+    public void recordDeleted(long id) {
+        afterCommit(() -> remember(id));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Gets how many lookups were answered without the database and why
+     * @return negative lookup statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("rebuilds", rebuilds.get());
+        stats.put("filteredUpTo", filteredUpTo);
+        stats.put("invalidIds", invalidIds.sum());
+        stats.put("filterRejects", filterRejects.sum());
+        stats.put("missCacheHits", missCacheHits.sum());
+        stats.put("passedThrough", passedThrough.sum());
+        stats.put("aboveFilter", aboveFilter.sum());
+        stats.put("recordedMisses", recordedMisses.sum());
+        BloomFilter filter = existingIds;
+        if (filter != null) {
+            stats.put("filterBits", filter.getBitSize());
+            stats.put("filterHashFunctions", filter.getHashFunctions());
+            stats.put("filterSizeBytes", filter.getSizeInBytes());
+            stats.put("filterFalsePositiveRate", filter.estimateFalsePositiveRate());
+            stats.put("missCacheSize", confirmedMisses.size());
+            stats.put("missCacheExpired", confirmedMisses.getExpiredCount());
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,219 @@
+package isa.jutjub.service;
+
+import isa.jutjub.dto.BeaconRequest;
+import isa.jutjub.model.PlaybackEventType;
+import isa.jutjub.model.PlaybackSummary;
+import isa.jutjub.model.VideoPlaybackStats;
+import isa.jutjub.repository.VideoPlaybackStatsRepository;
+import isa.jutjub.util.EventRingBuffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ingests player telemetry beacons.
+ *
+ * Request threads validate a beacon and publish its events into an {@link EventRingBuffer}
+ * without blocking; when the buffer is full the events are dropped and counted.
+ * A single consumer thread folds the events into per-video {@link PlaybackSummary}
+ * totals and writes them to video_playback_stats in one JDBC batch every
+ * app.telemetry.flush-interval-ms.
+ */
+@Service
+@Slf4j
+public class PlaybackTelemetryService {
+
+    private static final int DRAIN_BATCH = 4096;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final VideoPlaybackStatsRepository playbackStatsRepository;
+
+    @Value("${app.telemetry.buffer-size:65536}")
+    private int bufferSize;
+
+    @Value("${app.telemetry.flush-interval-ms:5000}")
+    private long flushIntervalMs;
+
+    @Value("${app.telemetry.max-events-per-beacon:100}")
+    private int maxEventsPerBeacon;
+
+    private EventRingBuffer ringBuffer;
+    private Thread consumer;
+    private volatile boolean running;
+
+    // Owned by the consumer thread
+    private Map<Long, PlaybackSummary> summaries = new HashMap<>();
+    private final EventRingBuffer.Handler aggregator = (videoId, type, value) ->
+            summaries.computeIfAbsent(videoId, id -> new PlaybackSummary()).add(PlaybackEventType.fromOrdinal(type), value);
+
+    private final AtomicLong publishedEvents = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong consumedEvents = new AtomicLong();
+    private final AtomicLong writtenSummaries = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+
+    @Autowired
+    public PlaybackTelemetryService(VideoPlaybackStatsRepository playbackStatsRepository) {
+        this.playbackStatsRepository = playbackStatsRepository;
+    }
+
+    @PostConstruct
+    public void start() {
+        ringBuffer = new EventRingBuffer(bufferSize);
+        running = true;
+        consumer = new Thread(this::consume, "telemetry-consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+        log.info("Playback telemetry ring buffer started ({} slots, flush every {}ms)",
+                ringBuffer.getCapacity(), flushIntervalMs);
+    }
+
+    /**
+     * Queues the events of a beacon. Never blocks: if the buffer is full the events are dropped.
+     * @param videoId the video post ID
+     * @param events the beacon events
+     * @return true if the events were queued, false if they were dropped
+     * @throws IllegalArgumentException if the beacon is too large or contains an unknown event type
+     */
+    public boolean ingest(Long videoId, List<BeaconRequest.Event> events) {
+        if (events == null || events.isEmpty()) {
+            return true;
+        }
+        if (events.size() > maxEventsPerBeacon) {
+            throw new IllegalArgumentException("A beacon may carry at most " + maxEventsPerBeacon + " events");
+        }
+        // Validate everything first so a beacon is queued completely or not at all
+        int[] types = new int[events.size()];
+        for (int i = 0; i < types.length; i++) {
+            BeaconRequest.Event event = events.get(i);
+            if (event.getValue() < 0) {
+                throw new IllegalArgumentException("Event values must not be negative");
+            }
+            types[i] = PlaybackEventType.fromCode(event.getType()).ordinal();
+        }
+
+        long sequence = ringBuffer.tryClaim(types.length);
+        if (sequence < 0) {
+            droppedEvents.addAndGet(types.length);
+            return false;
+        }
+        for (int i = 0; i < types.length; i++) {
+            ringBuffer.publish(sequence + i, videoId, types[i], events.get(i).getValue());
+        }
+        publishedEvents.addAndGet(types.length);
+        return true;
+    }
+
+    private void consume() {
+        long nextFlush = System.currentTimeMillis() + flushIntervalMs;
+        while (running) {
+            int drained = ringBuffer.drain(aggregator, DRAIN_BATCH);
+            consumedEvents.addAndGet(drained);
+            if (System.currentTimeMillis() >= nextFlush) {
+                writeSummaries();
+                nextFlush = System.currentTimeMillis() + flushIntervalMs;
+            }
+            if (drained == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void writeSummaries() {
+        if (summaries.isEmpty()) {
+            return;
+        }
+        Map<Long, PlaybackSummary> batch = summaries;
+        summaries = new HashMap<>();
+        try {
+            playbackStatsRepository.addSummaries(batch);
+            writtenSummaries.addAndGet(batch.size());
+        } catch (Exception e) {
+            // Keep the totals for the next attempt
+            failedWrites.incrementAndGet();
+            log.error("Failed to write {} playback summaries, retrying later: {}", batch.size(), e.getMessage());
+            batch.forEach((id, summary) -> summaries.computeIfAbsent(id, k -> new PlaybackSummary()).merge(summary));
+        }
+    }
+
+    /**
+     * Gets the stored playback telemetry of a video. Events of the last
+     * app.telemetry.flush-interval-ms may not be included yet.
+     * @param videoId the video post ID
+     * @return totals and averages
+     */
+    public Map<String, Object> getPlaybackStats(Long videoId) {
+        VideoPlaybackStats stats = playbackStatsRepository.findByVideoPostId(videoId).orElseGet(VideoPlaybackStats::new);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("startups", stats.getStartupCount());
+        result.put("averageStartupMs", average(stats.getStartupMsTotal(), stats.getStartupCount()));
+        result.put("stalls", stats.getStallCount());
+        result.put("averageStallMs", average(stats.getStallMsTotal(), stats.getStallCount()));
+        result.put("stallsPerStartup", average(stats.getStallCount(), stats.getStartupCount()));
+        result.put("watchTimeMs", stats.getWatchTimeMs());
+        result.put("averageBitrateKbps", average(stats.getBitrateKbpsTotal(), stats.getBitrateSamples()));
+        return result;
+    }
+
+    private static double average(long total, long count) {
+        return count > 0 ? Math.round(total * 100.0 / count) / 100.0 : 0;
+    }
+
+    /**
+     * Drops the telemetry of a deleted video post. Queued events for it are
+     * ignored when written because the video post no longer exists.
+     * @param videoId the video post ID
+     */
+    public void discard(Long videoId) {
+        playbackStatsRepository.deleteByVideoPostId(videoId);
+    }
+
+    /**
+     * Gets ingestion statistics
+     * @return ingestion statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("bufferSize", ringBuffer.getCapacity());
+        stats.put("queuedEvents", ringBuffer.size());
+        stats.put("publishedEvents", publishedEvents.get());
+        stats.put("droppedEvents", droppedEvents.get());
+        stats.put("consumedEvents", consumedEvents.get());
+        stats.put("writtenSummaries", writtenSummaries.get());
+        stats.put("failedWrites", failedWrites.get());
+        stats.put("flushIntervalMs", flushIntervalMs);
+        return stats;
+    }
+
+    /**
+     * Stops the consumer and writes out everything still queued
+     */
+    @PreDestroy
+    public void shutdown() {
+        log.info("Shutting down PlaybackTelemetryService...");
+        running = false;
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!consumer.isAlive()) {
+            int drained;
+            while ((drained = ringBuffer.drain(aggregator, DRAIN_BATCH)) > 0) {
+                consumedEvents.addAndGet(drained);
+            }
+            writeSummaries();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package isa.jutjub.service;
+
+import isa.jutjub.util.SingleFlight;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out named {@link SingleFlight} groups so services can coalesce their hot
+ * loads, and reports how much each group saved
+ */
+@Service
+public class RequestCoalescer {
+
+    @Value("${app.single-flight.timeout-ms:2000}")
+    private long timeoutMs;
+
+    private final Map<String, SingleFlight<?, ?>> groups = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a coalescing group
+     * @param name name reported in the statistics
+     * @return the group
+     */
+    public <K, V> SingleFlight<K, V> newGroup(String name) {
+        SingleFlight<K, V> group = new SingleFlight<>(timeoutMs);
+        groups.put(name, group);
+        return group;
+    }
+
+    /**
+     * Gets per group load, coalesced and timeout counts
+     * @return coalescing statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("timeoutMs", timeoutMs);
+        groups.forEach((name, group) -> {
+            Map<String, Object> groupStats = new LinkedHashMap<>();
+            groupStats.put("loads", group.getLoads());
+            groupStats.put("coalesced", group.getCoalesced());
+            groupStats.put("timeouts", group.getTimeouts());
+            groupStats.put("inFlight", group.getInFlight());
+            stats.put(name, groupStats);
+        });
+        return stats;
+    }
+}
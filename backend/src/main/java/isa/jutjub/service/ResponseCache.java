@@ -0,0 +1,258 @@
+package isa.jutjub.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import isa.jutjub.util.SingleFlight;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Stale-while-revalidate cache of whole list responses that are the same for every
+ * anonymous visitor.
+ *
+ * An entry is fresh for app.response-cache.fresh-ms and may then be served stale for
+ * up to app.response-cache.max-stale-ms while one background refresh replaces it, so
+ * a popular listing is never rebuilt on a request thread. To keep the refreshes of
+ * entries built together from piling up at the same moment, a fresh entry is also
+ * refreshed early with a probability that grows as its expiry nears and with the time
+ * it took to build (XFetch). A miss, or an entry past its stale window, is built on
+ * the request thread, with concurrent misses of the same key sharing one build.
+ *
+ * Any create, update or delete clears the cache when it commits. Only successful
+ * responses are cached and the number of entries is bounded.
+ */
+@Service
+@Slf4j
+public class ResponseCache {
+
+    public static final String HEADER = "X-Cache";
+
+    @Value("${app.response-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.response-cache.fresh-ms:2000}")
+    private long freshMs;
+
+    @Value("${app.response-cache.max-stale-ms:30000}")
+    private long maxStaleMs;
+
+    @Value("${app.response-cache.max-entries:1000}")
+    private long maxEntries;
+
+    // XFetch beta: above 1 favours earlier refreshes, below 1 later ones
+    @Value("${app.response-cache.early-refresh-beta:1.0}")
+    private double earlyRefreshBeta;
+
+    @Value("${app.response-cache.refresh-threads:2}")
+    private int refreshThreads;
+
+    private final SingleFlight<String, ResponseEntity<Map<String, Object>>> builds;
+    private Cache<String, Entry> entries;
+    private ThreadPoolExecutor refreshExecutor;
+    private final Map<String, Boolean> refreshing = new ConcurrentHashMap<>();
+    // Bumped by every invalidation, refreshes started before it do not store their result
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder droppedRefreshes = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public ResponseCache(RequestCoalescer requestCoalescer) {
+        this.builds = requestCoalescer.newGroup("responses");
+    }
+
+    @PostConstruct
+    public void init() {
+        entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(freshMs + maxStaleMs, TimeUnit.MILLISECONDS)
+                .build();
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Refreshes that do not fit in the queue are dropped, the stale entry is served meanwhile
+        refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(100), r -> {
+                    Thread thread = new Thread(r, "response-refresher-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        log.info("Response cache {} (fresh {}ms, stale up to {}ms, max {} entries)",
+                enabled ? "enabled" : "disabled", freshMs, maxStaleMs, maxEntries);
+    }
+
+    /**
+     * Builds a cache key from an endpoint and its normalized parameters
+     * @param endpoint name of the endpoint
+     * @param parameters parameter values, in a fixed order
+     * @return the key
+     */
+    public static String key(String endpoint, Object... parameters) {
+        StringJoiner key = new StringJoiner("|", endpoint + "|", "");
+        for (Object parameter : parameters) {
+            key.add(String.valueOf(parameter));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Gets a cached response, building it if it is missing or too stale
+     * @param key the normalized request key
+     * @param builder builds the response
+     * @return the response, with an {@link #HEADER} header telling how it was served
+     */
+    public ResponseEntity<Map<String, Object>> get(String key, Supplier<ResponseEntity<Map<String, Object>>> builder) {
+        if (!enabled) {
+            return builder.get();
+        }
+        long now = System.nanoTime();
+        Entry entry = entries.getIfPresent(key);
+        if (entry != null && now < entry.staleUntil()) {
+            if (now < entry.freshUntil()) {
+                hits.increment();
+                if (shouldRefreshEarly(entry, now)) {
+                    earlyRefreshes.increment();
+                    refreshInBackground(key, builder);
+                }
+                return withHeader(entry.response(), "HIT");
+            }
+            staleHits.increment();
+            refreshInBackground(key, builder);
+            return withHeader(entry.response(), "STALE");
+        }
+
+        misses.increment();
+        long startGeneration = generation.get();
+        ResponseEntity<Map<String, Object>> response = builds.load(key, () -> build(key, builder, startGeneration));
+        return withHeader(response, "MISS");
+    }
+
+    /**
+     * XFetch: refresh once now - buildTime * beta * ln(random) reaches the expiry
+     */
+    private boolean shouldRefreshEarly(Entry entry, long now) {
+        double random = ThreadLocalRandom.current().nextDouble();
+        return now - entry.buildNanos() * earlyRefreshBeta * Math.log(random) >= entry.freshUntil();
+    }
+
+    private void refreshInBackground(String key, Supplier<ResponseEntity<Map<String, Object>>> builder) {
+        if (refreshing.putIfAbsent(key, Boolean.TRUE) != null) {
+            return;
+        }
+        long startGeneration = generation.get();
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refreshes.increment();
+                    build(key, builder, startGeneration);
+                } catch (Exception e) {
+                    refreshFailures.increment();
+                    log.warn("Background refresh of {} failed: {}", key, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            droppedRefreshes.increment();
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> build(String key, Supplier<ResponseEntity<Map<String, Object>>> builder,
+                                                      long startGeneration) {
+        long start = System.nanoTime();
+        ResponseEntity<Map<String, Object>> response = builder.get();
+        long end = System.nanoTime();
+        if (response.getStatusCode().is2xxSuccessful() && generation.get() == startGeneration) {
+            entries.put(key, new Entry(response, end - start, end + TimeUnit.MILLISECONDS.toNanos(freshMs),
+                    end + TimeUnit.MILLISECONDS.toNanos(freshMs + maxStaleMs)));
+        }
+        return response;
+    }
+
+    private static ResponseEntity<Map<String, Object>> withHeader(ResponseEntity<Map<String, Object>> response,
+                                                                  String state) {
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(HEADER, state)
+                .body(response.getBody());
+    }
+
+    /**
+     * Clears every cached response once the current transaction commits
+     */
+    public void invalidateAll() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear();
+                }
+            });
+        } else {
+            clear();
+        }
+    }
+
+    private void clear() {
+        generation.incrementAndGet();
+        entries.invalidateAll();
+        invalidations.increment();
+    }
+
+    /**
+     * Gets hit, stale hit, miss and refresh counts
+     * @return response cache statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", entries.estimatedSize());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.sum());
+        stats.put("staleHits", staleHits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("refreshes", refreshes.sum());
+        stats.put("earlyRefreshes", earlyRefreshes.sum());
+        stats.put("refreshFailures", refreshFailures.sum());
+        stats.put("droppedRefreshes", droppedRefreshes.sum());
+        stats.put("invalidations", invalidations.sum());
+        long served = hits.sum() + staleHits.sum() + misses.sum();
+        stats.put("hitRate", served > 0 ? (double) (hits.sum() + staleHits.sum()) / served : 0.0);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private record Entry(ResponseEntity<Map<String, Object>> response, long buildNanos, long freshUntil,
+                         long staleUntil) {
+    }
+}
@@ -0,0 +1,300 @@
+package isa.jutjub.service;
+
+import isa.jutjub.model.VideoRetention;
+import isa.jutjub.repository.VideoRetentionRepository;
+import isa.jutjub.util.RangeHistogram;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Audience retention from the byte ranges served by the video stream endpoint.
+ *
+ * Every video is split into {@value #SEGMENTS} equal segments. Each served range adds
+ * one pass over the segments it covers to a lock-free {@link RangeHistogram}; the
+ * Range header is parsed in place so recording allocates nothing. Histograms are
+ * merged into video_retention every app.retention.flush-interval-ms.
+ *
+ * Open-ended ranges (bytes=N-) do not say how much the player will read, so they count
+ * for app.retention.open-range-segments segments from their start. Requests without a
+ * Range header download the whole file and count for every segment.
+ */
+@Service
+@Slf4j
+public class RetentionService {
+
+    public static final int SEGMENTS = 1000;
+
+    private static final int MAX_MERGE_ATTEMPTS = 3;
+    private static final String BYTES_UNIT = "bytes=";
+
+    private final VideoRetentionRepository retentionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.retention.flush-interval-ms:30000}")
+    private long flushIntervalMs;
+
+    @Value("${app.retention.open-range-segments:10}")
+    private int openRangeSegments;
+
+    private final Map<Long, Heatmap> heatmaps = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "retention-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong recordedRanges = new AtomicLong();
+    private final AtomicLong malformedRanges = new AtomicLong();
+    private final AtomicLong flushedHeatmaps = new AtomicLong();
+
+    @Autowired
+    public RetentionService(VideoRetentionRepository retentionRepository, PlatformTransactionManager transactionManager) {
+        this.retentionRepository = retentionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void start() {
+        flushExecutor.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records the byte ranges of a video stream request
+     * @param videoId the video post ID
+     * @param rangeHeader the Range header, or null for a full download
+     * @param fileLength size of the video file in bytes
+     */
+    public void recordRange(Long videoId, String rangeHeader, long fileLength) {
+        if (fileLength <= 0) {
+            return;
+        }
+        Heatmap heatmap = heatmaps.get(videoId);
+        if (heatmap == null) {
+            heatmap = heatmaps.computeIfAbsent(videoId, id -> new Heatmap());
+        }
+        heatmap.active = true;
+
+        if (rangeHeader == null) {
+            heatmap.histogram.add(0, SEGMENTS - 1);
+            recordedRanges.incrementAndGet();
+            return;
+        }
+        if (!rangeHeader.startsWith(BYTES_UNIT)) {
+            malformedRanges.incrementAndGet();
+            return;
+        }
+
+        int length = rangeHeader.length();
+        int i = BYTES_UNIT.length();
+        while (i < length) {
+            while (i < length && rangeHeader.charAt(i) == ' ') {
+                i++;
+            }
+            long first = -1;
+            while (i < length && Character.isDigit(rangeHeader.charAt(i))) {
+                first = Math.max(first, 0) * 10 + (rangeHeader.charAt(i++) - '0');
+            }
+            if (i >= length || rangeHeader.charAt(i) != '-') {
+                malformedRanges.incrementAndGet();
+                return;
+            }
+            i++;
+            long last = -1;
+            while (i < length && Character.isDigit(rangeHeader.charAt(i))) {
+                last = Math.max(last, 0) * 10 + (rangeHeader.charAt(i++) - '0');
+            }
+
+            if (first < 0 && last > 0) {
+                // Suffix range: the last N bytes
+                heatmap.histogram.add(segmentOf(Math.max(0, fileLength - last), fileLength), SEGMENTS - 1);
+            } else if (first >= 0 && first < fileLength && last < 0) {
+                int from = segmentOf(first, fileLength);
+                heatmap.histogram.add(from, Math.min(SEGMENTS - 1, from + openRangeSegments - 1));
+            } else if (first >= 0 && first < fileLength && last >= first) {
+                heatmap.histogram.add(segmentOf(first, fileLength), segmentOf(Math.min(last, fileLength - 1), fileLength));
+            }
+            recordedRanges.incrementAndGet();
+
+            while (i < length && rangeHeader.charAt(i) != ',') {
+                i++;
+            }
+            i++;
+        }
+    }
+
+    private static int segmentOf(long position, long fileLength) {
+        return (int) Math.min(SEGMENTS - 1, position * SEGMENTS / fileLength);
+    }
+
+    /**
+     * Gets the retention curve of a video
+     * @param videoId the video post ID
+     * @param points number of points to return, segments are averaged into them
+     * @return per point stream counts and their share of the most watched point
+     */
+    public Map<String, Object> getRetention(Long videoId, int points) {
+        points = Math.max(1, Math.min(points, SEGMENTS));
+        long[] counts = new long[SEGMENTS];
+        retentionRepository.findByVideoPostId(videoId)
+                .ifPresent(stored -> addStored(stored.getSegmentCounts(), counts));
+        Heatmap heatmap = heatmaps.get(videoId);
+        if (heatmap != null) {
+            heatmap.histogram.addTo(counts);
+        }
+
+        List<Long> pointCounts = new ArrayList<>(points);
+        long peak = 0;
+        for (int p = 0; p < points; p++) {
+            int from = p * SEGMENTS / points;
+            int to = (p + 1) * SEGMENTS / points;
+            long sum = 0;
+            for (int s = from; s < to; s++) {
+                sum += counts[s];
+            }
+            long average = Math.round((double) sum / (to - from));
+            pointCounts.add(average);
+            peak = Math.max(peak, average);
+        }
+
+        List<Double> curve = new ArrayList<>(points);
+        for (long count : pointCounts) {
+            curve.add(peak > 0 ? Math.round(count * 10000.0 / peak) / 10000.0 : 0.0);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("points", points);
+        result.put("peak", peak);
+        result.put("counts", pointCounts);
+        result.put("retention", curve);
+        return result;
+    }
+
+    /**
+     * Drops the retention data of a deleted video post
+     * @param videoId the video post ID
+     */
+    public void discard(Long videoId) {
+        heatmaps.remove(videoId);
+        retentionRepository.deleteByVideoPostId(videoId);
+    }
+
+    /**
+     * Merges recorded ranges into the database and evicts idle histograms
+     */
+    public synchronized void flush() {
+        heatmaps.forEach((videoId, heatmap) -> {
+            long[] counts = new long[SEGMENTS];
+            boolean any = heatmap.histogram.drainInto(counts);
+            if (!heatmap.active) {
+                // Idle since the last flush; drain once more after removal to catch racing writers
+                heatmaps.remove(videoId, heatmap);
+                any |= heatmap.histogram.drainInto(counts);
+            }
+            heatmap.active = false;
+            if (any) {
+                persist(videoId, counts);
+            }
+        });
+    }
+
+    private void persist(Long videoId, long[] counts) {
+        for (int attempt = 1; attempt <= MAX_MERGE_ATTEMPTS; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    VideoRetention stored = retentionRepository.findByVideoPostId(videoId)
+                            .orElseGet(() -> new VideoRetention(videoId));
+                    long[] merged = counts.clone();
+                    if (stored.getSegmentCounts() != null) {
+                        addStored(stored.getSegmentCounts(), merged);
+                    }
+                    ByteBuffer buffer = ByteBuffer.allocate(SEGMENTS * Long.BYTES);
+                    for (long count : merged) {
+                        buffer.putLong(count);
+                    }
+                    stored.setSegmentCounts(buffer.array());
+                    retentionRepository.save(stored);
+                });
+                flushedHeatmaps.incrementAndGet();
+                return;
+            } catch (ObjectOptimisticLockingFailureException | DataIntegrityViolationException e) {
+                // Another node flushed the same row first, merge again on top of its result
+                log.debug("Retention merge conflict for video post ID {}, attempt {}", videoId, attempt);
+            }
+        }
+        log.warn("Gave up merging retention data for video post ID {}", videoId);
+    }
+
+    private static void addStored(byte[] stored, long[] counts) {
+        ByteBuffer buffer = ByteBuffer.wrap(stored);
+        for (int i = 0; i < SEGMENTS && buffer.remaining() >= Long.BYTES; i++) {
+            counts[i] += buffer.getLong();
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Retention flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets retention recording statistics
+     * @return retention recording statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("segments", SEGMENTS);
+        stats.put("flushIntervalMs", flushIntervalMs);
+        stats.put("heatmapsInMemory", heatmaps.size());
+        stats.put("recordedRanges", recordedRanges.get());
+        stats.put("malformedRanges", malformedRanges.get());
+        stats.put("flushedHeatmaps", flushedHeatmaps.get());
+        return stats;
+    }
+
+    /**
+     * Stops the flusher and merges any remaining ranges
+     */
+    @PreDestroy
+    public void shutdown() {
+        log.info("Shutting down RetentionService...");
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                flushExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flushExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flushSafely();
+    }
+
+    private static final class Heatmap {
+        private final RangeHistogram histogram = new RangeHistogram(SEGMENTS);
+        private volatile boolean active;
+    }
+}
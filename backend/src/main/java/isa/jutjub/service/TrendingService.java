@@ -0,0 +1,449 @@
+package isa.jutjub.service;
+
+import isa.jutjub.model.VideoPost;
+import isa.jutjub.repository.VideoPostCounters;
+import isa.jutjub.repository.VideoPostRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Ranks video posts by a time-decayed score of their views, likes and comments.
+ *
+ * Scores use forward decay: an event at time t adds weight * 2^((t - landmark) / halfLife)
+ * instead of decaying every stored score over time. Stored scores therefore only grow,
+ * which keeps the top-K exact with cheap incremental updates, and the current score is
+ * the stored one scaled by 2^(-(now - landmark) / halfLife). The landmark is moved
+ * forward now and then so the exponents stay small.
+ *
+ * Request threads only add to a per-video adder. A single ticker thread folds the
+ * pending weights in, updates the top-K and publishes an immutable snapshot of the
+ * ranked video posts, so reading the ranking is O(K) and never touches the database.
+ */
+@Service
+@Slf4j
+public class TrendingService {
+
+    private static final double RESCALE_HALF_LIVES = 64;
+    private static final long PRUNE_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final VideoPostRepository videoPostRepository;
+    private final NegativeLookupCache negativeLookupCache;
+    private final LongSupplier clock;
+
+    @Value("${app.trending.half-life-hours:6}")
+    private double halfLifeHours;
+
+    @Value("${app.trending.top-k:100}")
+    private int topK;
+
+    @Value("${app.trending.view-weight:1}")
+    private double viewWeight;
+
+    @Value("${app.trending.like-weight:5}")
+    private double likeWeight;
+
+    @Value("${app.trending.comment-weight:10}")
+    private double commentWeight;
+
+    @Value("${app.trending.min-score:0.01}")
+    private double minScore;
+
+    @Value("${app.trending.tick-interval-ms:1000}")
+    private long tickIntervalMs;
+
+    @Value("${app.trending.refresh-interval-ms:10000}")
+    private long refreshIntervalMs;
+
+    private final Map<Long, Scored> scores = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Scored> dirty = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Long> removals = new ConcurrentLinkedQueue<>();
+
+    // Owned by the ticker
+    private Scored[] top = new Scored[0];
+    private int topSize;
+    private long landmark;
+    private long lastRefresh;
+    private long lastPrune;
+    private boolean topChanged;
+    private final Map<Long, VideoPost> loaded = new HashMap<>();
+
+    private volatile List<TrendingVideo> snapshot = Collections.emptyList();
+
+    private final ScheduledExecutorService tickExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "trending-ticker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Autowired
+    public TrendingService(VideoPostRepository videoPostRepository, NegativeLookupCache negativeLookupCache) {
+        this(videoPostRepository, negativeLookupCache, System::currentTimeMillis);
+    }
+
+    TrendingService(VideoPostRepository videoPostRepository, NegativeLookupCache negativeLookupCache, LongSupplier clock) {
+        this.videoPostRepository = videoPostRepository;
+        this.negativeLookupCache = negativeLookupCache;
+        this.clock = clock;
+    }
+
+    /**
+     * Seeds the scores once the sample data is in place and starts the ticker
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        tickExecutor.execute(this::seedSafely);
+        tickExecutor.scheduleWithFixedDelay(this::tickSafely, tickIntervalMs, tickIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Trending engine started (half-life {}h, top {})", halfLifeHours, topK);
+    }
+
+    public void recordView(Long videoId) {
+        record(videoId, viewWeight);
+    }
+
+    public void recordLike(Long videoId) {
+        record(videoId, likeWeight);
+    }
+
+    public void recordComment(Long videoId) {
+        record(videoId, commentWeight);
+    }
+
+    private void record(Long videoId, double weight) {
+        if (videoId == null || !negativeLookupCache.mightExist(videoId)) {
+            // Unknown IDs would take top-K places that publish() can never fill
+            rejected.incrementAndGet();
+            return;
+        }
+        Scored scored = scores.computeIfAbsent(videoId, Scored::new);
+        scored.pending.add(weight);
+        if (!scored.dirty) {
+            // A duplicate enqueue from a racing writer is harmless, the second poll finds nothing pending
+            scored.dirty = true;
+            dirty.add(scored);
+        }
+        events.incrementAndGet();
+    }
+
+    /**
+     * Removes a deleted video post from the ranking
+     * @param videoId the video post ID
+     */
+    public void discard(Long videoId) {
+        removals.add(videoId);
+    }
+
+    /**
+     * Gets a page of the current ranking
+     * @param page page number (0-based)
+     * @param size page size
+     * @return the trending videos of the page, best first
+     */
+    public List<TrendingVideo> getTrending(int page, int size) {
+        List<TrendingVideo> ranking = snapshot;
+        int from = Math.min(Math.max(page, 0) * size, ranking.size());
+        int to = Math.min(from + size, ranking.size());
+        return ranking.subList(from, to);
+    }
+
+    /**
+     * @return number of videos in the current ranking
+     */
+    public int getTrendingCount() {
+        return snapshot.size();
+    }
+
+    /**
+     * Initializes scores from the stored counters. Without per-event history every
+     * existing interaction is treated as if it happened when the video was created.
+     */
+    synchronized void seed() {
+        long now = clock.getAsLong();
+        landmark = now;
+        top = new Scored[topK];
+        for (VideoPostCounters counters : videoPostRepository.findAllCounters()) {
+            double weight = viewWeight * nullToZero(counters.getViewsCount())
+                    + likeWeight * nullToZero(counters.getLikesCount())
+                    + commentWeight * nullToZero(counters.getCommentsCount());
+            if (weight <= 0) {
+                continue;
+            }
+            double ageMs = counters.getCreatedAt() != null
+                    ? Math.max(0, Duration.between(counters.getCreatedAt(), LocalDateTime.now()).toMillis())
+                    : 0;
+            Scored scored = scores.computeIfAbsent(counters.getId(), Scored::new);
+            scored.score += weight * Math.pow(2, -ageMs / halfLifeMillis());
+            offer(scored);
+        }
+        tick();
+    }
+
+    /**
+     * Folds pending events into the scores and republishes the ranking if it changed
+     */
+    synchronized void tick() {
+        if (top.length != topK) {
+            top = new Scored[topK];
+        }
+        long now = clock.getAsLong();
+        if (now - landmark > RESCALE_HALF_LIVES * halfLifeMillis()) {
+            rescale(now);
+        }
+        double factor = Math.pow(2, (now - landmark) / halfLifeMillis());
+
+        Long removed;
+        while ((removed = removals.poll()) != null) {
+            remove(removed);
+        }
+
+        Scored scored;
+        while ((scored = dirty.poll()) != null) {
+            scored.dirty = false;
+            double pending = scored.pending.sumThenReset();
+            if (pending != 0 && !scored.discarded) {
+                fold(scored, pending * factor);
+            }
+        }
+
+        if (now - lastPrune >= PRUNE_INTERVAL_MS) {
+            prune(factor);
+            lastPrune = now;
+        }
+        if (topChanged || now - lastRefresh >= refreshIntervalMs) {
+            publish(now, factor);
+        }
+        ticks.incrementAndGet();
+    }
+
+    /**
+     * Adds weight to a video's score. A video pruned while a writer was adding to it
+     * is put back, or its weight goes to the entry a later event created meanwhile.
+     */
+    private void fold(Scored scored, double weight) {
+        Scored current = scores.putIfAbsent(scored.id, scored);
+        if (current != null && current != scored) {
+            scored = current;
+        }
+        scored.score += weight;
+        offer(scored);
+    }
+
+    /**
+     * Inserts or moves a video in the top-K. Scores only grow, so a video can only move up.
+     */
+    private void offer(Scored scored) {
+        int index;
+        if (scored.inTop) {
+            index = indexOf(scored);
+        } else if (topSize < top.length) {
+            index = topSize++;
+            top[index] = scored;
+            scored.inTop = true;
+        } else if (topSize > 0 && scored.score > top[topSize - 1].score) {
+            index = topSize - 1;
+            top[index].inTop = false;
+            top[index] = scored;
+            scored.inTop = true;
+        } else {
+            return;
+        }
+        while (index > 0 && top[index - 1].score < scored.score) {
+            top[index] = top[index - 1];
+            index--;
+        }
+        top[index] = scored;
+        topChanged = true;
+    }
+
+    private int indexOf(Scored scored) {
+        for (int i = 0; i < topSize; i++) {
+            if (top[i] == scored) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Video " + scored.id + " marked as trending but not in the top list");
+    }
+
+    private void remove(Long videoId) {
+        Scored scored = scores.remove(videoId);
+        loaded.remove(videoId);
+        if (scored != null) {
+            scored.discarded = true;
+        }
+        if (scored == null || !scored.inTop) {
+            return;
+        }
+        int index = indexOf(scored);
+        System.arraycopy(top, index + 1, top, index, topSize - index - 1);
+        top[--topSize] = null;
+        scored.inTop = false;
+        topChanged = true;
+
+        // The best video outside the top-K takes the free place
+        Scored best = null;
+        for (Scored candidate : scores.values()) {
+            if (!candidate.inTop && (best == null || candidate.score > best.score)) {
+                best = candidate;
+            }
+        }
+        if (best != null) {
+            offer(best);
+        }
+    }
+
+    private void rescale(long now) {
+        double halfLives = Math.floor((now - landmark) / halfLifeMillis());
+        double scale = Math.pow(2, -halfLives);
+        scores.values().forEach(s -> s.score *= scale);
+        landmark += (long) (halfLives * halfLifeMillis());
+    }
+
+    /**
+     * Forgets videos whose decayed score became negligible. A writer may still add to
+     * a pruned video, the next tick then puts it back.
+     */
+    private void prune(double factor) {
+        double threshold = minScore * factor;
+        for (Scored scored : scores.values()) {
+            if (!scored.inTop && !scored.dirty && scored.score < threshold) {
+                scores.remove(scored.id, scored);
+            }
+        }
+    }
+
+    /**
+     * Loads the video posts that entered the top-K (all of them when a refresh is due)
+     * and publishes the new ranking
+     */
+    private void publish(long now, double factor) {
+        boolean refresh = now - lastRefresh >= refreshIntervalMs;
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < topSize; i++) {
+            ids.add(top[i].id);
+        }
+        loaded.keySet().retainAll(ids);
+
+        Set<Long> toLoad = new HashSet<>(ids);
+        if (!refresh) {
+            toLoad.removeAll(loaded.keySet());
+        }
+        try {
+            if (!toLoad.isEmpty()) {
+                for (VideoPost videoPost : videoPostRepository.findAllWithTagsByIdIn(toLoad)) {
+                    loaded.put(videoPost.getId(), videoPost);
+                }
+                // Scored but gone (deleted meanwhile or a false positive of the filter), free their places
+                toLoad.removeAll(loaded.keySet());
+                removals.addAll(toLoad);
+            }
+        } catch (Exception e) {
+            log.error("Failed to load trending video posts, keeping the previous ranking: {}", e.getMessage());
+            return;
+        }
+
+        List<TrendingVideo> ranking = new ArrayList<>(topSize);
+        for (int i = 0; i < topSize; i++) {
+            VideoPost videoPost = loaded.get(top[i].id);
+            if (videoPost != null) {
+                ranking.add(new TrendingVideo(videoPost, top[i].score / factor));
+            }
+        }
+        snapshot = Collections.unmodifiableList(ranking);
+        topChanged = false;
+        if (refresh) {
+            lastRefresh = now;
+        }
+    }
+
+    private double halfLifeMillis() {
+        return halfLifeHours * TimeUnit.HOURS.toMillis(1);
+    }
+
+    private static long nullToZero(Long value) {
+        return value != null ? value : 0;
+    }
+
+    private void seedSafely() {
+        try {
+            seed();
+        } catch (Exception e) {
+            log.error("Failed to seed trending scores: {}", e.getMessage(), e);
+        }
+    }
+
+    private void tickSafely() {
+        try {
+            tick();
+        } catch (Exception e) {
+            log.error("Trending tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets trending engine statistics
+     * @return trending engine statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("halfLifeHours", halfLifeHours);
+        stats.put("topK", topK);
+        stats.put("scoredVideos", scores.size());
+        stats.put("rankedVideos", snapshot.size());
+        stats.put("events", events.get());
+        stats.put("rejectedEvents", rejected.get());
+        stats.put("ticks", ticks.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        tickExecutor.shutdownNow();
+    }
+
+    /**
+     * A ranked video post with its current decayed score
+     */
+    public record TrendingVideo(VideoPost videoPost, double score) {
+    }
+
+    private static final class Scored {
+
+        final Long id;
+        final DoubleAdder pending = new DoubleAdder();
+        volatile boolean dirty;
+        double score;
+        boolean inTop;
+        // Removed as deleted, late events for it are dropped
+        boolean discarded;
+
+        Scored(Long id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package isa.jutjub.service;
+
+import isa.jutjub.model.VideoViewerSketch;
+import isa.jutjub.repository.VideoViewerSketchRepository;
+import isa.jutjub.util.HyperLogLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estimates distinct viewers per video with one HyperLogLog sketch per video and day.
+ *
+ * Sketches are updated in memory and periodically merged into video_viewer_sketches.
+ * HyperLogLog merges are idempotent (register-wise max), so re-merging a sketch or
+ * merging the sketches of several nodes into the same row never over-counts.
+ */
+@Service
+@Slf4j
+public class UniqueViewerService {
+
+    private static final int MAX_MERGE_ATTEMPTS = 3;
+
+    private final VideoViewerSketchRepository sketchRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.unique-viewers.flush-interval-ms:10000}")
+    private long flushIntervalMs;
+
+    private final Map<LocalDate, Map<Long, PendingSketch>> pending = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "unique-viewer-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong mergedSketches = new AtomicLong();
+    private final AtomicLong mergeConflicts = new AtomicLong();
+
+    @Autowired
+    public UniqueViewerService(VideoViewerSketchRepository sketchRepository, PlatformTransactionManager transactionManager) {
+        this.sketchRepository = sketchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void start() {
+        flushExecutor.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records a viewer of a video for today
+     * @param videoId the video post ID
+     * @param viewerHash 64-bit hash identifying the viewer
+     */
+    public void recordViewer(Long videoId, long viewerHash) {
+        PendingSketch sketch = pending
+                .computeIfAbsent(LocalDate.now(), day -> new ConcurrentHashMap<>())
+                .computeIfAbsent(videoId, id -> new PendingSketch());
+        if (sketch.sketch.offer(viewerHash)) {
+            sketch.dirty = true;
+        }
+    }
+
+    /**
+     * Estimates distinct viewers of a video
+     * @param videoId the video post ID
+     * @param days number of most recent days to include, or null for all time
+     * @return the estimated number of distinct viewers
+     */
+    public long getUniqueViewers(Long videoId, Integer days) {
+        LocalDate from = days != null ? LocalDate.now().minusDays(Math.max(days, 1) - 1L) : LocalDate.of(1970, 1, 1);
+
+        HyperLogLog merged = new HyperLogLog();
+        for (VideoViewerSketch stored : sketchRepository.findByVideoPostIdAndWindowDayGreaterThanEqual(videoId, from)) {
+            merged.merge(HyperLogLog.fromBytes(stored.getRegisters()));
+        }
+        pending.forEach((day, sketches) -> {
+            PendingSketch sketch = sketches.get(videoId);
+            if (sketch != null && !day.isBefore(from)) {
+                merged.merge(sketch.sketch);
+            }
+        });
+        return merged.cardinality();
+    }
+
+    /**
+     * Drops all sketches of a deleted video post
+     * @param videoId the video post ID
+     */
+    public void discard(Long videoId) {
+        pending.values().forEach(sketches -> sketches.remove(videoId));
+        sketchRepository.deleteByVideoPostId(videoId);
+    }
+
+    /**
+     * Merges changed sketches into the database and evicts idle ones
+     */
+    public synchronized void flush() {
+        LocalDate today = LocalDate.now();
+        pending.forEach((day, sketches) -> {
+            sketches.forEach((videoId, sketch) -> {
+                if (!sketch.dirty) {
+                    // Idle since the last flush, the database already has every register
+                    sketches.remove(videoId, sketch);
+                    if (!sketch.dirty) {
+                        return;
+                    }
+                }
+                sketch.dirty = false;
+                persist(videoId, day, sketch.sketch.copy());
+            });
+            if (sketches.isEmpty() && day.isBefore(today)) {
+                pending.remove(day, sketches);
+            }
+        });
+    }
+
+    private void persist(Long videoId, LocalDate day, HyperLogLog sketch) {
+        for (int attempt = 1; attempt <= MAX_MERGE_ATTEMPTS; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    VideoViewerSketch stored = sketchRepository.findByVideoPostIdAndWindowDay(videoId, day)
+                            .orElseGet(() -> new VideoViewerSketch(videoId, day));
+                    if (stored.getRegisters() != null) {
+                        sketch.merge(HyperLogLog.fromBytes(stored.getRegisters()));
+                    }
+                    stored.setRegisters(sketch.toBytes());
+                    sketchRepository.save(stored);
+                });
+                mergedSketches.incrementAndGet();
+                return;
+            } catch (ObjectOptimisticLockingFailureException | DataIntegrityViolationException e) {
+                // Another node merged the same row first, merge again on top of its result
+                mergeConflicts.incrementAndGet();
+                log.debug("Sketch merge conflict for video post ID {} on {}, attempt {}", videoId, day, attempt);
+            }
+        }
+        log.warn("Gave up merging viewer sketch for video post ID {} on {}", videoId, day);
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Unique viewer flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets sketch statistics
+     * @return sketch statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("flushIntervalMs", flushIntervalMs);
+        stats.put("sketchesInMemory", pending.values().stream().mapToInt(Map::size).sum());
+        stats.put("mergedSketches", mergedSketches.get());
+        stats.put("mergeConflicts", mergeConflicts.get());
+        return stats;
+    }
+
+    /**
+     * Stops the flusher and merges any remaining sketches
+     */
+    @PreDestroy
+    public void shutdown() {
+        log.info("Shutting down UniqueViewerService...");
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                flushExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flushExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flushSafely();
+    }
+
+    private static final class PendingSketch {
+        private final HyperLogLog sketch = new HyperLogLog();
+        private volatile boolean dirty;
+    }
+}
@@ -0,0 +1,226 @@
+package isa.jutjub.service;
+
+import isa.jutjub.util.RollingCounter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recent view and like rates per video.
+ *
+ * Every active video gets per-minute buckets for the last hour and per-hour buckets
+ * for the last week ({@link RollingCounter}, about 3.6 KB per video). Videos without
+ * activity for app.stats.idle-eviction-minutes are dropped, so memory follows the set
+ * of videos currently being watched rather than the catalogue size.
+ */
+@Service
+@Slf4j
+public class VideoActivityService {
+
+    public static final int MINUTE_BUCKETS = 60;
+    public static final int HOUR_BUCKETS = 24 * 7;
+
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final Pattern WINDOW_PATTERN = Pattern.compile("(\\d+)([mhd])");
+
+    @Value("${app.stats.idle-eviction-minutes:1440}")
+    private long idleEvictionMinutes;
+
+    private final Map<Long, Activity> activities = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    private final ScheduledExecutorService evictionExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "video-activity-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong evicted = new AtomicLong();
+
+    public VideoActivityService() {
+        this(System::currentTimeMillis);
+    }
+
+    VideoActivityService(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void start() {
+        evictionExecutor.scheduleWithFixedDelay(this::evictIdleSafely, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Records a counted view
+     * @param videoId the video post ID
+     */
+    public void recordView(Long videoId) {
+        long now = clock.getAsLong();
+        Activity activity = activity(videoId, now);
+        activity.minuteViews.increment(now);
+        activity.hourViews.increment(now);
+    }
+
+    /**
+     * Records a like
+     * @param videoId the video post ID
+     */
+    public void recordLike(Long videoId) {
+        long now = clock.getAsLong();
+        Activity activity = activity(videoId, now);
+        activity.minuteLikes.increment(now);
+        activity.hourLikes.increment(now);
+    }
+
+    private Activity activity(Long videoId, long now) {
+        Activity activity = activities.computeIfAbsent(videoId, id -> new Activity());
+        activity.lastActive = now;
+        return activity;
+    }
+
+    /**
+     * Gets the view and like time series of a video
+     * @param videoId the video post ID
+     * @param window window such as 30m, 24h or 7d; up to 60m is returned per minute, longer windows per hour
+     * @return window, resolution, totals and the buckets oldest first
+     * @throws IllegalArgumentException if the window is malformed or longer than the retained history
+     */
+    public Map<String, Object> getTimeSeries(Long videoId, String window) {
+        long windowMillis = parseWindow(window);
+        boolean perMinute = windowMillis <= MINUTE_BUCKETS * MINUTE_MILLIS;
+        long bucketMillis = perMinute ? MINUTE_MILLIS : HOUR_MILLIS;
+        int buckets = (int) Math.max(1, (windowMillis + bucketMillis - 1) / bucketMillis);
+
+        long now = clock.getAsLong();
+        long[] views = new long[buckets];
+        long[] likes = new long[buckets];
+        Activity activity = activities.get(videoId);
+        if (activity != null) {
+            views = (perMinute ? activity.minuteViews : activity.hourViews).snapshot(now, buckets);
+            likes = (perMinute ? activity.minuteLikes : activity.hourLikes).snapshot(now, buckets);
+        }
+
+        long firstBucketStart = (now / bucketMillis - (buckets - 1)) * bucketMillis;
+        List<Map<String, Object>> series = new ArrayList<>(buckets);
+        long totalViews = 0;
+        long totalLikes = 0;
+        for (int i = 0; i < buckets; i++) {
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("start", Instant.ofEpochMilli(firstBucketStart + i * bucketMillis));
+            point.put("views", views[i]);
+            point.put("likes", likes[i]);
+            series.add(point);
+            totalViews += views[i];
+            totalLikes += likes[i];
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("window", window);
+        result.put("resolution", perMinute ? "1m" : "1h");
+        result.put("totalViews", totalViews);
+        result.put("totalLikes", totalLikes);
+        result.put("series", series);
+        return result;
+    }
+
+    private long parseWindow(String window) {
+        Matcher matcher = WINDOW_PATTERN.matcher(window == null ? "" : window.trim().toLowerCase());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid window '" + window + "', expected e.g. 30m, 24h or 7d");
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        long millis = switch (matcher.group(2)) {
+            case "m" -> TimeUnit.MINUTES.toMillis(amount);
+            case "h" -> TimeUnit.HOURS.toMillis(amount);
+            default -> TimeUnit.DAYS.toMillis(amount);
+        };
+        if (amount == 0 || millis > HOUR_BUCKETS * HOUR_MILLIS) {
+            throw new IllegalArgumentException("Window must be between 1m and " + HOUR_BUCKETS + "h");
+        }
+        return millis;
+    }
+
+    /**
+     * Drops the buffers of a deleted video post
+     * @param videoId the video post ID
+     */
+    public void discard(Long videoId) {
+        activities.remove(videoId);
+    }
+
+    /**
+     * Drops buffers of videos without activity for app.stats.idle-eviction-minutes
+     * @return number of buffers dropped
+     */
+    public int evictIdle() {
+        long cutoff = clock.getAsLong() - TimeUnit.MINUTES.toMillis(idleEvictionMinutes);
+        int removed = 0;
+        for (Map.Entry<Long, Activity> entry : activities.entrySet()) {
+            Activity activity = entry.getValue();
+            // A view racing with the removal may be lost, which is fine for a video that was idle
+            if (activity.lastActive < cutoff && activities.remove(entry.getKey(), activity)) {
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            evicted.addAndGet(removed);
+            log.debug("Evicted {} idle video activity buffers", removed);
+        }
+        return removed;
+    }
+
+    private void evictIdleSafely() {
+        try {
+            evictIdle();
+        } catch (Exception e) {
+            log.error("Video activity eviction failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets buffer statistics
+     * @return buffer statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("trackedVideos", activities.size());
+        stats.put("idleEvictionMinutes", idleEvictionMinutes);
+        stats.put("evicted", evicted.get());
+        stats.put("bytesPerVideo", Activity.BYTES);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evictionExecutor.shutdownNow();
+    }
+
+    private static final class Activity {
+
+        static final int BYTES = 2 * Long.BYTES * (MINUTE_BUCKETS + HOUR_BUCKETS);
+
+        final RollingCounter minuteViews = new RollingCounter(MINUTE_BUCKETS, MINUTE_MILLIS);
+        final RollingCounter minuteLikes = new RollingCounter(MINUTE_BUCKETS, MINUTE_MILLIS);
+        final RollingCounter hourViews = new RollingCounter(HOUR_BUCKETS, HOUR_MILLIS);
+        final RollingCounter hourLikes = new RollingCounter(HOUR_BUCKETS, HOUR_MILLIS);
+        volatile long lastActive;
+    }
+}
@@ -0,0 +1,138 @@
+package isa.jutjub.service;
+
+import isa.jutjub.dto.FieldSet;
+import isa.jutjub.dto.VideoCard;
+import isa.jutjub.dto.VideoCounters;
+import isa.jutjub.repository.VideoCardView;
+import isa.jutjub.repository.VideoPostRepository;
+import isa.jutjub.repository.VideoTagView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns card projections of a listing page into {@link VideoCard}s. The tags of
+ * the whole page are loaded with one IN query instead of one query per row, and
+ * not at all when the client did not ask for them. Pages may come from the query
+ * cache, so the counters are taken from the {@link ColumnarCatalogue}.
+ */
+@Service
+public class VideoCardService {
+
+    private static final String DESCRIPTION_PREVIEW = "descriptionPreview";
+    private static final String TAGS = "tags";
+
+    private final VideoPostRepository videoPostRepository;
+    private final ColumnarCatalogue columnarCatalogue;
+
+    @Autowired
+    public VideoCardService(VideoPostRepository videoPostRepository, ColumnarCatalogue columnarCatalogue) {
+        this.videoPostRepository = videoPostRepository;
+        this.columnarCatalogue = columnarCatalogue;
+    }
+
+    /**
+     * @param fields the fields to return
+     * @return whether the card queries should read the description, see {@link VideoPostRepository#CARD_COLUMNS}
+     */
+    public static boolean readsDescription(FieldSet fields) {
+        return fields.includes(DESCRIPTION_PREVIEW);
+    }
+
+    /**
+     * @param rows a page of card projections
+     * @param fields the fields to return
+     * @return the same page as cards with their tags
+     */
+    public Slice<VideoCard> toCards(Slice<VideoCardView> rows, FieldSet fields) {
+        return new SliceImpl<>(toCards(rows.getContent(), fields), rows.getPageable(), rows.hasNext());
+    }
+
+    /**
+     * @param rows card projections
+     * @param fields the fields to return
+     * @return cards with their tags, in the order of the rows; without tags if they are not selected
+     */
+    public List<VideoCard> toCards(List<VideoCardView> rows, FieldSet fields) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        if (!fields.includes(TAGS)) {
+            List<VideoCard> cards = new ArrayList<>(rows.size());
+            for (VideoCardView row : rows) {
+                cards.add(toCard(row, List.of()));
+            }
+            return cards;
+        }
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (VideoCardView row : rows) {
+            ids.add(row.getId());
+        }
+        Map<Long, List<String>> tags = loadTags(ids);
+
+        List<VideoCard> cards = new ArrayList<>(rows.size());
+        for (VideoCardView row : rows) {
+            cards.add(toCard(row, tags.getOrDefault(row.getId(), List.of())));
+        }
+        return cards;
+    }
+
+    /**
+     * Loads the tags of several video posts with one IN query
+     * @param ids the video post IDs
+     * @return sorted tags by video post ID; video posts without tags are absent
+     */
+    public Map<Long, List<String>> loadTags(Collection<Long> ids) {
+        Map<Long, List<String>> tags = new HashMap<>();
+        if (ids.isEmpty()) {
+            return tags;
+        }
+        for (VideoTagView tag : videoPostRepository.findTagsByVideoPostIdIn(ids)) {
+            tags.computeIfAbsent(tag.getVideoPostId(), id -> new ArrayList<>()).add(tag.getTag());
+        }
+        tags.replaceAll((id, names) -> names.stream().sorted().toList());
+        return tags;
+    }
+
+    private VideoCard toCard(VideoCardView row, List<String> tags) {
+        VideoCounters counts = columnarCatalogue.getCounts(row.getId(), orZero(row.getViewsCount()),
+                orZero(row.getLikesCount()), orZero(row.getCommentsCount()));
+        return new VideoCard(row.getId(), row.getTitle(), row.getDescriptionPreview(), row.getLocation(),
+                row.getCreatedAt(), counts.likes(), counts.comments(), counts.views(), tags);
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0;
+    }
+
+    /**
+     * Loads the cards of video posts picked elsewhere, e.g. by the columnar catalogue
+     * @param ids video post IDs in the order to return them
+     * @param fields the fields to return
+     * @return cards with their tags, in the order of the IDs; IDs deleted meanwhile are skipped
+     */
+    public List<VideoCard> loadCards(List<Long> ids, FieldSet fields) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, VideoCardView> rowsById = new HashMap<>();
+        for (VideoCardView row : videoPostRepository.findCardsByIdIn(ids, readsDescription(fields))) {
+            rowsById.put(row.getId(), row);
+        }
+        List<VideoCardView> rows = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            VideoCardView row = rowsById.get(id);
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        return toCards(rows, fields);
+    }
+}
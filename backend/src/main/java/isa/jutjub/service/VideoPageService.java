@@ -0,0 +1,184 @@
+package isa.jutjub.service;
+
+import isa.jutjub.dto.VideoCard;
+import isa.jutjub.dto.VideoPage;
+import isa.jutjub.model.VideoPost;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Loads the parts of the video detail page concurrently, so the page costs the
+ * slowest part instead of the sum of one request per part.
+ *
+ * The video post itself is required and loaded on the request thread. Once it is
+ * found, so unknown IDs cost no more than the lookup, live counters and related
+ * videos start together on a bounded executor, each with its own timeout. A part
+ * that times out, fails or finds the executor full is answered with a fallback and
+ * listed as degraded, instead of failing or delaying the page: counters fall back
+ * to the persisted ones, related videos to an empty list. A timed out part keeps
+ * its executor thread until it finishes, which the bounded executor caps. Comments
+ * are not stored yet and are always an empty list.
+ */
+@Service
+@Slf4j
+public class VideoPageService {
+
+    public static final String COUNTERS = "counters";
+    public static final String RELATED = "related";
+
+    private final VideoPostService videoPostService;
+
+    @Value("${app.video-page.threads:8}")
+    private int threads;
+
+    @Value("${app.video-page.queue-size:200}")
+    private int queueSize;
+
+    @Value("${app.video-page.counters-timeout-ms:200}")
+    private long countersTimeoutMs;
+
+    @Value("${app.video-page.related-timeout-ms:300}")
+    private long relatedTimeoutMs;
+
+    @Value("${app.video-page.related-size:8}")
+    private int relatedSize;
+
+    private ThreadPoolExecutor partExecutor;
+
+    private final LongAdder pages = new LongAdder();
+    private final Map<String, LongAdder> timeouts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> rejections = new ConcurrentHashMap<>();
+
+    @Autowired
+    public VideoPageService(VideoPostService videoPostService) {
+        this.videoPostService = videoPostService;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        partExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread thread = new Thread(r, "video-page-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Loads the detail page of a video post. Records no view, the caller does.
+     * @param id the video post ID
+     * @param username the signed in user, or null
+     * @return the page, or empty if the video post does not exist
+     * @throws isa.jutjub.util.SingleFlight.LoadTimeoutException if the video post could not be loaded in time
+     */
+    public Optional<VideoPage> getVideoPage(Long id, String username) {
+        Optional<VideoPost> found = videoPostService.findVideoPostById(id);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        VideoPost videoPost = found.get();
+        CompletableFuture<Map<String, Object>> liveCounters = part(countersTimeoutMs, () -> {
+            Map<String, Object> counters = new HashMap<>();
+            counters.put("likesCount", videoPostService.getLikeCount(id));
+            counters.put("uniqueViewers", videoPostService.getUniqueViewers(id, null));
+            counters.put("liked", videoPostService.hasLiked(id, username));
+            return counters;
+        });
+        CompletableFuture<List<VideoCard>> related = part(relatedTimeoutMs,
+                () -> videoPostService.getRelatedVideoPosts(videoPost, relatedSize));
+
+        List<String> degraded = new ArrayList<>();
+        Map<String, Object> counters = join(COUNTERS, liveCounters, degraded, () -> {
+            // Same keys as the live counters: unknown values are null, anonymous users like nothing
+            Map<String, Object> persisted = new HashMap<>();
+            persisted.put("likesCount", videoPost.getLikesCount());
+            persisted.put("uniqueViewers", null);
+            persisted.put("liked", username != null ? null : false);
+            return persisted;
+        });
+        counters.put("viewsCount", videoPostService.getViewCount(videoPost));
+        counters.put("commentsCount", videoPost.getCommentsCount());
+        VideoPage page = new VideoPage(videoPost, counters, List.of(),
+                join(RELATED, related, degraded, List::of), degraded);
+        pages.increment();
+        return Optional.of(page);
+    }
+
+    private <T> CompletableFuture<T> part(long timeoutMs, Supplier<T> loader) {
+        try {
+            return CompletableFuture.supplyAsync(loader, partExecutor).orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <T> T join(String name, CompletableFuture<T> part, List<String> degraded, Supplier<T> fallback) {
+        try {
+            return part.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                count(timeouts, name);
+            } else if (cause instanceof RejectedExecutionException) {
+                count(rejections, name);
+            } else {
+                count(failures, name);
+                log.warn("Video page part '{}' failed: {}", name, cause == null ? e.getMessage() : cause.getMessage());
+            }
+            degraded.add(name);
+            return fallback.get();
+        }
+    }
+
+    private static void count(Map<String, LongAdder> counters, String name) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * @return pages served, and timeouts, failures and rejections per part
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("pages", pages.sum());
+        stats.put("timeouts", sums(timeouts));
+        stats.put("failures", sums(failures));
+        stats.put("rejections", sums(rejections));
+        stats.put("activeThreads", partExecutor.getActiveCount());
+        stats.put("queued", partExecutor.getQueue().size());
+        return stats;
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+        Map<String, Long> sums = new HashMap<>();
+        counters.forEach((name, counter) -> sums.put(name, counter.sum()));
+        return sums;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        partExecutor.shutdownNow();
+    }
+}
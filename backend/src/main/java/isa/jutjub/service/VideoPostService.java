@@ -1,18 +1,44 @@
 package isa.jutjub.service;
 
+import isa.jutjub.dto.BeaconRequest;
+import isa.jutjub.dto.EstimatedPage;
+import isa.jutjub.dto.FieldSet;
+import isa.jutjub.dto.VideoCard;
+import isa.jutjub.dto.VideoCounters;
+import isa.jutjub.dto.VideoFilter;
 import isa.jutjub.model.VideoPost;
+import isa.jutjub.repository.VideoCardView;
 import isa.jutjub.repository.VideoPostRepository;
+import isa.jutjub.util.SeekCursor;
+import isa.jutjub.util.SingleFlight;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 @Service
@@ -22,11 +48,74 @@ public class VideoPostService {
 
     private final VideoPostRepository videoPostRepository;
     private final FileUploadService fileUploadService;
+    private final ViewCountService viewCountService;
+    private final UniqueViewerService uniqueViewerService;
+    private final ViewDeduplicator viewDeduplicator;
+    private final VideoActivityService videoActivityService;
+    private final TrendingService trendingService;
+    private final LikeService likeService;
+    private final RetentionService retentionService;
+    private final PlaybackTelemetryService playbackTelemetryService;
+    private final CatalogueCountService catalogueCountService;
+    private final VideoCardService videoCardService;
+    private final NegativeLookupCache negativeLookupCache;
+    private final ColumnarCatalogue columnarCatalogue;
+    private final ResponseCache responseCache;
+    private final CardJsonCache cardJsonCache;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final SingleFlight<Long, VideoPost> videoPostLoads;
+
+    // Columns of the serialized video post properties a fields selection can ask for;
+    // tags and tagsAsString come from the tags
+    private static final Map<String, String> FIELD_COLUMNS = Map.ofEntries(
+            Map.entry("id", "vp.id"),
+            Map.entry("createdAt", "vp.createdAt"),
+            Map.entry("updatedAt", "vp.updatedAt"),
+            Map.entry("deleted", "vp.deleted"),
+            Map.entry("title", "vp.title"),
+            Map.entry("videoDescription", "vp.videoDescription"),
+            Map.entry("videoFileSize", "vp.videoFileSize"),
+            Map.entry("uploadDurationMs", "vp.uploadDurationMs"),
+            Map.entry("location", "vp.location"),
+            Map.entry("likesCount", "vp.likesCount"),
+            Map.entry("commentsCount", "vp.commentsCount"),
+            Map.entry("viewsCount", "vp.viewsCount"));
+
+    @Value("${app.batch-get.max-ids:100}")
+    private int maxBatchIds;
 
     @Autowired
-    public VideoPostService(VideoPostRepository videoPostRepository, FileUploadService fileUploadService) {
+    public VideoPostService(VideoPostRepository videoPostRepository, FileUploadService fileUploadService,
+                            ViewCountService viewCountService, UniqueViewerService uniqueViewerService,
+                            ViewDeduplicator viewDeduplicator, VideoActivityService videoActivityService,
+                            TrendingService trendingService, LikeService likeService,
+                            RetentionService retentionService, PlaybackTelemetryService playbackTelemetryService,
+                            CatalogueCountService catalogueCountService, VideoCardService videoCardService,
+                            RequestCoalescer requestCoalescer, NegativeLookupCache negativeLookupCache,
+                            ColumnarCatalogue columnarCatalogue, ResponseCache responseCache,
+                            CardJsonCache cardJsonCache, EntityManager entityManager,
+                            PlatformTransactionManager transactionManager) {
         this.videoPostRepository = videoPostRepository;
         this.fileUploadService = fileUploadService;
+        this.viewCountService = viewCountService;
+        this.uniqueViewerService = uniqueViewerService;
+        this.viewDeduplicator = viewDeduplicator;
+        this.videoActivityService = videoActivityService;
+        this.trendingService = trendingService;
+        this.likeService = likeService;
+        this.retentionService = retentionService;
+        this.playbackTelemetryService = playbackTelemetryService;
+        this.catalogueCountService = catalogueCountService;
+        this.videoCardService = videoCardService;
+        this.negativeLookupCache = negativeLookupCache;
+        this.columnarCatalogue = columnarCatalogue;
+        this.responseCache = responseCache;
+        this.cardJsonCache = cardJsonCache;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.videoPostLoads = requestCoalescer.newGroup("videoPosts");
     }
 
     /**
@@ -79,6 +168,11 @@ public class VideoPostService {
             
             // Save video post to database
             VideoPost savedPost = videoPostRepository.save(videoPost);
+            catalogueCountService.recordCreated(Set.copyOf(savedPost.getTags()));
+            negativeLookupCache.recordCreated(savedPost.getId());
+            columnarCatalogue.recordSaved(savedPost.getId(), savedPost.getCreatedAt(), savedPost.getVideoFileSize(),
+                    savedPost.getLocation(), Set.copyOf(savedPost.getTags()));
+            responseCache.invalidateAll();
             
             log.info("Successfully created video post with ID: {}, upload duration: {}ms", 
                     savedPost.getId(), videoPost.getUploadDurationMs());
@@ -111,13 +205,21 @@ public class VideoPostService {
         VideoPost existingPost = videoPostRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Video post not found with ID: " + id));
         
+        Set<String> oldTags = Set.copyOf(existingPost.getTags());
+        
         // Update allowed fields
         existingPost.setTitle(videoPost.getTitle());
         existingPost.setVideoDescription(videoPost.getVideoDescription());
         existingPost.setLocation(videoPost.getLocation());
         existingPost.setTags(videoPost.getTags());
         
-        return videoPostRepository.save(existingPost);
+        VideoPost savedPost = videoPostRepository.save(existingPost);
+        catalogueCountService.recordTagsChanged(oldTags, Set.copyOf(savedPost.getTags()));
+        columnarCatalogue.recordSaved(savedPost.getId(), savedPost.getCreatedAt(), savedPost.getVideoFileSize(),
+                savedPost.getLocation(), Set.copyOf(savedPost.getTags()));
+        responseCache.invalidateAll();
+        cardJsonCache.evict(savedPost.getId());
+        return savedPost;
     }
 
     /**
@@ -138,7 +240,20 @@ public class VideoPostService {
         }
         
         // Delete from database
+        Set<String> tags = Set.copyOf(videoPost.getTags());
         videoPostRepository.delete(videoPost);
+        catalogueCountService.recordDeleted(tags);
+        negativeLookupCache.recordDeleted(id);
+        columnarCatalogue.recordDeleted(id);
+        responseCache.invalidateAll();
+        cardJsonCache.evict(id);
+        viewCountService.discard(id);
+        uniqueViewerService.discard(id);
+        videoActivityService.discard(id);
+        trendingService.discard(id);
+        likeService.discard(id);
+        retentionService.discard(id);
+        playbackTelemetryService.discard(id);
         
         log.info("Successfully deleted video post with ID: {}", id);
     }
@@ -146,64 +261,386 @@ public class VideoPostService {
     /**
      * Gets a video post by ID
      * @param id the video post ID
-     * @return the video post
+     * @return the video post, read-only
+     * @throws RuntimeException if the video post does not exist
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public VideoPost getVideoPostById(Long id) {
-        return videoPostRepository.findById(id)
+        return findVideoPostById(id)
                 .orElseThrow(() -> new RuntimeException("Video post not found with ID: " + id));
     }
 
     /**
-     * Gets all video posts with pagination
-     * @param pageable pagination information
+     * Finds a video post by ID. IDs the negative lookup cache knows to be missing are
+     * answered without a query. Concurrent calls for the same ID share one load, and
+     * only that load holds a transaction; the callers waiting for it do not take a
+     * connection. The returned video post is detached with its tags initialized,
+     * since it may be handed to requests other than the one that loaded it.
+     * @param id the video post ID
+     * @return the video post, read-only, or empty if it does not exist
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<VideoPost> findVideoPostById(Long id) {
+        if (!negativeLookupCache.mightExist(id)) {
+            return Optional.empty();
+        }
+        long stamp = negativeLookupCache.lookupStamp();
+        VideoPost videoPost = videoPostLoads.load(id, () -> readOnlyTransaction.execute(status -> {
+            VideoPost found = videoPostRepository.findById(id).orElse(null);
+            if (found != null) {
+                Hibernate.initialize(found.getTags());
+                entityManager.detach(found);
+            }
+            return found;
+        }));
+        if (videoPost == null) {
+            negativeLookupCache.recordMiss(id, stamp);
+            return Optional.empty();
+        }
+        return Optional.of(videoPost);
+    }
+
+    /**
+     * Gets several video posts by ID in one query with their tags, e.g. for a playlist.
+     * Unlike opening a video post this records no views. IDs the negative lookup cache
+     * knows to be missing are not queried, and IDs the query does not find are
+     * remembered as missing.
+     * @param ids the video post IDs, at most app.batch-get.max-ids distinct ones
+     * @return the video posts found by ID, in the order of the IDs
+     * @throws IllegalArgumentException if too many IDs are requested
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, VideoPost> getVideoPostsByIds(Collection<Long> ids) {
+        return getVideoPostsByIds(ids, true);
+    }
+
+    /**
+     * Gets several video posts by ID in one query, like {@link #getVideoPostsByIds(Collection)}
+     * @param ids the video post IDs, at most app.batch-get.max-ids distinct ones
+     * @param withTags whether to load the tags in the same query; if not, they are left uninitialized
+     * @return the video posts found by ID, in the order of the IDs
+     * @throws IllegalArgumentException if too many IDs are requested
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, VideoPost> getVideoPostsByIds(Collection<Long> ids, boolean withTags) {
+        List<Long> toLoad = idsToLoad(ids);
+        if (toLoad.isEmpty()) {
+            return Map.of();
+        }
+        long stamp = negativeLookupCache.lookupStamp();
+        Map<Long, VideoPost> found = new HashMap<>();
+        List<VideoPost> loaded = withTags
+                ? videoPostRepository.findAllWithTagsByIdIn(toLoad)
+                : videoPostRepository.findAllByIdIn(toLoad);
+        for (VideoPost videoPost : loaded) {
+            found.put(videoPost.getId(), videoPost);
+        }
+        Map<Long, VideoPost> videoPosts = new LinkedHashMap<>();
+        for (Long id : toLoad) {
+            VideoPost videoPost = found.get(id);
+            if (videoPost != null) {
+                videoPosts.put(id, videoPost);
+            } else {
+                negativeLookupCache.recordMiss(id, stamp);
+            }
+        }
+        return videoPosts;
+    }
+
+    /**
+     * Gets only some fields of several video posts by ID, e.g. for a fields parameter.
+     * Reads just the columns of the selected fields, and the tags with one more query
+     * only if they are selected; the entity is never loaded. Records no views. Missing
+     * IDs are handled as by {@link #getVideoPostsByIds(Collection)}.
+     * @param ids the video post IDs, at most app.batch-get.max-ids distinct ones
+     * @param fields the video post fields to return
+     * @return the selected fields in serialized order by video post ID, in the order of the IDs
+     * @throws IllegalArgumentException if too many IDs are requested
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Map<String, Object>> getVideoPostFields(Collection<Long> ids, FieldSet fields) {
+        List<Long> toLoad = idsToLoad(ids);
+        if (toLoad.isEmpty()) {
+            return Map.of();
+        }
+        StringBuilder jpql = new StringBuilder("SELECT vp.id AS id");
+        for (String field : fields.getNames()) {
+            String column = FIELD_COLUMNS.get(field);
+            if (column != null && !field.equals("id")) {
+                jpql.append(", ").append(column).append(" AS ").append(field);
+            }
+        }
+        jpql.append(" FROM VideoPost vp WHERE vp.id IN :ids");
+
+        long stamp = negativeLookupCache.lookupStamp();
+        Map<Long, Tuple> rows = new HashMap<>();
+        for (Tuple row : entityManager.createQuery(jpql.toString(), Tuple.class).setParameter("ids", toLoad).getResultList()) {
+            rows.put(row.get("id", Long.class), row);
+        }
+        boolean withTags = fields.includes("tags") || fields.includes("tagsAsString");
+        Map<Long, List<String>> tags = withTags ? videoCardService.loadTags(rows.keySet()) : Map.of();
+        boolean withCounts = fields.includes("viewsCount") || fields.includes("likesCount") || fields.includes("commentsCount");
+
+        Map<Long, Map<String, Object>> videoPosts = new LinkedHashMap<>();
+        for (Long id : toLoad) {
+            Tuple row = rows.get(id);
+            if (row == null) {
+                negativeLookupCache.recordMiss(id, stamp);
+                continue;
+            }
+            List<String> rowTags = tags.getOrDefault(id, List.of());
+            // The same counters the loaded entity would carry, see SecondLevelCacheConfig
+            VideoCounters counts = withCounts ? columnarCatalogue.getCounts(id, count(row, fields, "viewsCount"),
+                    count(row, fields, "likesCount"), count(row, fields, "commentsCount")) : null;
+            Map<String, Object> selected = new LinkedHashMap<>();
+            for (String field : fields.getNames()) {
+                selected.put(field, switch (field) {
+                    case "tags" -> rowTags;
+                    case "tagsAsString" -> String.join(", ", rowTags);
+                    case "viewsCount" -> counts.views();
+                    case "likesCount" -> counts.likes();
+                    case "commentsCount" -> counts.comments();
+                    default -> row.get(field);
+                });
+            }
+            videoPosts.put(id, selected);
+        }
+        return videoPosts;
+    }
+
+    private static long count(Tuple row, FieldSet fields, String field) {
+        if (!fields.includes(field)) {
+            return 0;
+        }
+        Long value = row.get(field, Long.class);
+        return value != null ? value : 0;
+    }
+
+    /**
+     * @return the distinct IDs that may exist, in request order
+     * @throws IllegalArgumentException if more than app.batch-get.max-ids distinct IDs are requested
+     */
+    private List<Long> idsToLoad(Collection<Long> ids) {
+        Set<Long> distinct = new LinkedHashSet<>(ids);
+        if (distinct.size() > maxBatchIds) {
+            throw new IllegalArgumentException("At most " + maxBatchIds + " IDs can be requested at once, got " + distinct.size());
+        }
+        return distinct.stream().filter(negativeLookupCache::mightExist).toList();
+    }
+
+    /**
+     * Gets all video posts with pagination and optional filters. Sorts and filters
+     * the columnar catalogue holds are answered in memory, leaving only the cards of
+     * the page to load. Otherwise the page is read in SQL; unfiltered, its total comes
+     * from the maintained catalogue count instead of a COUNT query.
+     * @param filter optional filters
+     * @param pageable pagination and sorting information
+     * @param fields the card fields to load
      * @return page of video posts
      */
     @Transactional(readOnly = true)
-    public Page<VideoPost> getAllVideoPosts(Pageable pageable) {
-        return videoPostRepository.findAll(pageable);
+    public Page<VideoCard> getAllVideoPosts(VideoFilter filter, Pageable pageable, FieldSet fields) {
+        Optional<Page<Long>> ids = columnarCatalogue.query(filter, pageable);
+        if (ids.isPresent()) {
+            List<VideoCard> cards = videoCardService.loadCards(ids.get().getContent(), fields);
+            return new PageImpl<>(cards, pageable, ids.get().getTotalElements());
+        }
+        boolean withDescription = VideoCardService.readsDescription(fields);
+        if (filter.isEmpty()) {
+            List<VideoCard> cards = videoCardService.toCards(
+                    videoPostRepository.findAllSliced(withDescription, pageable).getContent(), fields);
+            return new PageImpl<>(cards, pageable, catalogueCountService.getTotal());
+        }
+        Page<VideoCardView> rows = videoPostRepository.findFiltered(filter.location(), filter.tag(),
+                filter.createdAfter(), filter.minSize(), filter.maxSize(), withDescription, pageable);
+        return new PageImpl<>(videoCardService.toCards(rows.getContent(), fields), pageable, rows.getTotalElements());
     }
 
     /**
      * Gets most recent video posts
      * @param pageable pagination information
+     * @param fields the card fields to load
      * @return page of most recent video posts
      */
     @Transactional(readOnly = true)
-    public Page<VideoPost> getMostRecentVideoPosts(Pageable pageable) {
-        return videoPostRepository.findMostRecent(pageable);
+    public Page<VideoCard> getMostRecentVideoPosts(Pageable pageable, FieldSet fields) {
+        List<VideoCard> cards = videoCardService.toCards(
+                videoPostRepository.findMostRecent(VideoCardService.readsDescription(fields), pageable).getContent(), fields);
+        return new PageImpl<>(cards, pageable, catalogueCountService.getTotal());
+    }
+
+    /**
+     * Gets a keyset page of the most recent video posts
+     * @param cursor position after which to continue, of kind {@link SeekCursor.Kind#CREATED_AT}
+     * @param size page size
+     * @param fields the card fields to load
+     * @return slice of video posts, newest first
+     */
+    @Transactional(readOnly = true)
+    public Slice<VideoCard> getMostRecentVideoPosts(SeekCursor cursor, int size, FieldSet fields) {
+        return videoCardService.toCards(videoPostRepository.findMostRecentBefore(cursor.getCreatedAt(), cursor.getId(),
+                VideoCardService.readsDescription(fields), PageRequest.ofSize(size)), fields);
+    }
+
+    /**
+     * Gets trending video posts from the in-memory ranking, without querying the database
+     * @param page page number (0-based)
+     * @param size page size
+     * @return trending video posts with their scores, best first
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<TrendingService.TrendingVideo> getTrendingVideoPosts(int page, int size) {
+        return trendingService.getTrending(page, size);
     }
 
     /**
-     * Gets most popular video posts
+     * Gets the number of video posts in the trending ranking
+     * @return number of ranked video posts
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int getTrendingCount() {
+        return trendingService.getTrendingCount();
+    }
+
+    /**
+     * Gets most popular video posts of all time by likes
      * @param pageable pagination information
+     * @param fields the card fields to load
      * @return page of most popular video posts
      */
     @Transactional(readOnly = true)
-    public Page<VideoPost> getMostPopularVideoPosts(Pageable pageable) {
-        return videoPostRepository.findMostPopular(pageable);
+    public Page<VideoCard> getMostPopularVideoPosts(Pageable pageable, FieldSet fields) {
+        List<VideoCard> cards = videoCardService.toCards(
+                videoPostRepository.findMostPopular(VideoCardService.readsDescription(fields), pageable).getContent(), fields);
+        return new PageImpl<>(cards, pageable, catalogueCountService.getTotal());
+    }
+
+    /**
+     * Gets a keyset page of the most popular video posts of all time by likes
+     * @param cursor position after which to continue, of kind {@link SeekCursor.Kind#LIKES}
+     * @param size page size
+     * @param fields the card fields to load
+     * @return slice of video posts, most liked first
+     */
+    @Transactional(readOnly = true)
+    public Slice<VideoCard> getMostPopularVideoPosts(SeekCursor cursor, int size, FieldSet fields) {
+        return videoCardService.toCards(videoPostRepository.findMostPopularBefore(cursor.getKey(), cursor.getId(),
+                VideoCardService.readsDescription(fields), PageRequest.ofSize(size)), fields);
     }
 
     /**
-     * Searches video posts by keyword
+     * Searches video posts by keyword. The total is exact on the last page and
+     * otherwise an estimate from the per-keyword count cache.
      * @param keyword search keyword
      * @param pageable pagination information
+     * @param fields the card fields to load
      * @return page of video posts matching search criteria
      */
     @Transactional(readOnly = true)
-    public Page<VideoPost> searchVideoPosts(String keyword, Pageable pageable) {
-        return videoPostRepository.searchByKeyword(keyword, pageable);
+    public EstimatedPage<VideoCard> searchVideoPosts(String keyword, Pageable pageable, FieldSet fields) {
+        Slice<VideoCardView> videoPosts = videoPostRepository.searchByKeyword(keyword,
+                VideoCardService.readsDescription(fields), pageable);
+        List<VideoCard> content = videoCardService.toCards(videoPosts.getContent(), fields);
+        long seen = pageable.getOffset() + content.size();
+        if (!videoPosts.hasNext() && (!content.isEmpty() || pageable.getPageNumber() == 0)) {
+            return new EstimatedPage<>(content, pageable, seen, false);
+        }
+        long estimate = catalogueCountService.getSearchTotal(keyword);
+        return new EstimatedPage<>(content, pageable, videoPosts.hasNext() ? Math.max(estimate, seen + 1) : estimate, true);
+    }
+
+    /**
+     * Gets a keyset page of the video posts matching a keyword, newest first
+     * @param keyword search keyword
+     * @param cursor position after which to continue, of kind {@link SeekCursor.Kind#CREATED_AT}
+     * @param size page size
+     * @param fields the card fields to load
+     * @return slice of video posts matching search criteria
+     */
+    @Transactional(readOnly = true)
+    public Slice<VideoCard> searchVideoPosts(String keyword, SeekCursor cursor, int size, FieldSet fields) {
+        return videoCardService.toCards(videoPostRepository.searchByKeywordBefore(keyword, cursor.getCreatedAt(), cursor.getId(),
+                VideoCardService.readsDescription(fields), PageRequest.ofSize(size)), fields);
     }
 
     /**
      * Gets video posts by tag
      * @param tag the tag to search for
      * @param pageable pagination information
+     * @param fields the card fields to load
      * @return page of video posts with specified tag
      */
     @Transactional(readOnly = true)
-    public Page<VideoPost> getVideoPostsByTag(String tag, Pageable pageable) {
-        return videoPostRepository.findByTag(tag, pageable);
+    public Page<VideoCard> getVideoPostsByTag(String tag, Pageable pageable, FieldSet fields) {
+        List<VideoCard> cards = videoCardService.toCards(
+                videoPostRepository.findByTag(tag, VideoCardService.readsDescription(fields), pageable).getContent(), fields);
+        return new PageImpl<>(cards, pageable, catalogueCountService.getTagTotal(tag));
+    }
+
+    /**
+     * Gets a keyset page of the video posts with a tag, newest first
+     * @param tag the tag to search for
+     * @param cursor position after which to continue, of kind {@link SeekCursor.Kind#CREATED_AT}
+     * @param size page size
+     * @param fields the card fields to load
+     * @return slice of video posts with specified tag
+     */
+    @Transactional(readOnly = true)
+    public Slice<VideoCard> getVideoPostsByTag(String tag, SeekCursor cursor, int size, FieldSet fields) {
+        return videoCardService.toCards(videoPostRepository.findByTagBefore(tag, cursor.getCreatedAt(), cursor.getId(),
+                VideoCardService.readsDescription(fields), PageRequest.ofSize(size)), fields);
+    }
+
+    /**
+     * Gets the most recent video posts as entities, for resolvers that load their
+     * tags separately, see {@link #getTags(Collection)}
+     * @param tag tag the video posts have, or null for all
+     * @param size maximum number of video posts
+     * @return video posts without their tags initialized, newest first
+     */
+    @Transactional(readOnly = true)
+    public List<VideoPost> getRecentVideoPosts(String tag, int size) {
+        PageRequest pageable = PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        return videoPostRepository.findWithOptionalTag(tag, pageable).getContent();
+    }
+
+    /**
+     * Gets the tags of several video posts with one query
+     * @param ids the video post IDs
+     * @return sorted tags by video post ID; video posts without tags are absent
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<String>> getTags(Collection<Long> ids) {
+        return videoCardService.loadTags(ids);
+    }
+
+    /**
+     * Gets the live counters of a loaded video post without querying the database
+     * @param videoPost the video post
+     * @return its persisted counters plus the buffered deltas
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public VideoCounters getCounters(VideoPost videoPost) {
+        Long commentsCount = videoPost.getCommentsCount();
+        return new VideoCounters(getViewCount(videoPost),
+                likeService.getLikeCount(videoPost.getId(), videoPost.getLikesCount()),
+                commentsCount != null ? commentsCount : 0);
+    }
+
+    /**
+     * Gets the most recent other video posts sharing a tag with a video post
+     * @param videoPost the video post, with its tags
+     * @param size maximum number of video posts
+     * @return cards of the related video posts, newest first
+     */
+    @Transactional(readOnly = true)
+    public List<VideoCard> getRelatedVideoPosts(VideoPost videoPost, int size) {
+        if (videoPost.getTags().isEmpty()) {
+            return List.of();
+        }
+        PageRequest pageable = PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        return videoCardService.toCards(videoPostRepository.findSharingTags(videoPost.getId(), videoPost.getTags(),
+                true, pageable), FieldSet.ALL).getContent();
     }
 
     /**
@@ -217,48 +654,190 @@ public class VideoPostService {
         return videoPostRepository.findByLocationContainingIgnoreCase(location, pageable);
     }
 
+    /**
+     * Records a view by a specific viewer: counts the view and adds the viewer
+     * to the video's unique viewer sketch. Repeat views of the same viewer within
+     * the de-duplication window are ignored.
+     * @param id the video post ID
+     * @param viewerHash 64-bit hash identifying the viewer
+     * @return true if the view was counted
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean recordView(Long id, long viewerHash) {
+        if (!viewDeduplicator.isFirstView(id, viewerHash)) {
+            return false;
+        }
+        incrementViewCount(id);
+        uniqueViewerService.recordViewer(id, viewerHash);
+        return true;
+    }
+
+    /**
+     * Estimates the number of distinct viewers of a video post
+     * @param id the video post ID
+     * @param days number of most recent days to include, or null for all time
+     * @return estimated distinct viewers
+     */
+    @Transactional(readOnly = true)
+    public long getUniqueViewers(Long id, Integer days) {
+        return uniqueViewerService.getUniqueViewers(id, days);
+    }
+
+    /**
+     * Gets recent view and like rates of a video post
+     * @param id the video post ID
+     * @param window time window such as 60m, 24h or 7d
+     * @return the time series
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getActivity(Long id, String window) {
+        if (!videoPostRepository.existsById(id)) {
+            throw new RuntimeException("Video post not found with ID: " + id);
+        }
+        return videoActivityService.getTimeSeries(id, window);
+    }
+
     /**
      * Increments the view count for a video post in a thread-safe manner
-     * Uses atomic update to handle concurrent access correctly
+     * Depending on app.views.mode the view is either written with an atomic UPDATE
+     * or buffered in memory and flushed in batches by {@link ViewCountService}
      * @param id the video post ID
      */
-    @Transactional(rollbackFor = Exception.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void incrementViewCount(Long id) {
-        // Use native SQL update for atomic operation - this handles concurrent access safely
-        int updated = videoPostRepository.incrementViewsCount(id);
-        
-        if (updated == 0) {
-            // If no rows were updated, the video post doesn't exist
-            throw new RuntimeException("Video post not found with ID: " + id);
+        viewCountService.recordView(id);
+        videoActivityService.recordView(id);
+        trendingService.recordView(id);
+        log.debug("Incremented view count for video post ID: {}", id);
+    }
+
+    /**
+     * Gets the current view count including views not yet flushed to the database
+     * @param videoPost the video post
+     * @return the up to date view count
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long getViewCount(VideoPost videoPost) {
+        return viewCountService.getViewCount(videoPost.getId(), videoPost.getViewsCount());
+    }
+
+    /**
+     * Likes a video post on behalf of a user. Liking twice has no further effect.
+     * @param id the video post ID
+     * @param username the user
+     * @return true if the like was added, false if the user had already liked the video post
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean likeVideoPost(Long id, String username) {
+        requireExists(id);
+        boolean added = likeService.like(id, likeService.getUserId(username));
+        if (added) {
+            videoActivityService.recordLike(id);
+            trendingService.recordLike(id);
         }
-        
-        log.info("Incremented view count for video post ID: {}", id);
+        return added;
     }
 
     /**
-     * Increments the like count for a video post
+     * Removes a user's like from a video post. Unliking twice has no further effect.
      * @param id the video post ID
+     * @param username the user
+     * @return true if the like was removed, false if the user had not liked the video post
      */
-    @Transactional(rollbackFor = Exception.class)
-    public void incrementLikeCount(Long id) {
-        VideoPost videoPost = getVideoPostById(id);
-        videoPost.setLikesCount(videoPost.getLikesCount() + 1);
-        videoPostRepository.save(videoPost);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean unlikeVideoPost(Long id, String username) {
+        requireExists(id);
+        return likeService.unlike(id, likeService.getUserId(username));
     }
 
     /**
-     * Decrements the like count for a video post
+     * Checks whether a user likes a video post
      * @param id the video post ID
+     * @param username the user, or null for anonymous requests
+     * @return true if the user likes the video post
      */
-    @Transactional(rollbackFor = Exception.class)
-    public void decrementLikeCount(Long id) {
-        VideoPost videoPost = getVideoPostById(id);
-        if (videoPost.getLikesCount() > 0) {
-            videoPost.setLikesCount(videoPost.getLikesCount() - 1);
-            videoPostRepository.save(videoPost);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean hasLiked(Long id, String username) {
+        return username != null && negativeLookupCache.mightExist(id)
+                && likeService.hasLiked(id, likeService.getUserId(username));
+    }
+
+    /**
+     * Gets the like count including likes not yet flushed to the database
+     * @param id the video post ID
+     * @return the up to date like count
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long getLikeCount(Long id) {
+        return likeService.getLikeCount(id);
+    }
+
+    private void requireExists(Long id) {
+        if (!negativeLookupCache.mightExist(id)) {
+            throw new RuntimeException("Video post not found with ID: " + id);
+        }
+        long stamp = negativeLookupCache.lookupStamp();
+        if (!videoPostRepository.existsById(id)) {
+            negativeLookupCache.recordMiss(id, stamp);
+            throw new RuntimeException("Video post not found with ID: " + id);
         }
     }
 
+    /**
+     * Records a new comment on a video post for the trending ranking
+     * @param id the video post ID
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void recordComment(Long id) {
+        requireExists(id);
+        trendingService.recordComment(id);
+    }
+
+    /**
+     * Records the byte ranges requested from a video stream for the retention curve
+     * @param id the video post ID
+     * @param rangeHeader the Range header, or null for a full download
+     * @param fileLength size of the video file in bytes
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void recordStreamRange(Long id, String rangeHeader, long fileLength) {
+        retentionService.recordRange(id, rangeHeader, fileLength);
+    }
+
+    /**
+     * Gets the audience retention curve of a video post
+     * @param id the video post ID
+     * @param points number of points of the curve
+     * @return the retention curve
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getRetention(Long id, int points) {
+        requireExists(id);
+        return retentionService.getRetention(id, points);
+    }
+
+    /**
+     * Queues player telemetry for a video post without blocking
+     * @param id the video post ID
+     * @param events the beacon events
+     * @return true if the events were queued, false if they were dropped because the buffer is full
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean recordBeacon(Long id, List<BeaconRequest.Event> events) {
+        return playbackTelemetryService.ingest(id, events);
+    }
+
+    /**
+     * Gets the accumulated player telemetry of a video post
+     * @param id the video post ID
+     * @return playback totals and averages
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getPlaybackStats(Long id) {
+        requireExists(id);
+        return playbackTelemetryService.getPlaybackStats(id);
+    }
+
     /**
      * Gets video file resource for streaming
      * @param filePath the file path
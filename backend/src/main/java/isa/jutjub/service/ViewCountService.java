@@ -0,0 +1,134 @@
+package isa.jutjub.service;
+
+import isa.jutjub.model.CounterType;
+import isa.jutjub.repository.VideoPostRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts video views either directly in the database (one UPDATE per view)
+ * or write-behind through the journaled {@link CounterBuffer}, which absorbs
+ * views in striped LongAdders and flushes them in batched UPDATEs.
+ */
+@Service
+@Slf4j
+public class ViewCountService {
+
+    public static final String MODE_DIRECT = "direct";
+    public static final String MODE_WRITE_BEHIND = "write-behind";
+
+    private final VideoPostRepository videoPostRepository;
+    private final CounterBuffer counterBuffer;
+
+    @Value("${app.views.mode:write-behind}")
+    private String mode;
+
+    @Autowired
+    public ViewCountService(VideoPostRepository videoPostRepository, CounterBuffer counterBuffer) {
+        this.videoPostRepository = videoPostRepository;
+        this.counterBuffer = counterBuffer;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!MODE_DIRECT.equals(mode) && !MODE_WRITE_BEHIND.equals(mode)) {
+            throw new IllegalStateException("Unknown app.views.mode: " + mode);
+        }
+        log.info("View counter started in '{}' mode", mode);
+    }
+
+    /**
+     * Records a single view using the configured mode
+     * @param id the video post ID
+     */
+    public void recordView(Long id) {
+        recordView(id, mode);
+    }
+
+    /**
+     * Records a single view using the given mode
+     * @param id the video post ID
+     * @param mode either {@link #MODE_DIRECT} or {@link #MODE_WRITE_BEHIND}
+     * @throws RuntimeException in direct mode if the video post does not exist
+     */
+    public void recordView(Long id, String mode) {
+        if (MODE_DIRECT.equals(mode)) {
+            // Native SQL update is atomic, but takes the row lock once per view
+            int updated = videoPostRepository.incrementViewsCount(id);
+            if (updated == 0) {
+                throw new RuntimeException("Video post not found with ID: " + id);
+            }
+        } else {
+            counterBuffer.record(id, CounterType.VIEWS, 1);
+        }
+    }
+
+    /**
+     * Gets views recorded but not yet flushed to the database
+     * @param id the video post ID
+     * @return number of pending views
+     */
+    public long getPendingViews(Long id) {
+        return counterBuffer.getPending(id, CounterType.VIEWS);
+    }
+
+    /**
+     * Reads the view count currently stored in the database, without pending views
+     * @param id the video post ID
+     * @return the persisted view count
+     * @throws RuntimeException if the video post does not exist
+     */
+    public long getPersistedViews(Long id) {
+        Long views = videoPostRepository.findViewsCountById(id);
+        if (views == null) {
+            throw new RuntimeException("Video post not found with ID: " + id);
+        }
+        return views;
+    }
+
+    /**
+     * Merges the persisted view count with the pending deltas
+     * @param id the video post ID
+     * @param persistedViews the views_count value read from the database
+     * @return the up to date view count
+     */
+    public long getViewCount(Long id, Long persistedViews) {
+        return (persistedViews != null ? persistedViews : 0) + getPendingViews(id);
+    }
+
+    /**
+     * Drops pending views for a deleted video post
+     * @param id the video post ID
+     */
+    public void discard(Long id) {
+        counterBuffer.discard(id);
+    }
+
+    /**
+     * Flushes pending views (and any other buffered counters) to the database
+     * @return sum of the deltas written
+     */
+    public long flush() {
+        return counterBuffer.flush();
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    /**
+     * Gets view counter statistics
+     * @return view counter statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>(counterBuffer.getStats());
+        stats.put("mode", mode);
+        return stats;
+    }
+}
@@ -0,0 +1,79 @@
+package isa.jutjub.service;
+
+import isa.jutjub.util.ExpiringLongSet;
+import isa.jutjub.util.Hashing;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Suppresses repeat views of the same (viewer, video) pair within a time window,
+ * so reloads and scripted hammering do not inflate view counts.
+ * Pairs are stored as 64-bit hashes in an {@link ExpiringLongSet}.
+ */
+@Service
+@Slf4j
+public class ViewDeduplicator {
+
+    @Value("${app.views.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.views.dedup.window-minutes:30}")
+    private long windowMinutes;
+
+    @Value("${app.views.dedup.max-entries:1000000}")
+    private int maxEntries;
+
+    private ExpiringLongSet seenPairs;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        seenPairs = new ExpiringLongSet(TimeUnit.MINUTES.toMillis(windowMinutes), maxEntries, System::currentTimeMillis);
+        log.info("View de-duplication {} (window {} min, max {} entries)",
+                enabled ? "enabled" : "disabled", windowMinutes, maxEntries);
+    }
+
+    /**
+     * Checks whether a view should be counted
+     * @param videoId the video post ID
+     * @param viewerHash 64-bit hash identifying the viewer
+     * @return true for the first view of the pair within the window, false for repeats
+     */
+    public boolean isFirstView(Long videoId, long viewerHash) {
+        if (!enabled) {
+            return true;
+        }
+        if (seenPairs.add(Hashing.combine(viewerHash, videoId))) {
+            misses.increment();
+            return true;
+        }
+        hits.increment();
+        return false;
+    }
+
+    /**
+     * Gets de-duplication statistics
+     * @return de-duplication statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("windowMinutes", windowMinutes);
+        stats.put("maxEntries", maxEntries);
+        stats.put("entries", seenPairs.size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("expired", seenPairs.getExpiredCount());
+        stats.put("evicted", seenPairs.getEvictedCount());
+        return stats;
+    }
+}
@@ -0,0 +1,100 @@
+package isa.jutjub.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Fixed-size, lock-free Bloom filter over long keys.
+ *
+ * Bits live in one long[] and are set with atomic ORs, so concurrent writers never
+ * block each other or lose a bit. A negative answer is definite; a positive answer
+ * is wrong with roughly the configured probability once the expected number of keys
+ * has been added. Keys cannot be removed, the filter is rebuilt instead. Bit
+ * positions come from double hashing of a single 64-bit mix of the key.
+ */
+public class BloomFilter {
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] words;
+    private final long bitMask;
+    private final int hashFunctions;
+
+    /**
+     * @param expectedKeys number of keys the filter is sized for
+     * @param falsePositiveRate wanted false positive rate at that many keys
+     */
+    public BloomFilter(long expectedKeys, double falsePositiveRate) {
+        long keys = Math.max(1, expectedKeys);
+        long optimalBits = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long bits = optimalBits <= 64 ? 64 : Long.highestOneBit(optimalBits - 1) << 1;
+        this.words = new long[(int) (bits >>> 6)];
+        this.bitMask = bits - 1;
+        // Rounding the bits up to a power of two leaves room for one more hash function at most
+        this.hashFunctions = (int) Math.max(1, Math.min(16, Math.round((double) optimalBits / keys * Math.log(2))));
+    }
+
+    /**
+     * Adds a key
+     * @param key the key
+     */
+    public void put(long key) {
+        long hash = Hashing.mix64(key);
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = (h1 + i * h2) & bitMask;
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if (((long) WORDS.getOpaque(words, word) & mask) == 0) {
+                WORDS.getAndBitwiseOr(words, word, mask);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a key may have been added
+     * @param key the key
+     * @return false if the key was definitely never added
+     */
+    public boolean mightContain(long key) {
+        long hash = Hashing.mix64(key);
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = (h1 + i * h2) & bitMask;
+            if (((long) WORDS.getAcquire(words, (int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the current false positive rate from the share of bits set. Scans
+     * the whole filter, meant for statistics only.
+     * @return the estimated false positive rate
+     */
+    public double estimateFalsePositiveRate() {
+        long set = 0;
+        for (int i = 0; i < words.length; i++) {
+            set += Long.bitCount((long) WORDS.getOpaque(words, i));
+        }
+        return Math.pow((double) set / getBitSize(), hashFunctions);
+    }
+
+    public long getBitSize() {
+        return bitMask + 1;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    /**
+     * @return memory held by the bits in bytes
+     */
+    public long getSizeInBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+}
@@ -0,0 +1,98 @@
+package isa.jutjub.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Fixed-size, lock-free count-min sketch over long keys.
+ *
+ * All rows live in one long[] and are updated with atomic adds, so concurrent
+ * writers never block each other and the memory footprint never changes.
+ * Estimates never undercount; they overcount by at most about e / width of the
+ * total with probability 1 - e^-depth. Row positions come from double hashing
+ * of a single 64-bit mix of the key.
+ */
+public class CountMinSketch {
+
+    private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] cells;
+    private final int depth;
+    private final int width;
+    private final int mask;
+
+    /**
+     * @param width counters per row, rounded up to a power of two
+     * @param depth number of rows
+     */
+    public CountMinSketch(int width, int depth) {
+        this.width = width <= 2 ? 2 : Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.mask = this.width - 1;
+        this.cells = new long[this.width * depth];
+    }
+
+    /**
+     * Adds to the count of a key
+     * @param key the key
+     * @param count the amount to add
+     * @return the estimated count of the key after the update
+     */
+    public long add(long key, long count) {
+        long hash = Hashing.mix64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + ((h1 + row * h2) & mask);
+            long value = (long) CELLS.getAndAdd(cells, index, count) + count;
+            estimate = Math.min(estimate, value);
+        }
+        return estimate;
+    }
+
+    /**
+     * Estimates the count of a key
+     * @param key the key
+     * @return the estimated count, never below the true count
+     */
+    public long estimate(long key) {
+        long hash = Hashing.mix64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + ((h1 + row * h2) & mask);
+            estimate = Math.min(estimate, (long) CELLS.getVolatile(cells, index));
+        }
+        return estimate;
+    }
+
+    /**
+     * Halves every counter so old traffic fades out. Updates racing with the
+     * halving are kept, each cell is halved with its own CAS.
+     */
+    public void halve() {
+        for (int i = 0; i < cells.length; i++) {
+            long value;
+            do {
+                value = (long) CELLS.getVolatile(cells, i);
+            } while (value != 0 && !CELLS.compareAndSet(cells, i, value, value >> 1));
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return memory held by the counters in bytes
+     */
+    public long getSizeInBytes() {
+        return (long) cells.length * Long.BYTES;
+    }
+}
@@ -0,0 +1,118 @@
+package isa.jutjub.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded ring buffer of (key, type, value) events for many producers and one
+ * consumer, in the style of the LMAX Disruptor.
+ *
+ * Slots are preallocated parallel primitive arrays. Producers claim a run of
+ * sequences with one CAS on the cursor, fill the slots and publish each one by
+ * storing its sequence in the availability array. A producer never waits: if the
+ * claim would overrun events the consumer has not read yet it fails immediately.
+ * The consumer reads published slots in order and then releases them by moving
+ * its own sequence forward.
+ */
+public class EventRingBuffer {
+
+    private static final VarHandle AVAILABLE = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * Receives events on the consumer thread
+     */
+    public interface Handler {
+        void onEvent(long key, int type, long value);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final long[] keys;
+    private final int[] types;
+    private final long[] values;
+    private final long[] available;
+
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final AtomicLong consumed = new AtomicLong(-1);
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    public EventRingBuffer(int capacity) {
+        this.capacity = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.keys = new long[this.capacity];
+        this.types = new int[this.capacity];
+        this.values = new long[this.capacity];
+        this.available = new long[this.capacity];
+        Arrays.fill(available, -1);
+    }
+
+    /**
+     * Claims a run of consecutive slots without waiting
+     * @param count number of slots
+     * @return the first claimed sequence, or -1 if the buffer has no room
+     */
+    public long tryClaim(int count) {
+        long current;
+        long next;
+        do {
+            current = cursor.get();
+            next = current + count;
+            if (next - capacity > consumed.get()) {
+                return -1;
+            }
+        } while (!cursor.compareAndSet(current, next));
+        return current + 1;
+    }
+
+    /**
+     * Fills and publishes a claimed slot
+     * @param sequence a sequence returned by (or following) {@link #tryClaim(int)}
+     */
+    public void publish(long sequence, long key, int type, long value) {
+        int index = (int) (sequence & mask);
+        keys[index] = key;
+        types[index] = type;
+        values[index] = value;
+        AVAILABLE.setRelease(available, index, sequence);
+    }
+
+    /**
+     * Hands published events to a handler, in order, on the calling (consumer) thread
+     * @param handler the handler
+     * @param max maximum number of events to read
+     * @return number of events read
+     */
+    public int drain(Handler handler, int max) {
+        long from = consumed.get() + 1;
+        long to = Math.min(cursor.get(), from + max - 1);
+        long sequence = from;
+        while (sequence <= to) {
+            int index = (int) (sequence & mask);
+            if ((long) AVAILABLE.getAcquire(available, index) != sequence) {
+                // Claimed but not published yet, later slots must wait for it
+                break;
+            }
+            handler.onEvent(keys[index], types[index], values[index]);
+            sequence++;
+        }
+        if (sequence > from) {
+            consumed.set(sequence - 1);
+        }
+        return (int) (sequence - from);
+    }
+
+    /**
+     * @return number of claimed events the consumer has not read yet
+     */
+    public long size() {
+        return cursor.get() - consumed.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
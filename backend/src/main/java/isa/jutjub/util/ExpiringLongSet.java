@@ -0,0 +1,261 @@
+package isa.jutjub.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded set of primitive long keys that forget each key a fixed time after it was added.
+ *
+ * Keys are kept in open-addressing tables (linear probing, backward-shift deletion,
+ * no boxing) split over lock stripes. Expiry uses a hashed timing wheel per stripe:
+ * a key is appended to the bucket of the tick it was added in, and when the wheel
+ * turns back to that bucket one full revolution later the whole bucket is dropped.
+ * There is no per-entry timer or task; expiry work happens on the calling thread.
+ *
+ * When a stripe is full its oldest bucket is evicted early, so memory stays bounded
+ * by the configured capacity.
+ */
+public class ExpiringLongSet {
+
+    private static final int WHEEL_SIZE = 64;
+    private static final int STRIPES = 64;
+    private static final long EMPTY = 0L;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final long tickMillis;
+    private final int maxPerStripe;
+    private final LongSupplier clock;
+
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * @param ttlMillis how long a key stays in the set (rounded up to a wheel tick)
+     * @param maxEntries upper bound on the number of keys held
+     * @param clock millisecond clock
+     */
+    public ExpiringLongSet(long ttlMillis, int maxEntries, LongSupplier clock) {
+        this.tickMillis = Math.max(1, (ttlMillis + WHEEL_SIZE - 1) / WHEEL_SIZE);
+        this.maxPerStripe = Math.max(16, maxEntries / STRIPES);
+        this.clock = clock;
+        long tick = clock.getAsLong() / tickMillis;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(tick);
+        }
+    }
+
+    /**
+     * Adds a key unless it is already present
+     * @param key the key, any value
+     * @return true if the key was added, false if it was already in the set
+     */
+    public boolean add(long key) {
+        long hash = Hashing.mix64(key);
+        // Zero marks an empty slot
+        long stored = hash == EMPTY ? 1 : hash;
+        Stripe stripe = stripes[(int) (hash >>> 58) & (STRIPES - 1)];
+        long tick = clock.getAsLong() / tickMillis;
+        synchronized (stripe) {
+            stripe.advance(tick);
+            return stripe.add(stored);
+        }
+    }
+
+    /**
+     * Checks whether a key was added and has not expired yet
+     * @param key the key
+     * @return true if the key is in the set
+     */
+    public boolean contains(long key) {
+        long hash = Hashing.mix64(key);
+        long stored = hash == EMPTY ? 1 : hash;
+        Stripe stripe = stripes[(int) (hash >>> 58) & (STRIPES - 1)];
+        long tick = clock.getAsLong() / tickMillis;
+        synchronized (stripe) {
+            stripe.advance(tick);
+            return stripe.contains(stored);
+        }
+    }
+
+    /**
+     * Removes a key ahead of its expiry. Its timing wheel entry stays behind, so a
+     * key added again soon after may expire at the earlier deadline.
+     * @param key the key
+     */
+    public void remove(long key) {
+        long hash = Hashing.mix64(key);
+        long stored = hash == EMPTY ? 1 : hash;
+        Stripe stripe = stripes[(int) (hash >>> 58) & (STRIPES - 1)];
+        synchronized (stripe) {
+            stripe.remove(stored);
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return keys dropped because their time was up
+     */
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    /**
+     * @return keys dropped early because the set was full
+     */
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    private final class Stripe {
+
+        private long[] table = new long[64];
+        private int size;
+
+        private final long[][] buckets = new long[WHEEL_SIZE][];
+        private final int[] bucketSizes = new int[WHEEL_SIZE];
+        private long tick;
+
+        Stripe(long tick) {
+            this.tick = tick;
+        }
+
+        void advance(long now) {
+            if (now - tick >= WHEEL_SIZE) {
+                // Idle for a whole revolution: everything has expired
+                for (int i = 0; i < WHEEL_SIZE; i++) {
+                    expireBucket(i, expired);
+                }
+                tick = now;
+                return;
+            }
+            while (tick < now) {
+                tick++;
+                expireBucket((int) (tick % WHEEL_SIZE), expired);
+            }
+        }
+
+        boolean add(long key) {
+            int mask = table.length - 1;
+            int index = (int) key & mask;
+            while (table[index] != EMPTY) {
+                if (table[index] == key) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+
+            if (size >= maxPerStripe) {
+                evictOldest();
+                return add(key);
+            }
+            if ((size + 1) * 2 > table.length) {
+                resize(table.length * 2);
+                return add(key);
+            }
+
+            table[index] = key;
+            size++;
+            appendToBucket((int) (tick % WHEEL_SIZE), key);
+            return true;
+        }
+
+        boolean contains(long key) {
+            int mask = table.length - 1;
+            int index = (int) key & mask;
+            while (table[index] != EMPTY) {
+                if (table[index] == key) {
+                    return true;
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        }
+
+        private void evictOldest() {
+            // The bucket right after the current one is the next to expire
+            for (int i = 1; i <= WHEEL_SIZE; i++) {
+                int bucket = (int) ((tick + i) % WHEEL_SIZE);
+                if (bucketSizes[bucket] > 0) {
+                    expireBucket(bucket, evicted);
+                    return;
+                }
+            }
+        }
+
+        private void expireBucket(int bucket, LongAdder counter) {
+            int count = bucketSizes[bucket];
+            if (count == 0) {
+                return;
+            }
+            long[] keys = buckets[bucket];
+            for (int i = 0; i < count; i++) {
+                remove(keys[i]);
+            }
+            bucketSizes[bucket] = 0;
+            counter.add(count);
+        }
+
+        private void appendToBucket(int bucket, long key) {
+            long[] keys = buckets[bucket];
+            int count = bucketSizes[bucket];
+            if (keys == null) {
+                keys = buckets[bucket] = new long[16];
+            } else if (count == keys.length) {
+                keys = buckets[bucket] = Arrays.copyOf(keys, count * 2);
+            }
+            keys[count] = key;
+            bucketSizes[bucket] = count + 1;
+        }
+
+        void remove(long key) {
+            int mask = table.length - 1;
+            int index = (int) key & mask;
+            while (table[index] != key) {
+                if (table[index] == EMPTY) {
+                    return;
+                }
+                index = (index + 1) & mask;
+            }
+
+            // Backward-shift deletion keeps probe chains intact without tombstones
+            int hole = index;
+            int next = (hole + 1) & mask;
+            while (table[next] != EMPTY) {
+                int home = (int) table[next] & mask;
+                boolean movable = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+                if (movable) {
+                    table[hole] = table[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            table[hole] = EMPTY;
+            size--;
+        }
+
+        private void resize(int capacity) {
+            long[] old = table;
+            table = new long[capacity];
+            int mask = capacity - 1;
+            for (long key : old) {
+                if (key != EMPTY) {
+                    int index = (int) key & mask;
+                    while (table[index] != EMPTY) {
+                        index = (index + 1) & mask;
+                    }
+                    table[index] = key;
+                }
+            }
+        }
+    }
+}
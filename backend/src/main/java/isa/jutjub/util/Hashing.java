@@ -0,0 +1,48 @@
+package isa.jutjub.util;
+
+/**
+ * Allocation free 64-bit hashing for sketches and filters
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * Murmur3 fmix64 finalizer, spreads every input bit over the whole output
+     * @param value the value to mix
+     * @return the mixed value
+     */
+    public static long mix64(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters of a string, finished with {@link #mix64(long)}
+     * @param value the string to hash
+     * @return the hash
+     */
+    public static long hash64(CharSequence value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return mix64(hash);
+    }
+
+    /**
+     * Combines two 64-bit values into one well mixed hash
+     * @param first the first value
+     * @param second the second value
+     * @return the hash
+     */
+    public static long combine(long first, long second) {
+        return mix64(first * 0x9E3779B97F4A7C15L + second);
+    }
+}
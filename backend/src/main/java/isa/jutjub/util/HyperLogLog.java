@@ -0,0 +1,155 @@
+package isa.jutjub.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * HyperLogLog cardinality sketch with 2^12 one-byte registers (standard error ~1.6%).
+ *
+ * Sketches merge by taking the register-wise maximum, so sketches of different time
+ * windows or from different nodes can be combined without losing accuracy.
+ *
+ * {@link #offer(long)} is not synchronized: two threads racing on the same register
+ * may drop one of the two updates, which only matters if both carried the larger
+ * value and is negligible for an estimator.
+ */
+public class HyperLogLog {
+
+    public static final int PRECISION = 12;
+    public static final int REGISTER_COUNT = 1 << PRECISION;
+
+    private static final byte FORMAT_DENSE = 1;
+    private static final byte FORMAT_SPARSE = 2;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTER_COUNT);
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this.registers = new byte[REGISTER_COUNT];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    /**
+     * Adds an already hashed element to the sketch
+     * @param hash a well mixed 64-bit hash of the element
+     * @return true if a register changed
+     */
+    public boolean offer(long hash) {
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Leading zeros of the remaining bits; the sentinel bit caps the rank
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Merges another sketch into this one
+     * @param other the sketch to merge
+     * @return this sketch
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTER_COUNT; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Estimates the number of distinct elements offered
+     * @return the cardinality estimate
+     */
+    public long cardinality() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = ALPHA * REGISTER_COUNT * REGISTER_COUNT / sum;
+        if (estimate <= 2.5 * REGISTER_COUNT && zeros > 0) {
+            // Small range correction: linear counting
+            estimate = REGISTER_COUNT * Math.log((double) REGISTER_COUNT / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public HyperLogLog copy() {
+        return new HyperLogLog(registers.clone());
+    }
+
+    /**
+     * Serializes the sketch. Sketches with few set registers (most videos)
+     * are stored sparsely as (index, value) pairs, the rest as raw registers.
+     * @return the serialized sketch
+     */
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                nonZero++;
+            }
+        }
+
+        if (nonZero * 3 < REGISTER_COUNT) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 + nonZero * 3);
+            buffer.put(FORMAT_SPARSE);
+            for (int i = 0; i < REGISTER_COUNT; i++) {
+                if (registers[i] != 0) {
+                    buffer.putShort((short) i);
+                    buffer.put(registers[i]);
+                }
+            }
+            return buffer.array();
+        }
+
+        byte[] bytes = new byte[1 + REGISTER_COUNT];
+        bytes[0] = FORMAT_DENSE;
+        System.arraycopy(registers, 0, bytes, 1, REGISTER_COUNT);
+        return bytes;
+    }
+
+    /**
+     * Restores a sketch written by {@link #toBytes()}
+     * @param bytes the serialized sketch
+     * @return the sketch
+     * @throws IllegalArgumentException if the format is unknown
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return new HyperLogLog();
+        }
+
+        byte[] registers = new byte[REGISTER_COUNT];
+        if (bytes[0] == FORMAT_DENSE && bytes.length == 1 + REGISTER_COUNT) {
+            System.arraycopy(bytes, 1, registers, 0, REGISTER_COUNT);
+        } else if (bytes[0] == FORMAT_SPARSE && (bytes.length - 1) % 3 == 0) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+            while (buffer.hasRemaining()) {
+                int index = buffer.getShort() & 0xFFFF;
+                registers[index] = buffer.get();
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown HyperLogLog format");
+        }
+        return new HyperLogLog(registers);
+    }
+}
@@ -0,0 +1,78 @@
+package isa.jutjub.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Lock-free histogram counting how often each of a fixed number of segments
+ * was covered by a range.
+ *
+ * Ranges are kept as a difference array: covering segments [from, to] adds one at
+ * from and subtracts one at to + 1, so recording costs two atomic adds no matter
+ * how long the range is, and nothing is allocated. Reading the counts takes a
+ * prefix sum.
+ */
+public class RangeHistogram {
+
+    private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] deltas;
+    private final int segments;
+
+    /**
+     * @param segments number of segments
+     */
+    public RangeHistogram(int segments) {
+        this.segments = segments;
+        this.deltas = new long[segments + 1];
+    }
+
+    /**
+     * Counts one pass over a range of segments
+     * @param from first segment covered, inclusive
+     * @param to last segment covered, inclusive
+     */
+    public void add(int from, int to) {
+        if (from > to || from >= segments || to < 0) {
+            return;
+        }
+        CELLS.getAndAdd(deltas, Math.max(from, 0), 1L);
+        CELLS.getAndAdd(deltas, Math.min(to, segments - 1) + 1, -1L);
+    }
+
+    /**
+     * Adds the counts recorded so far to an array and resets them. A range recorded
+     * while draining may be split over this drain and the next, their sum is exact.
+     * @param counts per segment counts to add to, of length {@link #getSegments()}
+     * @return true if anything was recorded since the last drain
+     */
+    public boolean drainInto(long[] counts) {
+        boolean any = false;
+        long running = 0;
+        for (int i = 0; i < segments; i++) {
+            long delta = (long) CELLS.getAndSet(deltas, i, 0L);
+            any |= delta != 0;
+            running += delta;
+            counts[i] += running;
+        }
+        // The sentinel cell only ever receives the closing -1 of ranges that reach the end
+        CELLS.getAndSet(deltas, segments, 0L);
+        return any;
+    }
+
+    /**
+     * Adds the counts recorded so far to an array without resetting them
+     * @param counts per segment counts to add to, of length {@link #getSegments()}
+     */
+    public void addTo(long[] counts) {
+        long running = 0;
+        for (int i = 0; i < segments; i++) {
+            running += (long) CELLS.getVolatile(deltas, i);
+            counts[i] += running;
+        }
+    }
+
+    public int getSegments() {
+        return segments;
+    }
+}
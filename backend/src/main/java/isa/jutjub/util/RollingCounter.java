@@ -0,0 +1,84 @@
+package isa.jutjub.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Lock-free ring of fixed-width time buckets over a single long[].
+ *
+ * Each slot packs the bucket's epoch (bucket number since 1970) in the upper
+ * 28 bits and its count in the lower 36 bits, so claiming a recycled slot and
+ * counting into it is one CAS: a writer never has to reset a slot in a second
+ * step that could race with another writer. Readers only trust slots whose
+ * epoch matches the bucket they are looking for, so stale slots read as zero.
+ */
+public class RollingCounter {
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int COUNT_BITS = 36;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long EPOCH_MASK = (1L << (64 - COUNT_BITS)) - 1;
+
+    private final long[] slots;
+    private final long bucketMillis;
+
+    /**
+     * @param bucketCount number of buckets kept
+     * @param bucketMillis width of one bucket
+     */
+    public RollingCounter(int bucketCount, long bucketMillis) {
+        this.slots = new long[bucketCount];
+        this.bucketMillis = bucketMillis;
+    }
+
+    /**
+     * Adds one to the bucket of the given time
+     * @param nowMillis current time
+     */
+    public void increment(long nowMillis) {
+        long epoch = (nowMillis / bucketMillis) & EPOCH_MASK;
+        int index = (int) ((nowMillis / bucketMillis) % slots.length);
+        while (true) {
+            long current = (long) SLOTS.getVolatile(slots, index);
+            long next = (current >>> COUNT_BITS) == epoch
+                    ? current + 1
+                    : (epoch << COUNT_BITS) | 1;
+            if ((current & COUNT_MASK) == COUNT_MASK && (current >>> COUNT_BITS) == epoch) {
+                // Saturated, never carry into the epoch bits
+                return;
+            }
+            if (SLOTS.compareAndSet(slots, index, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads the most recent buckets, oldest first
+     * @param nowMillis current time, its bucket is the last one returned
+     * @param buckets number of buckets to read, at most the ring size
+     * @return counts per bucket
+     */
+    public long[] snapshot(long nowMillis, int buckets) {
+        int count = Math.min(buckets, slots.length);
+        long[] result = new long[count];
+        long newest = nowMillis / bucketMillis;
+        for (int i = 0; i < count; i++) {
+            long bucket = newest - (count - 1 - i);
+            long slot = (long) SLOTS.getVolatile(slots, (int) (bucket % slots.length));
+            if ((slot >>> COUNT_BITS) == (bucket & EPOCH_MASK)) {
+                result[i] = slot & COUNT_MASK;
+            }
+        }
+        return result;
+    }
+
+    public int getBucketCount() {
+        return slots.length;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+}
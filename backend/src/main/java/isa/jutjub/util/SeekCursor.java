@@ -0,0 +1,114 @@
+package isa.jutjub.util;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Opaque position in a keyset (seek) paged listing: the sort key and ID of the last
+ * row a client has seen. The next page is everything ordered strictly after
+ * (key, id), so reading it costs the same no matter how deep the client has scrolled.
+ *
+ * Tokens are URL-safe Base64 of a kind byte followed by the key and the ID. The kind
+ * ties a token to the listing that issued it, a token from another listing is rejected.
+ */
+public final class SeekCursor {
+
+    /**
+     * Ordering a cursor belongs to
+     */
+    public enum Kind {
+        /** (createdAt, id) descending */
+        CREATED_AT,
+        /** (likesCount, id) descending */
+        LIKES
+    }
+
+    private static final int TOKEN_BYTES = 1 + 2 * Long.BYTES;
+
+    private final Kind kind;
+    private final long key;
+    private final long id;
+
+    private SeekCursor(Kind kind, long key, long id) {
+        this.kind = kind;
+        this.key = key;
+        this.id = id;
+    }
+
+    /**
+     * Cursor positioned before the first row of a descending listing
+     * @param kind the ordering
+     * @return the cursor
+     */
+    public static SeekCursor first(Kind kind) {
+        return new SeekCursor(kind, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    public static SeekCursor ofCreatedAt(LocalDateTime createdAt, long id) {
+        Instant instant = createdAt.toInstant(ZoneOffset.UTC);
+        return new SeekCursor(Kind.CREATED_AT, instant.getEpochSecond() * 1_000_000_000L + instant.getNano(), id);
+    }
+
+    public static SeekCursor ofLikes(long likesCount, long id) {
+        return new SeekCursor(Kind.LIKES, likesCount, id);
+    }
+
+    /**
+     * Decodes a token issued by {@link #encode()}. A null or blank token starts at the first row.
+     * @param token the token
+     * @param expected the ordering of the listing the token is used on
+     * @return the cursor
+     * @throws IllegalArgumentException if the token is malformed or belongs to another ordering
+     */
+    public static SeekCursor decode(String token, Kind expected) {
+        if (token == null || token.isBlank()) {
+            return first(expected);
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        if (bytes.length != TOKEN_BYTES) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        if (bytes[0] != expected.ordinal()) {
+            throw new IllegalArgumentException("Cursor does not belong to this listing");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, 2 * Long.BYTES);
+        return new SeekCursor(expected, buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * @return the opaque token
+     */
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(TOKEN_BYTES);
+        buffer.put((byte) kind.ordinal()).putLong(key).putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * @return the sort key of a {@link Kind#CREATED_AT} cursor as a timestamp
+     */
+    public LocalDateTime getCreatedAt() {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(key, 1_000_000_000L),
+                (int) Math.floorMod(key, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    public long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,120 @@
+package isa.jutjub.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key.
+ *
+ * The first caller for a key becomes the leader: it registers a future, runs the
+ * load on its own thread and completes the future with the result or the failure.
+ * Callers arriving while the load is in flight wait on that future instead of
+ * loading again. Followers wait at most the configured timeout, so a stuck leader
+ * fails them fast instead of holding their threads. Nothing is cached: once the
+ * leader finishes the key is free and the next caller loads again.
+ * @param <K> key type
+ * @param <V> value type, shared between the leader and its followers
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long timeoutMs;
+
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    /**
+     * @param timeoutMs how long a follower waits for the leader
+     */
+    public SingleFlight(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Loads a value, or waits for a load of the same key already in flight
+     * @param key the key
+     * @param loader performs the load on the calling thread when it leads
+     * @return the loaded value
+     * @throws LoadTimeoutException if the leader did not finish within the timeout
+     */
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, flight);
+        if (leader == null) {
+            loads.incrementAndGet();
+            try {
+                V value = loader.get();
+                flight.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, flight);
+            }
+        }
+
+        coalesced.incrementAndGet();
+        try {
+            return leader.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.incrementAndGet();
+            throw new LoadTimeoutException("Timed out after " + timeoutMs + "ms waiting for a concurrent load of " + key);
+        } catch (ExecutionException e) {
+            // Followers see the leader's failure, e.g. the same not found exception
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LoadTimeoutException("Interrupted while waiting for a concurrent load of " + key);
+        }
+    }
+
+    /**
+     * @return number of keys being loaded right now
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * @return number of loads performed
+     */
+    public long getLoads() {
+        return loads.get();
+    }
+
+    /**
+     * @return number of calls served by another caller's load
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return number of followers that gave up waiting
+     */
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * Thrown to a follower whose leader did not finish in time
+     */
+    public static class LoadTimeoutException extends RuntimeException {
+        public LoadTimeoutException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package isa.jutjub.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:binary-formats",
+        "app.journal.dir=target/test-journal",
+        "app.upload.dir=target/test-uploads"
+})
+@AutoConfigureMockMvc
+public class BinaryFormatsConfigTest {
+
+    private static final String CBOR = "application/cbor";
+    private static final String SMILE = "application/x-jackson-smile";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testNegotiatesCborAndSmile() throws Exception {
+        // Act
+        JsonNode cbor = page(get("/api/video-posts").header(HttpHeaders.ACCEPT, CBOR), CBOR, new CBORMapper());
+        JsonNode smile = page(get("/api/video-posts").header(HttpHeaders.ACCEPT, SMILE), SMILE, new SmileMapper());
+
+        // Assert: the same page as JSON, and no stringref namespace (tag 256) a plain CBOR decoder cannot read
+        JsonNode json = page(get("/api/video-posts"), MediaType.APPLICATION_JSON_VALUE, new ObjectMapper());
+        assertEquals(json, cbor);
+        assertEquals(json, smile);
+        byte[] raw = mockMvc.perform(get("/api/video-posts").header(HttpHeaders.ACCEPT, CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertFalse(raw[0] == (byte) 0xd9 && raw[1] == 0x01 && raw[2] == 0x00);
+    }
+
+    @Test
+    public void testAnyOrMissingAcceptGetsJson() throws Exception {
+        // Act & Assert
+        page(get("/api/video-posts").header(HttpHeaders.ACCEPT, MediaType.ALL_VALUE), MediaType.APPLICATION_JSON_VALUE,
+                new ObjectMapper());
+        page(get("/api/video-posts"), MediaType.APPLICATION_JSON_VALUE, new ObjectMapper());
+    }
+
+    private JsonNode page(MockHttpServletRequestBuilder request, String contentType, ObjectMapper decoder) throws Exception {
+        byte[] body = mockMvc.perform(request.param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(contentType))
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode page = decoder.readTree(body);
+        assertTrue(page.get("success").asBoolean());
+        assertEquals(3, page.get("data").size());
+        return page;
+    }
+}
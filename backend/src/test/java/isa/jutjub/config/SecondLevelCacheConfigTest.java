@@ -0,0 +1,111 @@
+package isa.jutjub.config;
+
+import isa.jutjub.dto.FieldSet;
+import isa.jutjub.dto.VideoCard;
+import isa.jutjub.model.CounterType;
+import isa.jutjub.model.VideoPost;
+import isa.jutjub.repository.VideoPostRepository;
+import isa.jutjub.service.CounterBuffer;
+import isa.jutjub.service.VideoCardService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:second-level-cache",
+        "app.journal.dir=target/test-journal",
+        "app.upload.dir=target/test-uploads"
+})
+public class SecondLevelCacheConfigTest {
+
+    @Autowired
+    private VideoPostRepository videoPostRepository;
+
+    @Autowired
+    private VideoCardService videoCardService;
+
+    @Autowired
+    private CounterBuffer counterBuffer;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        counterBuffer.flush();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void testCachedVideoPostSurvivesCounterFlushWithCurrentCounts() {
+        // Arrange: the video post is in the second-level cache
+        Long id = videoPostRepository.findMostRecent(false, PageRequest.of(0, 1)).getContent().get(0).getId();
+        VideoPost before = videoPostRepository.findById(id).orElseThrow();
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(VideoPost.CACHE_REGION);
+        long hits = region.getHitCount();
+        long misses = region.getMissCount();
+
+        // Act
+        counterBuffer.record(id, CounterType.VIEWS, 3);
+        counterBuffer.record(id, CounterType.LIKES, 2);
+        counterBuffer.flush();
+        VideoPost after = videoPostRepository.findById(id).orElseThrow();
+
+        // Assert: read from the cache, with the flushed counts
+        assertTrue(entityManagerFactory.getCache().contains(VideoPost.class, id));
+        assertEquals(hits + 1, region.getHitCount());
+        assertEquals(misses, region.getMissCount());
+        assertEquals(before.getViewsCount() + 3, after.getViewsCount());
+        assertEquals(before.getLikesCount() + 2, after.getLikesCount());
+        assertEquals(before.getViewsCount() + 3, videoPostRepository.findViewsCountById(id));
+    }
+
+    @Test
+    public void testCachedListingSurvivesViewFlushWithCurrentCounts() {
+        // Arrange: the listing is in the query cache
+        PageRequest page = PageRequest.of(0, 5);
+        VideoCard before = videoCardService.toCards(videoPostRepository.findMostRecent(false, page), FieldSet.ALL)
+                .getContent().get(0);
+        CacheRegionStatistics region = statistics.getQueryRegionStatistics(VideoPostRepository.LISTINGS_CACHE_REGION);
+        long hits = region.getHitCount();
+
+        // Act
+        counterBuffer.record(before.id(), CounterType.VIEWS, 4);
+        counterBuffer.flush();
+        VideoCard after = videoCardService.toCards(videoPostRepository.findMostRecent(false, page), FieldSet.ALL)
+                .getContent().get(0);
+
+        // Assert
+        assertEquals(hits + 1, region.getHitCount());
+        assertEquals(before.id(), after.id());
+        assertEquals(before.viewsCount() + 4, after.viewsCount());
+    }
+
+    @Test
+    public void testLikeFlushEvictsTheListings() {
+        // Arrange
+        PageRequest page = PageRequest.of(0, 5);
+        Long id = videoPostRepository.findMostPopular(false, page).getContent().get(0).getId();
+        CacheRegionStatistics region = statistics.getQueryRegionStatistics(VideoPostRepository.LISTINGS_CACHE_REGION);
+        long misses = region.getMissCount();
+
+        // Act
+        counterBuffer.record(id, CounterType.LIKES, 1);
+        counterBuffer.flush();
+        videoPostRepository.findMostPopular(false, page);
+
+        // Assert: likes order the popular listing, so it is read again
+        assertEquals(misses + 1, region.getMissCount());
+    }
+}
@@ -0,0 +1,63 @@
+package isa.jutjub.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import isa.jutjub.config.BinaryFormatsConfig;
+import isa.jutjub.dto.VideoCard;
+import isa.jutjub.service.CardJsonCache;
+import isa.jutjub.util.BenchmarkSupport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes list envelopes of cards as JSON, CBOR and Smile and prints the bytes on the
+ * wire and the serialization time per response.
+ * Run with: mvn test -Dtest=ResponseFormatBenchmarkTest -Dbenchmarks=true
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+public class ResponseFormatBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int ITERATIONS = 50_000;
+
+    @Test
+    public void benchmarkFormats() throws Exception {
+        ObjectMapper json = mapper(new JsonFactory());
+        CardJsonCache cardJsonCache = BenchmarkSupport.cardJsonCache(json);
+        Map<String, ObjectMapper> formats = Map.of(
+                "cbor", mapper(BinaryFormatsConfig.cborFactory(false)),
+                "cbor+refs", mapper(BinaryFormatsConfig.cborFactory(true)),
+                "smile", mapper(BinaryFormatsConfig.smileFactory(false)),
+                "smile+refs", mapper(BinaryFormatsConfig.smileFactory(true)));
+
+        for (int pageSize : new int[] {10, 20, 50}) {
+            List<VideoCard> cards = BenchmarkSupport.cards(pageSize);
+            run("json", pageSize, json, BenchmarkSupport.envelope(cards));
+            run("json+frag", pageSize, json, BenchmarkSupport.envelope(cardJsonCache.of(cards)));
+            for (String name : List.of("cbor", "cbor+refs", "smile", "smile+refs")) {
+                run(name, pageSize, formats.get(name), BenchmarkSupport.envelope(cardJsonCache.of(cards)));
+            }
+        }
+    }
+
+    private static void run(String name, int pageSize, ObjectMapper mapper, Map<String, Object> response) throws Exception {
+        int bytes = mapper.writeValueAsBytes(response).length;
+        BenchmarkSupport.Cost cost = BenchmarkSupport.measure(WARMUP_ITERATIONS, ITERATIONS,
+                () -> mapper.writeValue(OutputStream.nullOutputStream(), response));
+        System.out.printf("%-10s page=%-3d %7d bytes %8.2f us/response%n",
+                name, pageSize, bytes, cost.cpuMicros());
+    }
+
+    private static ObjectMapper mapper(JsonFactory factory) {
+        return Jackson2ObjectMapperBuilder.json()
+                .factory(factory)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package isa.jutjub.controller;
+
+import isa.jutjub.model.VideoPost;
+import isa.jutjub.repository.VideoPostRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.test.tester.ExecutionGraphQlServiceTester;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=isa.jutjub.controller.VideoPostGraphQlControllerTest$StatementCounter",
+        "app.journal.dir=target/test-journal",
+        "app.upload.dir=target/test-uploads"
+})
+@AutoConfigureGraphQlTester
+public class VideoPostGraphQlControllerTest {
+
+    private static final String RECENT = "query($first: Int) { recentVideoPosts(first: $first) { id title tags counters { views likes comments } } }";
+    private static final String BY_IDS = "query($ids: [ID!]!) { videoPosts(ids: $ids) { id tags counters { likes } } videoPost(id: 1) { id tags } }";
+
+    @Autowired
+    private ExecutionGraphQlServiceTester graphQlTester;
+
+    @Autowired
+    private VideoPostRepository videoPostRepository;
+
+    @BeforeEach
+    public void setUp() {
+        if (videoPostRepository.count() >= 50) {
+            return;
+        }
+        for (int i = 0; i < 50; i++) {
+            VideoPost videoPost = new VideoPost();
+            videoPost.setTitle("GraphQL video " + i);
+            videoPost.setVideoDescription("Description " + i);
+            videoPost.setVideoPath("videos/graphql-" + i + ".mp4");
+            videoPost.addTag("graphql");
+            videoPost.addTag("tag" + i);
+            videoPostRepository.save(videoPost);
+        }
+    }
+
+    @Test
+    public void testRecentVideoPostsRunTwoStatementsWhateverTheirNumber() {
+        // Act
+        int fewStatements = statements(() -> graphQlTester.document(RECENT).variable("first", 5).execute()
+                .path("recentVideoPosts").entityList(Object.class).hasSize(5));
+        int manyStatements = statements(() -> graphQlTester.document(RECENT).variable("first", 50).execute()
+                .path("recentVideoPosts[*].tags").entityList(Object.class).hasSize(50));
+
+        // Assert: one query for the video posts and one for all their tags
+        assertEquals(2, fewStatements);
+        assertEquals(2, manyStatements);
+    }
+
+    @Test
+    public void testVideoPostsByIdShareOneTagsQuery() {
+        // Arrange
+        List<Long> ids = videoPostRepository.findAll().stream().map(VideoPost::getId).limit(50).toList();
+
+        // Act
+        int fewStatements = statements(() -> graphQlTester.document(BY_IDS).variable("ids", ids.subList(0, 5)).execute()
+                .path("videoPosts").entityList(Object.class).hasSize(5));
+        int manyStatements = statements(() -> graphQlTester.document(BY_IDS).variable("ids", ids).execute()
+                .path("videoPosts").entityList(Object.class).hasSize(50));
+
+        // Assert: one query per root field, and the tags of both root fields loaded together
+        assertEquals(3, fewStatements);
+        assertEquals(3, manyStatements);
+    }
+
+    @Test
+    public void testRejectsQueriesOverTheLimits() {
+        // Act & Assert: 100 video posts with every field exceed the complexity limit
+        graphQlTester.document("{ recentVideoPosts(first: 100) { id title videoDescription location createdAt tags "
+                        + "counters { views likes comments } } }")
+                .execute()
+                .errors()
+                .expect(error -> error.getMessage().contains("maximum query complexity exceeded"))
+                .verify();
+        graphQlTester.document("{ __schema { types { fields { type { ofType { ofType { name } } } } } } }")
+                .execute()
+                .errors()
+                .expect(error -> error.getMessage().contains("maximum query depth exceeded"))
+                .verify();
+    }
+
+    private static int statements(Runnable query) {
+        StatementCounter.COUNT.set(0);
+        query.run();
+        return StatementCounter.COUNT.get();
+    }
+
+    /**
+     * Counts the SQL statements Hibernate prepares on the test thread, which also
+     * runs the resolvers and the DataLoader, ignoring background jobs of the application
+     */
+    public static class StatementCounter implements StatementInspector {
+
+        static final ThreadLocal<Integer> COUNT = ThreadLocal.withInitial(() -> 0);
+
+        @Override
+        public String inspect(String sql) {
+            COUNT.set(COUNT.get() + 1);
+            return sql;
+        }
+    }
+}
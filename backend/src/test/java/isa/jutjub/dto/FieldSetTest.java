@@ -0,0 +1,62 @@
+package isa.jutjub.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FieldSetTest {
+
+    private static final List<String> AVAILABLE = List.of("id", "title", "location", "likesCount", "tags");
+
+    @Test
+    public void testRejectsUnknownFields() {
+        // Act
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> FieldSet.parse("id,videoPath", AVAILABLE));
+
+        // Assert
+        assertTrue(e.getMessage().contains("videoPath"));
+        assertThrows(IllegalArgumentException.class, () -> FieldSet.ofCards("id,videoDescription"));
+    }
+
+    @Test
+    public void testKeepsTheOrderOfTheResponseType() {
+        // Act
+        FieldSet fields = FieldSet.parse(" tags, id ,,title,id", AVAILABLE);
+
+        // Assert: duplicates and empty entries dropped, equal to the same selection in another order
+        assertEquals(List.of("id", "title", "tags"), fields.getNames());
+        assertEquals("id,title,tags", fields.toString());
+        assertEquals(FieldSet.parse("title,tags,id", AVAILABLE), fields);
+        assertEquals(FieldSet.parse("title,tags,id", AVAILABLE).hashCode(), fields.hashCode());
+    }
+
+    @Test
+    public void testIncludesOnlySelectedFields() {
+        // Act
+        FieldSet fields = FieldSet.parse("title,likesCount", AVAILABLE);
+
+        // Assert
+        assertFalse(fields.isAll());
+        assertTrue(fields.includes("title"));
+        assertTrue(fields.includes("likesCount"));
+        assertFalse(fields.includes("id"));
+        assertFalse(fields.includes("tags"));
+    }
+
+    @Test
+    public void testMissingOrCompleteSelectionIsAll() {
+        // Act & Assert
+        assertSame(FieldSet.ALL, FieldSet.parse(null, AVAILABLE));
+        assertSame(FieldSet.ALL, FieldSet.parse("  ", AVAILABLE));
+        assertSame(FieldSet.ALL, FieldSet.parse("tags,likesCount,location,title,id", AVAILABLE));
+        assertTrue(FieldSet.ALL.includes("anything"));
+        assertEquals("", FieldSet.ALL.toString());
+    }
+}
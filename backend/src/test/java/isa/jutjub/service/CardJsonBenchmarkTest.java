@@ -0,0 +1,48 @@
+package isa.jutjub.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import isa.jutjub.dto.VideoCard;
+import isa.jutjub.util.BenchmarkSupport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Writes list envelopes of cards with plain Jackson and from the card JSON cache and
+ * prints the time and the bytes allocated per response.
+ * Run with: mvn test -Dtest=CardJsonBenchmarkTest -Dbenchmarks=true
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+public class CardJsonBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int ITERATIONS = 50_000;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Test
+    public void benchmarkListEnvelopes() throws Exception {
+        CardJsonCache cardJsonCache = BenchmarkSupport.cardJsonCache(objectMapper);
+
+        for (int pageSize : new int[] {10, 20, 50}) {
+            List<VideoCard> cards = BenchmarkSupport.cards(pageSize);
+            run("jackson", pageSize, cards, page -> page);
+            run("fragments", pageSize, cards, cardJsonCache::of);
+        }
+    }
+
+    private void run(String name, int pageSize, List<VideoCard> cards, Function<List<VideoCard>, Object> data) throws Exception {
+        // The envelope is rebuilt per response, as the list endpoints do with changing counters
+        BenchmarkSupport.Cost cost = BenchmarkSupport.measure(WARMUP_ITERATIONS, ITERATIONS,
+                () -> objectMapper.writeValue(OutputStream.nullOutputStream(), BenchmarkSupport.envelope(data.apply(cards))));
+        System.out.printf("%-9s page=%-3d %8.2f us/response %9d bytes allocated/response%n",
+                name, pageSize, cost.cpuMicros(), cost.allocatedBytes());
+    }
+}
@@ -0,0 +1,103 @@
+package isa.jutjub.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import isa.jutjub.config.BinaryFormatsConfig;
+import isa.jutjub.dto.FieldSet;
+import isa.jutjub.dto.VideoCard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CardJsonCacheTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2026, 3, 1, 9, 30, 15, 123_000_000);
+
+    // Configured like the application's mapper
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private CardJsonCache cardJsonCache;
+
+    @BeforeEach
+    public void setUp() {
+        cardJsonCache = new CardJsonCache(objectMapper);
+        ReflectionTestUtils.setField(cardJsonCache, "enabled", true);
+        ReflectionTestUtils.setField(cardJsonCache, "maxBytes", 1_000_000L);
+        cardJsonCache.init();
+    }
+
+    @Test
+    public void testWritesTheSameJsonAsJackson() throws Exception {
+        // Arrange: escaping, non-ASCII text, nulls and large counters
+        List<VideoCard> cards = List.of(
+                new VideoCard(1L, "Say \"hi\"\n", "Šabac & <Novi Sad>", "Beograd", CREATED, 0L, 3L, 1_234_567_890_123L, List.of("food", "travel")),
+                new VideoCard(2L, "Plain", null, null, CREATED.plusDays(1), null, -1L, Long.MAX_VALUE, List.of()));
+
+        // Act: twice, the second time from the cached fragments
+        String built = objectMapper.writeValueAsString(Map.of("data", cardJsonCache.of(cards)));
+        String cached = objectMapper.writeValueAsString(Map.of("data", cardJsonCache.of(cards)));
+
+        // Assert
+        String expected = objectMapper.writeValueAsString(Map.of("data", cards));
+        assertEquals(expected, built);
+        assertEquals(expected, cached);
+        assertEquals(2L, cardJsonCache.getStats().get("hits"));
+    }
+
+    @Test
+    public void testSplicesCountersAndRebuildsChangedCards() throws Exception {
+        // Arrange
+        VideoCard card = new VideoCard(1L, "Title", "Description", "Nis", CREATED, 1L, 2L, 3L, List.of("travel"));
+        objectMapper.writeValueAsString(cardJsonCache.of(List.of(card)));
+        VideoCard counted = new VideoCard(1L, "Title", "Description", "Nis", CREATED, 10L, 20L, 30L, List.of("travel"));
+        VideoCard retitled = new VideoCard(1L, "New title", "Description", "Nis", CREATED, 10L, 20L, 30L, List.of("travel"));
+
+        // Act & Assert: new counters reuse the fragment, a new title rebuilds it
+        assertEquals(objectMapper.writeValueAsString(List.of(counted)), objectMapper.writeValueAsString(cardJsonCache.of(List.of(counted))));
+        assertEquals(objectMapper.writeValueAsString(List.of(retitled)), objectMapper.writeValueAsString(cardJsonCache.of(List.of(retitled))));
+        assertEquals(1L, cardJsonCache.getStats().get("hits"));
+        assertEquals(1L, cardJsonCache.getStats().get("rebuilds"));
+    }
+
+    @Test
+    public void testWritesOnlySelectedFields() throws Exception {
+        // Arrange
+        VideoCard card = new VideoCard(1L, "Title", null, "Nis", CREATED, 1L, 2L, 3L, List.of());
+        FieldSet fields = FieldSet.ofCards("viewsCount, id,title");
+
+        // Act
+        String json = objectMapper.writeValueAsString(cardJsonCache.of(List.of(card), fields));
+
+        // Assert: fields in card order, unknown fields rejected
+        assertEquals("[{\"id\":1,\"title\":\"Title\",\"viewsCount\":3}]", json);
+        assertEquals("id,title,viewsCount", fields.toString());
+        assertThrows(IllegalArgumentException.class, () -> FieldSet.ofCards("id,videoPath"));
+    }
+
+    @Test
+    public void testSerializesNormallyIntoBinaryFormats() throws Exception {
+        // Arrange
+        ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor()
+                .factory(BinaryFormatsConfig.cborFactory(true))
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        List<VideoCard> cards = List.of(
+                new VideoCard(1L, "First", "Preview", "Nis", CREATED, 1L, 2L, 3L, List.of("travel")),
+                new VideoCard(2L, "Second", null, "Nis", CREATED, 4L, 5L, 6L, List.of("travel")));
+
+        // Act
+        byte[] cbor = cborMapper.writeValueAsBytes(Map.of("data", cardJsonCache.of(cards)));
+
+        // Assert
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(Map.of("data", cards))), cborMapper.readTree(cbor));
+    }
+}
@@ -0,0 +1,84 @@
+package isa.jutjub.service;
+
+import isa.jutjub.repository.TagCount;
+import isa.jutjub.repository.VideoPostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CatalogueCountServiceTest {
+
+    @Mock
+    private VideoPostRepository videoPostRepository;
+
+    @InjectMocks
+    private CatalogueCountService catalogueCountService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(catalogueCountService, "searchTtlMs", 60_000L);
+        ReflectionTestUtils.setField(catalogueCountService, "searchCacheSize", 10);
+    }
+
+    @Test
+    public void testCountsFollowCreatesUpdatesAndDeletes() {
+        // Arrange
+        when(videoPostRepository.count()).thenReturn(3L);
+        when(videoPostRepository.countAllByTag()).thenReturn(List.of(tagCount("travel", 2), tagCount("food", 1)));
+        catalogueCountService.reconcile();
+
+        // Act: outside a transaction the adjustments apply immediately
+        catalogueCountService.recordCreated(Set.of("travel", "music"));
+        catalogueCountService.recordTagsChanged(Set.of("food"), Set.of("music"));
+        catalogueCountService.recordDeleted(Set.of("travel"));
+
+        // Assert
+        assertEquals(3, catalogueCountService.getTotal());
+        assertEquals(2, catalogueCountService.getTagTotal("travel"));
+        assertEquals(2, catalogueCountService.getTagTotal("music"));
+        assertEquals(0, catalogueCountService.getTagTotal("food"));
+        verify(videoPostRepository, times(1)).count();
+    }
+
+    @Test
+    public void testSearchTotalsAreCountedOncePerKeyword() {
+        // Arrange
+        when(videoPostRepository.countByKeyword("Pasta")).thenReturn(4L);
+
+        // Act
+        long first = catalogueCountService.getSearchTotal("Pasta");
+        long second = catalogueCountService.getSearchTotal("pasta");
+
+        // Assert
+        assertEquals(4, first);
+        assertEquals(4, second);
+        verify(videoPostRepository, times(1)).countByKeyword("Pasta");
+    }
+
+    private static TagCount tagCount(String tag, long count) {
+        return new TagCount() {
+            @Override
+            public String getTag() {
+                return tag;
+            }
+
+            @Override
+            public Long getCount() {
+                return count;
+            }
+        };
+    }
+}
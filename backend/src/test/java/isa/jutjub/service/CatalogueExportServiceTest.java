@@ -0,0 +1,123 @@
+package isa.jutjub.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import isa.jutjub.model.CounterType;
+import isa.jutjub.model.VideoPost;
+import isa.jutjub.repository.VideoPostRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class CatalogueExportServiceTest {
+
+    private static final int POSTS = 1_100;
+
+    @Autowired
+    private VideoPostRepository videoPostRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private CatalogueExportService catalogueExportService;
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        for (int i = 0; i < POSTS; i++) {
+            VideoPost videoPost = new VideoPost();
+            videoPost.setTitle("Video " + i);
+            videoPost.setVideoDescription("Description " + i);
+            videoPost.setVideoPath("videos/" + i + ".mp4");
+            videoPost.addTag("tag" + i % 3);
+            videoPost.addTag("common");
+            entityManager.persist(videoPost);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        catalogueExportService = new CatalogueExportService(videoPostRepository,
+                new VideoCardService(videoPostRepository, new ColumnarCatalogue(videoPostRepository)), entityManager, objectMapper);
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testStreamsEveryPostInBatches() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long written = catalogueExportService.export(null, out);
+
+        // Assert: one line per post, one streamed query plus one tags query per batch of 500,
+        // and no video post left in the persistence context
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(POSTS, written);
+        assertEquals(POSTS + 1, lines.length);
+        assertEquals("", lines[POSTS]);
+        assertEquals(4, statistics.getPrepareStatementCount());
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("Video 0", first.get("title").asText());
+        assertEquals("[\"common\",\"tag0\"]", first.get("tags").toString());
+        assertFalse(out.toString(StandardCharsets.UTF_8).contains("videos/"));
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    public void testExportsOnlyPostsUpdatedSince() throws Exception {
+        // Arrange
+        LocalDateTime since = LocalDateTime.now().plusDays(1);
+        entityManager.createQuery("UPDATE VideoPost vp SET vp.updatedAt = :updatedAt WHERE vp.id IN (SELECT MAX(p.id) FROM VideoPost p)")
+                .setParameter("updatedAt", since.plusMinutes(1))
+                .executeUpdate();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long written = catalogueExportService.export(since, out);
+
+        // Assert
+        assertEquals(1, written);
+        assertEquals("Video " + (POSTS - 1), objectMapper.readTree(out.toByteArray()).get("title").asText());
+    }
+
+    @Test
+    public void testExportsPostsWhoseCountersChangedSince() throws Exception {
+        // Arrange: every post last changed yesterday, then views of one flushed
+        entityManager.createQuery("UPDATE VideoPost vp SET vp.updatedAt = :updatedAt")
+                .setParameter("updatedAt", LocalDateTime.now().minusDays(1))
+                .executeUpdate();
+        LocalDateTime since = LocalDateTime.now().minusHours(1);
+        Long id = videoPostRepository.findAll().get(0).getId();
+        videoPostRepository.addCounts(CounterType.VIEWS, Map.of(id, 5L), null);
+        entityManager.clear();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long written = catalogueExportService.export(since, out);
+
+        // Assert
+        assertEquals(1, written);
+        JsonNode line = objectMapper.readTree(out.toByteArray());
+        assertEquals(id, line.get("id").asLong());
+        assertEquals(5, line.get("viewsCount").asLong());
+    }
+}
@@ -0,0 +1,151 @@
+package isa.jutjub.service;
+
+import isa.jutjub.dto.VideoFilter;
+import isa.jutjub.model.CounterType;
+import isa.jutjub.repository.CatalogueRowView;
+import isa.jutjub.repository.VideoPostRepository;
+import isa.jutjub.repository.VideoTagView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ColumnarCatalogueTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Mock
+    private VideoPostRepository videoPostRepository;
+
+    @InjectMocks
+    private ColumnarCatalogue columnarCatalogue;
+
+    @BeforeEach
+    public void setUp() {
+        when(videoPostRepository.findAllCatalogueRows()).thenReturn(List.of(
+                row(1, 0, 10, 5_000L, "Novi Sad"),
+                row(2, 1, 30, 1_000L, "Beograd"),
+                row(3, 2, 20, null, "novi sad"),
+                row(4, 3, 30, 3_000L, null),
+                row(5, 4, 0, 2_000L, "Nis")));
+        when(videoPostRepository.findAllTags()).thenReturn(List.of(
+                tag(1, "travel"), tag(2, "travel"), tag(3, "food"), tag(5, "travel")));
+        columnarCatalogue.reload();
+    }
+
+    @Test
+    public void testSortsAndFiltersLikeSql() {
+        // Assert: sorted by likes, ties by ID
+        assertEquals(List.of(4L, 2L, 3L), ids(VideoFilter.NONE, PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "likesCount"))));
+        assertEquals(List.of(3L, 2L), ids(VideoFilter.NONE, PageRequest.of(1, 2, Sort.by("likesCount"))));
+
+        // Range on the sorted column, missing sizes never match
+        Page<Long> sized = page(new VideoFilter(null, null, null, 2_000L, 5_000L), PageRequest.of(0, 10, Sort.by("videoFileSize")));
+        assertEquals(List.of(5L, 4L, 1L), sized.getContent());
+        assertEquals(3, sized.getTotalElements());
+
+        // Filters checked per row while walking another column
+        assertEquals(List.of(3L, 1L), ids(new VideoFilter("NOVI", null, null, null, null),
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt"))));
+        assertEquals(List.of(2L, 1L, 5L), ids(new VideoFilter(null, "travel", null, null, null),
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "likesCount"))));
+        assertEquals(List.of(4L, 5L), ids(new VideoFilter(null, null, START.plusDays(2), null, null),
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "likesCount"))));
+        assertEquals(0, page(new VideoFilter(null, "unknown", null, null, null), PageRequest.of(0, 10)).getTotalElements());
+
+        // Sorts the catalogue does not hold are left to SQL
+        assertTrue(columnarCatalogue.query(VideoFilter.NONE, PageRequest.of(0, 10, Sort.by("title"))).isEmpty());
+    }
+
+    @Test
+    public void testWritePathsUpdateColumnsAndIndexes() {
+        // Act: outside a transaction the changes apply immediately
+        columnarCatalogue.recordSaved(6, START.plusDays(5), 4_000L, "Novi Sad", Set.of("travel"));
+        columnarCatalogue.writeCounts(CounterType.LIKES, Map.of(1L, 100L), () -> 1);
+        columnarCatalogue.resort();
+        columnarCatalogue.recordDeleted(2);
+
+        // Assert
+        assertEquals(List.of(6L, 5L, 4L), ids(VideoFilter.NONE, PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "createdAt"))));
+        assertEquals(List.of(1L, 4L), ids(VideoFilter.NONE, PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "likesCount"))));
+        assertEquals(List.of(1L, 5L, 6L), ids(new VideoFilter(null, "travel", null, null, null), PageRequest.of(0, 10, Sort.by("id"))));
+        assertEquals(List.of(1L, 6L), ids(new VideoFilter("novi sad", null, null, 4_000L, null), PageRequest.of(0, 10, Sort.by("id"))));
+        assertEquals(5, page(VideoFilter.NONE, PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    private List<Long> ids(VideoFilter filter, PageRequest pageable) {
+        return page(filter, pageable).getContent();
+    }
+
+    private Page<Long> page(VideoFilter filter, PageRequest pageable) {
+        return columnarCatalogue.query(filter, pageable).orElseThrow();
+    }
+
+    private static CatalogueRowView row(long id, int day, long likes, Long fileSize, String location) {
+        return new CatalogueRowView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return START.plusDays(day);
+            }
+
+            @Override
+            public Long getLikesCount() {
+                return likes;
+            }
+
+            @Override
+            public Long getViewsCount() {
+                return 0L;
+            }
+
+            @Override
+            public Long getCommentsCount() {
+                return 0L;
+            }
+
+            @Override
+            public Long getVideoFileSize() {
+                return fileSize;
+            }
+
+            @Override
+            public String getLocation() {
+                return location;
+            }
+        };
+    }
+
+    private static VideoTagView tag(long videoPostId, String tag) {
+        return new VideoTagView() {
+            @Override
+            public Long getVideoPostId() {
+                return videoPostId;
+            }
+
+            @Override
+            public String getTag() {
+                return tag;
+            }
+        };
+    }
+}
@@ -0,0 +1,270 @@
+package isa.jutjub.service;
+
+import isa.jutjub.model.CounterType;
+import isa.jutjub.model.CounterWatermark;
+import isa.jutjub.model.JournalPosition;
+import isa.jutjub.repository.CounterWatermarkRepository;
+import isa.jutjub.repository.VideoPostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+public class CounterBufferTest {
+
+    @Mock
+    private VideoPostRepository videoPostRepository;
+
+    @Mock
+    private CounterWatermarkRepository counterWatermarkRepository;
+
+    @TempDir
+    Path journalDir;
+
+    private CounterJournal journal;
+
+    // What the mocked database holds: committed counter values and watermarks
+    private final Map<CounterType, Map<Long, Long>> committed = new EnumMap<>(CounterType.class);
+    private final Map<CounterType, CounterWatermark> watermarks = new EnumMap<>(CounterType.class);
+    private BiPredicate<CounterType, Map<Long, Long>> failing = (type, batch) -> false;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        journal = new CounterJournal();
+        ReflectionTestUtils.setField(journal, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(journal, "segmentSizeKb", 1);
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        journal.init();
+
+        lenient().when(counterWatermarkRepository.findByJournalId(journal.getJournalId()))
+                .thenAnswer(invocation -> new ArrayList<>(watermarks.values()));
+        lenient().when(videoPostRepository.addCounts(any(CounterType.class), anyMap(), any())).thenAnswer(invocation -> {
+            CounterType type = invocation.getArgument(0);
+            Map<Long, Long> deltas = invocation.getArgument(1);
+            JournalPosition position = invocation.getArgument(2);
+            if (failing.test(type, deltas)) {
+                throw new RuntimeException("db down");
+            }
+            // The UPDATE and the watermark commit together
+            deltas.forEach((id, delta) -> committed.computeIfAbsent(type, t -> new HashMap<>()).merge(id, delta, Long::sum));
+            watermarks.computeIfAbsent(type, t -> new CounterWatermark(position.journalId(), t)).advance(position);
+            return deltas.size();
+        });
+    }
+
+    private long committed(CounterType type, long id) {
+        return committed.getOrDefault(type, Map.of()).getOrDefault(id, 0L);
+    }
+
+    private CounterBuffer newBuffer() {
+        CounterBuffer buffer = new CounterBuffer(videoPostRepository, counterWatermarkRepository, journal,
+                new ColumnarCatalogue(videoPostRepository));
+        ReflectionTestUtils.setField(buffer, "batchSize", 500);
+        return buffer;
+    }
+
+    @Test
+    public void testFlushAppliesDeltasAndDeletesSegments() {
+        // Arrange
+        CounterBuffer buffer = newBuffer();
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            buffer.record(1L, CounterType.VIEWS, 1);
+        }
+        buffer.record(2L, CounterType.LIKES, 1);
+
+        // Assert (1KB segments hold 42 records, so the journal had to roll)
+        assertEquals(100, buffer.getPending(1L, CounterType.VIEWS));
+        assertTrue(journal.listSegments().size() > 1);
+
+        assertEquals(101, buffer.flush());
+        assertEquals(100, committed(CounterType.VIEWS, 1L));
+        assertEquals(1, committed(CounterType.LIKES, 2L));
+        assertEquals(0, buffer.getPending(1L, CounterType.VIEWS));
+        assertTrue(journal.listSegments().isEmpty());
+    }
+
+    @Test
+    public void testUnflushedDeltasAreReplayedAfterCrash() {
+        // Arrange: record without flushing, as if the JVM died
+        CounterBuffer crashed = newBuffer();
+        for (int i = 0; i < 5; i++) {
+            crashed.record(7L, CounterType.VIEWS, 1);
+        }
+
+        // Act
+        newBuffer().replayJournal();
+
+        // Assert
+        assertEquals(5, committed(CounterType.VIEWS, 7L));
+        assertTrue(journal.listSegments().isEmpty());
+    }
+
+    @Test
+    public void testFailedFlushIsRetriedAndStaysJournaled() {
+        // Arrange
+        CounterBuffer buffer = newBuffer();
+        failing = (type, batch) -> true;
+
+        // Act
+        buffer.record(1L, CounterType.VIEWS, 1);
+        long written = buffer.flush();
+
+        // Assert
+        assertEquals(0, written);
+        assertEquals(1, buffer.getPending(1L, CounterType.VIEWS));
+        assertEquals(Map.of(1L, 1L), journal.readSegments(journal.listSegments()).get(CounterType.VIEWS));
+
+        failing = (type, batch) -> false;
+        assertEquals(1, buffer.flush());
+        assertEquals(1, committed(CounterType.VIEWS, 1L));
+        assertTrue(journal.listSegments().isEmpty());
+    }
+
+    @Test
+    public void testCrashBetweenTwoCountersReplaysOnlyTheUnappliedOne() {
+        // Arrange: views commit, likes fail, then the JVM dies with the segment on disk
+        CounterBuffer crashed = newBuffer();
+        crashed.record(7L, CounterType.VIEWS, 3);
+        crashed.record(7L, CounterType.LIKES, 1);
+        failing = (type, batch) -> type == CounterType.LIKES;
+        crashed.flush();
+        assertEquals(3, committed(CounterType.VIEWS, 7L));
+        assertEquals(0, committed(CounterType.LIKES, 7L));
+        failing = (type, batch) -> false;
+
+        // Act
+        CounterBuffer restarted = newBuffer();
+        restarted.replayJournal();
+
+        // Assert
+        assertEquals(3, committed(CounterType.VIEWS, 7L));
+        assertEquals(1, committed(CounterType.LIKES, 7L));
+        assertEquals(0, restarted.getPending(7L, CounterType.LIKES));
+        assertTrue(journal.listSegments().isEmpty());
+    }
+
+    @Test
+    public void testCrashBetweenTwoBatchesReplaysOnlyTheUnappliedBatch() {
+        // Arrange: batches of two IDs, the second batch fails, then the JVM dies
+        CounterBuffer crashed = newBuffer();
+        ReflectionTestUtils.setField(crashed, "batchSize", 2);
+        for (long id = 1; id <= 5; id++) {
+            crashed.record(id, CounterType.VIEWS, id * 10);
+        }
+        failing = (type, batch) -> batch.containsKey(3L);
+        crashed.flush();
+        assertEquals(10, committed(CounterType.VIEWS, 1L));
+        assertEquals(0, committed(CounterType.VIEWS, 3L));
+        failing = (type, batch) -> false;
+
+        // Act
+        newBuffer().replayJournal();
+
+        // Assert: every ID counted exactly once
+        for (long id = 1; id <= 5; id++) {
+            assertEquals(id * 10, committed(CounterType.VIEWS, id));
+        }
+    }
+
+    @Test
+    public void testCrashAfterCommitBeforeSegmentsAreDeletedReplaysNothing() throws Exception {
+        // Arrange: flush, then put the segments back as if the process died before deleting them
+        CounterBuffer crashed = newBuffer();
+        crashed.record(7L, CounterType.VIEWS, 3);
+        crashed.record(8L, CounterType.LIKES, 1);
+        Map<Path, byte[]> segments = new HashMap<>();
+        for (Path segment : journal.listSegments()) {
+            segments.put(segment, Files.readAllBytes(segment));
+        }
+        crashed.flush();
+        for (Map.Entry<Path, byte[]> segment : segments.entrySet()) {
+            Files.write(segment.getKey(), segment.getValue());
+        }
+
+        // Act
+        newBuffer().replayJournal();
+
+        // Assert
+        assertEquals(3, committed(CounterType.VIEWS, 7L));
+        assertEquals(1, committed(CounterType.LIKES, 8L));
+        assertTrue(journal.listSegments().isEmpty());
+    }
+
+    @Test
+    public void testPartiallyFailedReplayKeepsOnlyFailedCountersPending() {
+        // Arrange: views and likes journaled, only the likes batch fails on replay
+        CounterBuffer crashed = newBuffer();
+        crashed.record(7L, CounterType.VIEWS, 3);
+        crashed.record(7L, CounterType.LIKES, 1);
+        failing = (type, batch) -> type == CounterType.LIKES;
+
+        // Act
+        CounterBuffer buffer = newBuffer();
+        buffer.replayJournal();
+
+        // Assert
+        assertEquals(3, committed(CounterType.VIEWS, 7L));
+        assertEquals(0, buffer.getPending(7L, CounterType.VIEWS));
+        assertEquals(1, buffer.getPending(7L, CounterType.LIKES));
+    }
+
+    @Test
+    public void testPendingCountsTheSealedGenerationOnce() {
+        // Arrange: a failed flush leaves the sealed generation waiting next to a new one
+        CounterBuffer buffer = newBuffer();
+        buffer.record(1L, CounterType.VIEWS, 2);
+        failing = (type, batch) -> true;
+        buffer.flush();
+        buffer.record(1L, CounterType.VIEWS, 3);
+
+        // Act
+        long pending = buffer.getPending(1L, CounterType.VIEWS);
+
+        // Assert
+        assertEquals(5, pending);
+    }
+
+    @Test
+    public void testPendingNeverCountsADeltaTwiceWhileSealing() {
+        // Arrange
+        CounterBuffer buffer = newBuffer();
+
+        for (long id = 1; id <= 500; id++) {
+            buffer.record(id, CounterType.VIEWS, 5);
+
+            // Act: read while another thread seals and applies the generation
+            CompletableFuture<Long> flush = CompletableFuture.supplyAsync(buffer::flush);
+            while (!flush.isDone()) {
+                long pending = buffer.getPending(id, CounterType.VIEWS);
+
+                // Assert
+                if (pending != 0 && pending != 5) {
+                    fail("Read " + pending + " pending views for video " + id);
+                }
+            }
+            flush.join();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package isa.jutjub.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import isa.jutjub.dto.FieldSet;
+import isa.jutjub.dto.VideoCard;
+import isa.jutjub.model.VideoPost;
+import isa.jutjub.repository.VideoPostRepository;
+import isa.jutjub.util.BenchmarkSupport;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads and serializes a page of the most recent cards with every field and with a
+ * mobile field set, and prints the payload size and the time per page.
+ * Run with: mvn test -Dtest=FieldSetBenchmarkTest -Dbenchmarks=true
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.cache.use_query_cache=false")
+@Import({VideoCardService.class, ColumnarCatalogue.class})
+public class FieldSetBenchmarkTest {
+
+    private static final int POSTS = 2_000;
+    private static final int WARMUP_ITERATIONS = 500;
+    private static final int ITERATIONS = 2_000;
+
+    @Autowired
+    private VideoPostRepository videoPostRepository;
+
+    @Autowired
+    private VideoCardService videoCardService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    // Not initialized, so full pages are written by plain Jackson
+    private final CardJsonCache cardJsonCache = new CardJsonCache(objectMapper);
+
+    @Test
+    public void benchmarkFieldSets() throws Exception {
+        for (int i = 0; i < POSTS; i++) {
+            VideoPost videoPost = new VideoPost();
+            videoPost.setTitle("Video " + i);
+            videoPost.setVideoDescription("A long description of the video. ".repeat(60));
+            videoPost.setVideoPath("videos/" + i + ".mp4");
+            videoPost.setLocation("Novi Sad");
+            for (int tag = 0; tag < 5; tag++) {
+                videoPost.addTag("tag" + (i + tag) % 50);
+            }
+            entityManager.persist(videoPost);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        for (int pageSize : new int[] {10, 50}) {
+            run("all", pageSize, FieldSet.ALL);
+            run("mobile", pageSize, FieldSet.ofCards("id,title,likesCount,commentsCount,viewsCount"));
+        }
+    }
+
+    private void run(String name, int pageSize, FieldSet fields) throws Exception {
+        int bytes = page(pageSize, 0, fields);
+        AtomicInteger iteration = new AtomicInteger();
+        BenchmarkSupport.Cost cost = BenchmarkSupport.measure(WARMUP_ITERATIONS, ITERATIONS,
+                () -> page(pageSize, iteration.getAndIncrement(), fields));
+        System.out.printf("%-6s page=%-3d %7d bytes/page %8.1f us/page%n",
+                name, pageSize, bytes, cost.cpuMicros());
+    }
+
+    private int page(int pageSize, int iteration, FieldSet fields) throws Exception {
+        PageRequest pageable = PageRequest.of(iteration % (POSTS / pageSize), pageSize);
+        List<VideoCard> cards = videoCardService.toCards(videoPostRepository.findMostRecent(
+                VideoCardService.readsDescription(fields), pageable).getContent(), fields);
+        entityManager.clear();
+        return objectMapper.writeValueAsBytes(cardJsonCache.of(cards, fields)).length;
+    }
+}
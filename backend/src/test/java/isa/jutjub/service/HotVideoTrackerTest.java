@@ -0,0 +1,71 @@
+package isa.jutjub.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HotVideoTrackerTest {
+
+    private HotVideoTracker tracker;
+
+    @BeforeEach
+    public void setUp() {
+        tracker = new HotVideoTracker();
+        ReflectionTestUtils.setField(tracker, "width", 1024);
+        ReflectionTestUtils.setField(tracker, "depth", 4);
+        ReflectionTestUtils.setField(tracker, "capacity", 4);
+        ReflectionTestUtils.setField(tracker, "minCount", 20L);
+        ReflectionTestUtils.setField(tracker, "decayIntervalMs", 3_600_000L);
+        tracker.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        tracker.shutdown();
+    }
+
+    @Test
+    public void testHeavyHittersStandOutFromTheLongTail() {
+        // Arrange & Act: 5 hot videos with 100 to 500 requests, 2,000 videos with one request each
+        for (int round = 0; round < 500; round++) {
+            for (long id = 1; id <= 5; id++) {
+                if (round < id * 100) {
+                    tracker.record(id);
+                }
+            }
+            for (long id = 0; id < 4; id++) {
+                tracker.record(1_000 + round * 4L + id);
+            }
+        }
+
+        // Assert: the table holds the 4 strongest, the weakest hot video lost its place
+        List<Map<String, Object>> hot = tracker.getHotVideos();
+        assertEquals(List.of(5L, 4L, 3L, 2L), hot.stream().map(e -> e.get("videoId")).toList());
+        assertTrue(tracker.isHot(5L));
+        assertFalse(tracker.isHot(1L));
+        assertFalse(tracker.isHot(1_234L));
+    }
+
+    @Test
+    public void testDecayCoolsVideosDown() {
+        // Arrange
+        for (int i = 0; i < 30; i++) {
+            tracker.record(7L);
+        }
+        assertTrue(tracker.isHot(7L));
+
+        // Act
+        tracker.decay();
+
+        // Assert
+        assertFalse(tracker.isHot(7L));
+    }
+}
@@ -0,0 +1,120 @@
+package isa.jutjub.service;
+
+import isa.jutjub.model.CounterType;
+import isa.jutjub.model.VideoLike;
+import isa.jutjub.repository.UserRepository;
+import isa.jutjub.repository.VideoLikeRepository;
+import isa.jutjub.repository.VideoPostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class LikeServiceTest {
+
+    @Mock
+    private VideoLikeRepository videoLikeRepository;
+
+    @Mock
+    private VideoPostRepository videoPostRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CounterBuffer counterBuffer;
+
+    private LikeService likeService;
+
+    @BeforeEach
+    public void setUp() {
+        likeService = new LikeService(videoLikeRepository, videoPostRepository, userRepository, counterBuffer);
+        ReflectionTestUtils.setField(likeService, "maxVideos", 100L);
+        ReflectionTestUtils.setField(likeService, "maxUsernames", 100L);
+        ReflectionTestUtils.setField(likeService, "bitmapTtlSeconds", 60L);
+        likeService.init();
+    }
+
+    @Test
+    public void testRepeatedLikesAreCountedOnce() {
+        // Arrange
+        when(videoPostRepository.existsById(1L)).thenReturn(true);
+        when(videoLikeRepository.findUserIdsByVideoPostId(1L)).thenReturn(List.of());
+        when(videoLikeRepository.existsByVideoPostIdAndUserId(1L, 42L)).thenReturn(true);
+
+        // Act
+        boolean first = likeService.like(1L, 42L);
+        boolean second = likeService.like(1L, 42L);
+
+        // Assert
+        assertTrue(first);
+        assertFalse(second);
+        assertTrue(likeService.hasLiked(1L, 42L));
+        verify(videoLikeRepository, times(1)).saveAndFlush(any(VideoLike.class));
+        verify(counterBuffer, times(1)).record(1L, CounterType.LIKES, 1);
+    }
+
+    @Test
+    public void testUnlikeUsesStoredLikes() {
+        // Arrange: user 7 liked video 2 before the restart
+        when(videoPostRepository.existsById(2L)).thenReturn(true);
+        when(videoLikeRepository.findUserIdsByVideoPostId(2L)).thenReturn(List.of(7L));
+        when(videoLikeRepository.deleteByVideoPostIdAndUserId(2L, 7L)).thenReturn(1, 0);
+
+        // Act
+        boolean removed = likeService.unlike(2L, 7L);
+        boolean removedAgain = likeService.unlike(2L, 7L);
+
+        // Assert
+        assertTrue(removed);
+        assertFalse(removedAgain);
+        assertFalse(likeService.hasLiked(2L, 7L));
+        verify(counterBuffer, times(1)).record(2L, CounterType.LIKES, -1);
+        verify(counterBuffer, never()).record(2L, CounterType.LIKES, 1);
+    }
+
+    @Test
+    public void testUnknownVideoGetsNoBitmap() {
+        // Arrange
+        when(videoPostRepository.existsById(99L)).thenReturn(false);
+
+        // Act
+        boolean liked = likeService.hasLiked(99L, 42L);
+
+        // Assert
+        assertFalse(liked);
+        assertEquals(0L, likeService.getStats().get("videosInMemory"));
+        verify(videoLikeRepository, never()).findUserIdsByVideoPostId(anyLong());
+    }
+
+    @Test
+    public void testUnlikeThroughStaleBitmapIsCounted() {
+        // Arrange: the bitmap was loaded before user 7 liked video 3 through another node
+        when(videoPostRepository.existsById(3L)).thenReturn(true);
+        when(videoLikeRepository.findUserIdsByVideoPostId(3L)).thenReturn(List.of());
+        assertFalse(likeService.hasLiked(3L, 7L));
+        when(videoLikeRepository.deleteByVideoPostIdAndUserId(3L, 7L)).thenReturn(1);
+
+        // Act
+        boolean removed = likeService.unlike(3L, 7L);
+
+        // Assert
+        assertTrue(removed);
+        verify(counterBuffer, times(1)).record(3L, CounterType.LIKES, -1);
+    }
+}
@@ -0,0 +1,97 @@
+package isa.jutjub.service;
+
+import isa.jutjub.repository.VideoPostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class NegativeLookupCacheTest {
+
+    @Mock
+    private VideoPostRepository videoPostRepository;
+
+    private NegativeLookupCache negativeLookupCache;
+
+    @BeforeEach
+    public void setUp() {
+        negativeLookupCache = new NegativeLookupCache(videoPostRepository);
+        ReflectionTestUtils.setField(negativeLookupCache, "falsePositiveRate", 0.001);
+        ReflectionTestUtils.setField(negativeLookupCache, "minExpectedIds", 1_000L);
+        ReflectionTestUtils.setField(negativeLookupCache, "missTtlMs", 300_000L);
+        ReflectionTestUtils.setField(negativeLookupCache, "missMaxEntries", 1_000);
+        negativeLookupCache.init();
+        when(videoPostRepository.count()).thenReturn(3L);
+        when(videoPostRepository.findAllIds()).thenReturn(List.of(1L, 2L, 4L));
+        negativeLookupCache.rebuild();
+    }
+
+    @Test
+    public void testGapsBelowTheLastRebuildAreMisses() {
+        // Act & Assert
+        assertTrue(negativeLookupCache.mightExist(1));
+        assertTrue(negativeLookupCache.mightExist(4));
+        assertFalse(negativeLookupCache.mightExist(3));
+        assertFalse(negativeLookupCache.mightExist(0));
+    }
+
+    @Test
+    public void testIdsAboveTheLastRebuildGoToTheDatabaseUntilConfirmedMissing() {
+        // Arrange: created by another instance, this one never saw it
+        assertTrue(negativeLookupCache.mightExist(5));
+
+        // Act
+        negativeLookupCache.recordMiss(6, negativeLookupCache.lookupStamp());
+
+        // Assert
+        assertTrue(negativeLookupCache.mightExist(5));
+        assertFalse(negativeLookupCache.mightExist(6));
+    }
+
+    @Test
+    public void testMissIsDroppedWhenACreateCommittedDuringTheLookup() {
+        // Arrange
+        long stamp = negativeLookupCache.lookupStamp();
+        negativeLookupCache.recordCreated(7);
+
+        // Act
+        negativeLookupCache.recordMiss(8, stamp);
+
+        // Assert: 8 may have been created meanwhile, a lookup started after the create is trusted
+        assertTrue(negativeLookupCache.mightExist(8));
+        negativeLookupCache.recordMiss(8, negativeLookupCache.lookupStamp());
+        assertFalse(negativeLookupCache.mightExist(8));
+    }
+
+    @Test
+    public void testDeleteIsAMissUntilCreatedAgain() {
+        // Act
+        negativeLookupCache.recordDeleted(2);
+
+        // Assert
+        assertFalse(negativeLookupCache.mightExist(2));
+        negativeLookupCache.recordCreated(2);
+        assertTrue(negativeLookupCache.mightExist(2));
+    }
+
+    @Test
+    public void testCreateAfterTheRebuildIsFound() {
+        // Arrange
+        negativeLookupCache.recordMiss(3, negativeLookupCache.lookupStamp());
+
+        // Act
+        negativeLookupCache.recordCreated(3);
+
+        // Assert
+        assertTrue(negativeLookupCache.mightExist(3));
+    }
+}
@@ -0,0 +1,103 @@
+package isa.jutjub.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ResponseCacheTest {
+
+    private ResponseCache responseCache;
+
+    @AfterEach
+    public void tearDown() {
+        responseCache.shutdown();
+    }
+
+    @Test
+    public void testServesFreshEntriesAndRebuildsAfterInvalidation() {
+        // Arrange
+        responseCache = newCache(60_000, 60_000);
+        AtomicInteger builds = new AtomicInteger();
+        Supplier<ResponseEntity<Map<String, Object>>> builder = () -> ResponseEntity.ok(Map.of("build", builds.incrementAndGet()));
+        String key = ResponseCache.key("recent", 0, 10);
+
+        // Act
+        ResponseEntity<Map<String, Object>> first = responseCache.get(key, builder);
+        ResponseEntity<Map<String, Object>> second = responseCache.get(key, builder);
+        responseCache.invalidateAll();
+        ResponseEntity<Map<String, Object>> third = responseCache.get(key, builder);
+
+        // Assert
+        assertEquals("MISS", first.getHeaders().getFirst(ResponseCache.HEADER));
+        assertEquals("HIT", second.getHeaders().getFirst(ResponseCache.HEADER));
+        assertEquals(1, second.getBody().get("build"));
+        assertEquals("MISS", third.getHeaders().getFirst(ResponseCache.HEADER));
+        assertEquals(2, third.getBody().get("build"));
+    }
+
+    @Test
+    public void testServesStaleWhileRefreshingInBackground() throws InterruptedException {
+        // Arrange: entries go stale immediately
+        responseCache = newCache(0, 60_000);
+        AtomicInteger builds = new AtomicInteger();
+        Supplier<ResponseEntity<Map<String, Object>>> builder = () -> ResponseEntity.ok(Map.of("build", builds.incrementAndGet()));
+        String key = ResponseCache.key("popular", "views", 0, 10);
+        responseCache.get(key, builder);
+
+        // Act
+        ResponseEntity<Map<String, Object>> stale = responseCache.get(key, builder);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (builds.get() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // Assert
+        assertEquals("STALE", stale.getHeaders().getFirst(ResponseCache.HEADER));
+        assertEquals(1, stale.getBody().get("build"));
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    public void testDoesNotCacheErrors() {
+        // Arrange
+        responseCache = newCache(60_000, 60_000);
+        AtomicInteger builds = new AtomicInteger();
+        Supplier<ResponseEntity<Map<String, Object>>> builder = () -> {
+            builds.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("success", false));
+        };
+        String key = ResponseCache.key("tag", "travel", 0, 10);
+
+        // Act
+        responseCache.get(key, builder);
+        ResponseEntity<Map<String, Object>> second = responseCache.get(key, builder);
+
+        // Assert
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, second.getStatusCode());
+        assertEquals("MISS", second.getHeaders().getFirst(ResponseCache.HEADER));
+        assertEquals(2, builds.get());
+    }
+
+    private static ResponseCache newCache(long freshMs, long maxStaleMs) {
+        RequestCoalescer requestCoalescer = new RequestCoalescer();
+        ReflectionTestUtils.setField(requestCoalescer, "timeoutMs", 2000L);
+        ResponseCache cache = new ResponseCache(requestCoalescer);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "freshMs", freshMs);
+        ReflectionTestUtils.setField(cache, "maxStaleMs", maxStaleMs);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100L);
+        ReflectionTestUtils.setField(cache, "earlyRefreshBeta", 1.0);
+        ReflectionTestUtils.setField(cache, "refreshThreads", 1);
+        cache.init();
+        return cache;
+    }
+}
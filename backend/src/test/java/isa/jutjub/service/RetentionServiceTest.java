@@ -0,0 +1,69 @@
+package isa.jutjub.service;
+
+import isa.jutjub.repository.VideoRetentionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RetentionServiceTest {
+
+    private static final long FILE_LENGTH = 1_000_000;
+
+    @Mock
+    private VideoRetentionRepository retentionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RetentionService retentionService;
+
+    @BeforeEach
+    public void setUp() {
+        retentionService = new RetentionService(retentionRepository, transactionManager);
+        ReflectionTestUtils.setField(retentionService, "openRangeSegments", 100);
+        when(retentionRepository.findByVideoPostId(1L)).thenReturn(Optional.empty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> counts(int points) {
+        Map<String, Object> retention = retentionService.getRetention(1L, points);
+        return (List<Long>) retention.get("counts");
+    }
+
+    @Test
+    public void testRangesAreCountedPerSegment() {
+        // Act: one full download, the first half twice, the last tenth as a suffix range
+        retentionService.recordRange(1L, null, FILE_LENGTH);
+        retentionService.recordRange(1L, "bytes=0-249999, 250000-499999", FILE_LENGTH);
+        retentionService.recordRange(1L, "bytes=0-499999", FILE_LENGTH);
+        retentionService.recordRange(1L, "bytes=-100000", FILE_LENGTH);
+
+        // Assert
+        assertEquals(List.of(3L, 3L, 3L, 3L, 3L, 1L, 1L, 1L, 1L, 2L), counts(10));
+    }
+
+    @Test
+    public void testOpenAndMalformedRanges() {
+        // Act: an open range counts for 100 segments, garbage and out of range requests for none
+        retentionService.recordRange(1L, "bytes=500000-", FILE_LENGTH);
+        retentionService.recordRange(1L, "items=0-10", FILE_LENGTH);
+        retentionService.recordRange(1L, "bytes=abc", FILE_LENGTH);
+        retentionService.recordRange(1L, "bytes=2000000-2000010", FILE_LENGTH);
+
+        // Assert
+        assertEquals(List.of(0L, 0L, 0L, 0L, 0L, 1L, 0L, 0L, 0L, 0L), counts(10));
+        assertEquals(2L, retentionService.getStats().get("malformedRanges"));
+    }
+}
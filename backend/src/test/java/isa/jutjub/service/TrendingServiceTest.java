@@ -0,0 +1,140 @@
+package isa.jutjub.service;
+
+import isa.jutjub.model.VideoPost;
+import isa.jutjub.repository.VideoPostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TrendingServiceTest {
+
+    @Mock
+    private VideoPostRepository videoPostRepository;
+
+    @Mock
+    private NegativeLookupCache negativeLookupCache;
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.DAYS.toMillis(20_000));
+
+    private TrendingService trendingService;
+
+    @BeforeEach
+    public void setUp() {
+        trendingService = new TrendingService(videoPostRepository, negativeLookupCache, now::get);
+        ReflectionTestUtils.setField(trendingService, "halfLifeHours", 1.0);
+        ReflectionTestUtils.setField(trendingService, "topK", 2);
+        ReflectionTestUtils.setField(trendingService, "viewWeight", 1.0);
+        ReflectionTestUtils.setField(trendingService, "likeWeight", 5.0);
+        ReflectionTestUtils.setField(trendingService, "refreshIntervalMs", Long.MAX_VALUE);
+        lenient().when(negativeLookupCache.mightExist(anyLong())).thenAnswer(invocation -> (long) invocation.getArgument(0) < 100);
+        lenient().when(videoPostRepository.findAllWithTagsByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().filter(id -> id < 50).map(TrendingServiceTest::videoPost).toList();
+        });
+    }
+
+    private static VideoPost videoPost(Long id) {
+        VideoPost videoPost = new VideoPost();
+        videoPost.setId(id);
+        return videoPost;
+    }
+
+    private List<Long> rankedIds() {
+        return trendingService.getTrending(0, 10).stream().map(v -> v.videoPost().getId()).toList();
+    }
+
+    @Test
+    public void testRecentActivityOutranksOlderActivity() {
+        // Arrange: video 1 got 8 views two hours ago, video 2 gets 3 views now
+        for (int i = 0; i < 8; i++) {
+            trendingService.recordView(1L);
+        }
+        trendingService.tick();
+        now.addAndGet(TimeUnit.HOURS.toMillis(2));
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            trendingService.recordView(2L);
+        }
+        trendingService.tick();
+
+        // Assert: 8 views decayed by two half-lives are worth 2 views now
+        assertEquals(List.of(2L, 1L), rankedIds());
+        assertEquals(2.0, trendingService.getTrending(0, 10).get(1).score(), 1e-9);
+    }
+
+    @Test
+    public void testTopKIsBoundedAndRefilledOnDelete() {
+        // Arrange
+        trendingService.recordLike(1L);
+        trendingService.recordView(2L);
+        trendingService.recordView(2L);
+        trendingService.recordView(3L);
+        trendingService.tick();
+        assertEquals(List.of(1L, 2L), rankedIds());
+
+        // Act
+        trendingService.discard(1L);
+        trendingService.tick();
+
+        // Assert
+        assertEquals(List.of(2L, 3L), rankedIds());
+    }
+
+    @Test
+    public void testUnknownVideosDoNotTakeTopPlaces() {
+        // Arrange: 100+ is rejected by the lookup cache, 50-99 passes it but is gone from the database
+        for (int i = 0; i < 10; i++) {
+            trendingService.recordLike(100L);
+            trendingService.recordLike(50L);
+        }
+        trendingService.recordView(1L);
+        trendingService.recordView(2L);
+        trendingService.tick();
+
+        // Act
+        trendingService.tick();
+
+        // Assert
+        assertEquals(List.of(1L, 2L), rankedIds());
+        assertEquals(10L, trendingService.getStats().get("rejectedEvents"));
+    }
+
+    @Test
+    public void testEventsRacingWithPruneAreKept() {
+        // Arrange: video 3 is outside the top-K, and a writer picks up its entry just before prune removes it
+        trendingService.recordLike(1L);
+        trendingService.recordLike(2L);
+        trendingService.recordView(3L);
+        trendingService.tick();
+        ReflectionTestUtils.setField(trendingService, "minScore", 2.0);
+        Map<?, ?> scores = (Map<?, ?>) ReflectionTestUtils.getField(trendingService, "scores");
+        trendingService.recordView(3L);
+        scores.remove(3L);
+
+        // Act
+        trendingService.tick();
+        trendingService.discard(1L);
+        trendingService.tick();
+
+        // Assert: both views count, video 3 takes the free place
+        assertEquals(List.of(2L, 3L), rankedIds());
+        assertEquals(2.0, trendingService.getTrending(0, 10).get(1).score(), 1e-9);
+    }
+}
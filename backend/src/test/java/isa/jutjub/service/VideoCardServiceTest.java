@@ -0,0 +1,103 @@
+package isa.jutjub.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import isa.jutjub.dto.FieldSet;
+import isa.jutjub.dto.VideoCard;
+import isa.jutjub.model.VideoPost;
+import isa.jutjub.repository.VideoPostRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({VideoCardService.class, ColumnarCatalogue.class})
+public class VideoCardServiceTest {
+
+    @Autowired
+    private VideoPostRepository videoPostRepository;
+
+    @Autowired
+    private VideoCardService videoCardService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        for (int i = 0; i < 12; i++) {
+            VideoPost videoPost = new VideoPost();
+            videoPost.setTitle("Video " + i);
+            videoPost.setVideoDescription("x".repeat(1_000));
+            videoPost.setVideoPath("videos/" + i + ".mp4");
+            videoPost.setThumbnailPath("thumbnails/" + i + ".jpg");
+            videoPost.addTag("tag" + i);
+            videoPost.addTag("common");
+            entityManager.persist(videoPost);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testPageLoadsWithTwoStatements() throws Exception {
+        // Act
+        Slice<VideoCard> page = videoCardService.toCards(videoPostRepository.findMostRecent(true, PageRequest.of(1, 5)), FieldSet.ALL);
+        String json = new ObjectMapper().registerModule(new JavaTimeModule()).writeValueAsString(page.getContent());
+
+        // Assert: one query for the cards and one IN query for all their tags, however large the page
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(5, page.getNumberOfElements());
+        assertTrue(page.hasNext());
+        for (VideoCard card : page.getContent()) {
+            assertEquals(2, card.tags().size());
+            assertEquals(VideoCard.PREVIEW_LENGTH, card.descriptionPreview().length());
+        }
+        assertFalse(json.contains("videos/"));
+        assertFalse(json.contains("thumbnails/"));
+    }
+
+    @Test
+    public void testTagPageLoadsWithTwoStatements() {
+        // Act
+        List<VideoCard> cards = videoCardService.toCards(
+                videoPostRepository.findByTag("common", true, PageRequest.of(0, 10)).getContent(), FieldSet.ALL);
+
+        // Assert
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(10, cards.size());
+    }
+
+    @Test
+    public void testSparsePageSkipsDescriptionAndTags() {
+        // Act
+        List<VideoCard> cards = videoCardService.toCards(
+                videoPostRepository.findMostRecent(false, PageRequest.of(0, 5)).getContent(), FieldSet.ofCards("id,title"));
+
+        // Assert: no tags query and no description read
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(5, cards.size());
+        for (VideoCard card : cards) {
+            assertNull(card.descriptionPreview());
+            assertTrue(card.tags().isEmpty());
+        }
+    }
+}
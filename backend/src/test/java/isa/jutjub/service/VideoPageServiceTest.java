@@ -0,0 +1,144 @@
+package isa.jutjub.service;
+
+import isa.jutjub.dto.VideoCard;
+import isa.jutjub.dto.VideoPage;
+import isa.jutjub.model.VideoPost;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class VideoPageServiceTest {
+
+    @Mock
+    private VideoPostService videoPostService;
+
+    @InjectMocks
+    private VideoPageService videoPageService;
+
+    private final VideoPost videoPost = new VideoPost();
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(videoPageService, "threads", 4);
+        ReflectionTestUtils.setField(videoPageService, "queueSize", 10);
+        ReflectionTestUtils.setField(videoPageService, "countersTimeoutMs", 500L);
+        ReflectionTestUtils.setField(videoPageService, "relatedTimeoutMs", 100L);
+        ReflectionTestUtils.setField(videoPageService, "relatedSize", 8);
+        videoPageService.init();
+        videoPost.setId(1L);
+        videoPost.setLikesCount(5L);
+        videoPost.setCommentsCount(2L);
+        videoPost.addTag("travel");
+        lenient().when(videoPostService.findVideoPostById(1L)).thenReturn(Optional.of(videoPost));
+        lenient().when(videoPostService.getViewCount(videoPost)).thenReturn(100L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        videoPageService.shutdown();
+    }
+
+    @Test
+    public void testLoadsPartsConcurrently() {
+        // Arrange: two parts of 200 ms each
+        when(videoPostService.getLikeCount(1L)).thenAnswer(sleeping(200, 7L));
+        when(videoPostService.getUniqueViewers(1L, null)).thenReturn(3L);
+        when(videoPostService.hasLiked(1L, "ana")).thenReturn(true);
+        ReflectionTestUtils.setField(videoPageService, "relatedTimeoutMs", 500L);
+        VideoCard card = new VideoCard(2L, "Related", null, null, null, 0L, 0L, 0L, List.of("travel"));
+        when(videoPostService.getRelatedVideoPosts(any(VideoPost.class), anyInt())).thenAnswer(sleeping(200, List.of(card)));
+
+        // Act
+        long start = System.nanoTime();
+        VideoPage page = videoPageService.getVideoPage(1L, "ana").orElseThrow();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Assert: the page takes as long as its slowest part, not their sum
+        assertTrue(elapsedMs < 380, "took " + elapsedMs + " ms");
+        assertEquals(7L, page.counters().get("likesCount"));
+        assertEquals(100L, page.counters().get("viewsCount"));
+        assertEquals(true, page.counters().get("liked"));
+        assertEquals(List.of(card), page.related());
+        assertTrue(page.degraded().isEmpty());
+    }
+
+    @Test
+    public void testSlowOptionalPartDegrades() {
+        // Arrange
+        when(videoPostService.getLikeCount(1L)).thenReturn(7L);
+        when(videoPostService.getUniqueViewers(1L, null)).thenReturn(3L);
+        when(videoPostService.getRelatedVideoPosts(any(VideoPost.class), anyInt())).thenAnswer(sleeping(2_000, List.of()));
+
+        // Act
+        long start = System.nanoTime();
+        VideoPage page = videoPageService.getVideoPage(1L, null).orElseThrow();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Assert: answered after the related timeout with an empty fallback
+        assertTrue(elapsedMs < 1_000, "took " + elapsedMs + " ms");
+        assertEquals(List.of(VideoPageService.RELATED), page.degraded());
+        assertTrue(page.related().isEmpty());
+        assertEquals(7L, page.counters().get("likesCount"));
+        assertEquals(1L, ((Map<?, ?>) videoPageService.getStats().get("timeouts")).get(VideoPageService.RELATED));
+    }
+
+    @Test
+    public void testFailedCountersKeepTheirKeys() {
+        // Arrange
+        when(videoPostService.getLikeCount(1L)).thenThrow(new RuntimeException("db down"));
+        when(videoPostService.getRelatedVideoPosts(any(VideoPost.class), anyInt())).thenReturn(List.of());
+
+        // Act
+        VideoPage page = videoPageService.getVideoPage(1L, "ana").orElseThrow();
+
+        // Assert: persisted likes, unknown unique viewers and like state
+        assertEquals(List.of(VideoPageService.COUNTERS), page.degraded());
+        assertEquals(5L, page.counters().get("likesCount"));
+        assertTrue(page.counters().containsKey("uniqueViewers"));
+        assertNull(page.counters().get("uniqueViewers"));
+        assertTrue(page.counters().containsKey("liked"));
+        assertNull(page.counters().get("liked"));
+    }
+
+    @Test
+    public void testUnknownVideoStartsNoParts() {
+        // Arrange
+        when(videoPostService.findVideoPostById(2L)).thenReturn(Optional.empty());
+
+        // Act
+        Optional<VideoPage> page = videoPageService.getVideoPage(2L, "ana");
+
+        // Assert
+        assertTrue(page.isEmpty());
+        verify(videoPostService, never()).getLikeCount(2L);
+        verify(videoPostService, never()).hasLiked(2L, "ana");
+    }
+
+    private static <T> Answer<T> sleeping(long millis, T value) {
+        return invocation -> {
+            Thread.sleep(millis);
+            return value;
+        };
+    }
+}
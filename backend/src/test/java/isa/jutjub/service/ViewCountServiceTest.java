@@ -0,0 +1,52 @@
+package isa.jutjub.service;
+
+import isa.jutjub.model.CounterType;
+import isa.jutjub.repository.VideoPostRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ViewCountServiceTest {
+
+    @Mock
+    private VideoPostRepository videoPostRepository;
+
+    @Mock
+    private CounterBuffer counterBuffer;
+
+    @InjectMocks
+    private ViewCountService viewCountService;
+
+    @Test
+    public void testWriteBehindGoesThroughBuffer() {
+        // Arrange
+        when(counterBuffer.getPending(1L, CounterType.VIEWS)).thenReturn(3L);
+
+        // Act
+        viewCountService.recordView(1L, ViewCountService.MODE_WRITE_BEHIND);
+
+        // Assert
+        verify(counterBuffer).record(1L, CounterType.VIEWS, 1);
+        verify(videoPostRepository, never()).incrementViewsCount(1L);
+        assertEquals(13, viewCountService.getViewCount(1L, 10L));
+    }
+
+    @Test
+    public void testDirectModeRejectsUnknownVideo() {
+        // Arrange
+        when(videoPostRepository.incrementViewsCount(99L)).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(RuntimeException.class,
+                () -> viewCountService.recordView(99L, ViewCountService.MODE_DIRECT));
+    }
+}
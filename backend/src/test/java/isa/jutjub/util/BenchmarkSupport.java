@@ -0,0 +1,104 @@
+package isa.jutjub.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import isa.jutjub.dto.VideoCard;
+import isa.jutjub.service.CardJsonCache;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixtures and the timing loop shared by the benchmark tests, which only run with -Dbenchmarks=true
+ */
+public final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * A call to measure
+     */
+    @FunctionalInterface
+    public interface Call {
+        void run() throws Exception;
+    }
+
+    /**
+     * Cost of one call, measured on the calling thread
+     * @param cpuMicros CPU time in microseconds
+     * @param allocatedBytes bytes allocated
+     */
+    public record Cost(double cpuMicros, long allocatedBytes) {
+    }
+
+    /**
+     * Runs a call to warm up, then measures the CPU time and allocations of further runs
+     * @param warmupIterations runs before measuring
+     * @param iterations measured runs
+     * @param call the call
+     * @return the average cost of one measured run
+     */
+    public static Cost measure(int warmupIterations, int iterations, Call call) throws Exception {
+        for (int i = 0; i < warmupIterations; i++) {
+            call.run();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long cpuBefore = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < iterations; i++) {
+            call.run();
+        }
+        long cpuNanos = threads.getCurrentThreadCpuTime() - cpuBefore;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        return new Cost(cpuNanos / 1000.0 / iterations, allocated / iterations);
+    }
+
+    /**
+     * Cards as the list endpoints return them, with a 200 character description preview
+     * @param count number of cards
+     * @return cards with IDs 1 to count
+     */
+    public static List<VideoCard> cards(int count) {
+        LocalDateTime created = LocalDateTime.of(2026, 1, 1, 12, 0);
+        String preview = "A walk through the old town, the fortress and the river bank at sunset. ".repeat(3).substring(0, 200);
+        List<VideoCard> cards = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            cards.add(new VideoCard(id, "Video number " + id, preview + id, id % 2 == 0 ? "Novi Sad" : "Beograd",
+                    created.plusMinutes(id), id * 7, id * 3, id * 1_000, List.of("city", "travel", "walk")));
+        }
+        return cards;
+    }
+
+    /**
+     * The envelope the list endpoints build around a page
+     * @param data the page
+     * @return the response body
+     */
+    public static Map<String, Object> envelope(Object data) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", data);
+        response.put("currentPage", 0);
+        response.put("totalItems", 1000L);
+        response.put("totalPages", 100);
+        return response;
+    }
+
+    /**
+     * An enabled card JSON cache, large enough to hold every benchmark card
+     * @param objectMapper the mapper writing the fragments
+     * @return the initialized cache
+     */
+    public static CardJsonCache cardJsonCache(ObjectMapper objectMapper) {
+        CardJsonCache cardJsonCache = new CardJsonCache(objectMapper);
+        ReflectionTestUtils.setField(cardJsonCache, "enabled", true);
+        ReflectionTestUtils.setField(cardJsonCache, "maxBytes", 16_000_000L);
+        cardJsonCache.init();
+        return cardJsonCache;
+    }
+}
@@ -0,0 +1,62 @@
+package isa.jutjub.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EventRingBufferTest {
+
+    @Test
+    public void testClaimFailsWhenFullInsteadOfWaiting() {
+        // Arrange
+        EventRingBuffer ring = new EventRingBuffer(4);
+        long first = ring.tryClaim(3);
+        for (int i = 0; i < 3; i++) {
+            ring.publish(first + i, 1, 0, i);
+        }
+
+        // Act & Assert
+        assertEquals(-1, ring.tryClaim(2));
+        List<Long> values = new ArrayList<>();
+        assertEquals(3, ring.drain((key, type, value) -> values.add(value), 10));
+        assertEquals(List.of(0L, 1L, 2L), values);
+        assertEquals(3, ring.tryClaim(2));
+    }
+
+    @Test
+    public void testConcurrentProducersLoseNothingThatWasAccepted() throws InterruptedException {
+        // Arrange
+        EventRingBuffer ring = new EventRingBuffer(1024);
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong consumed = new AtomicLong();
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    long sequence = ring.tryClaim(1);
+                    if (sequence >= 0) {
+                        ring.publish(sequence, 7, 1, 1);
+                        accepted.incrementAndGet();
+                    }
+                }
+            });
+            producers.add(producer);
+        }
+
+        // Act
+        producers.forEach(Thread::start);
+        while (producers.stream().anyMatch(Thread::isAlive) || ring.size() > 0) {
+            ring.drain((key, type, value) -> consumed.addAndGet(value), 256);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        // Assert
+        assertEquals(accepted.get(), consumed.get());
+    }
+}
@@ -0,0 +1,89 @@
+package isa.jutjub.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExpiringLongSetTest {
+
+    @Test
+    public void testRepeatsAreRejectedUntilExpiry() {
+        // Arrange
+        AtomicLong now = new AtomicLong(1_000_000);
+        ExpiringLongSet set = new ExpiringLongSet(64_000, 10_000, now::get);
+
+        // Act & Assert
+        assertTrue(set.add(42));
+        assertFalse(set.add(42));
+
+        now.addAndGet(63_000);
+        assertFalse(set.add(42));
+
+        now.addAndGet(1_000);
+        assertTrue(set.add(42));
+        assertEquals(1, set.getExpiredCount());
+    }
+
+    @Test
+    public void testSurvivesManyInsertsAndRemovals() {
+        // Arrange
+        AtomicLong now = new AtomicLong(0);
+        ExpiringLongSet set = new ExpiringLongSet(64_000, 1_000_000, now::get);
+
+        // Act: 100 ticks with 1,000 keys each, keys live for 64 ticks
+        for (int tick = 0; tick < 100; tick++) {
+            for (int i = 0; i < 1_000; i++) {
+                assertTrue(set.add(tick * 1_000L + i));
+            }
+            now.addAndGet(1_000);
+        }
+
+        // Assert: keys of the last 64 ticks are still present, older ones are gone
+        assertEquals(64_000, set.size());
+        assertFalse(set.add(99_999));
+        assertTrue(set.add(0));
+    }
+
+    @Test
+    public void testCapacityIsBounded() {
+        // Arrange
+        AtomicLong now = new AtomicLong(0);
+        ExpiringLongSet set = new ExpiringLongSet(64_000, 6_400, now::get);
+
+        // Act
+        for (int tick = 0; tick < 10; tick++) {
+            for (int i = 0; i < 10_000; i++) {
+                set.add(tick * 10_000L + i);
+            }
+            now.addAndGet(1_000);
+        }
+
+        // Assert
+        assertTrue(set.size() <= 6_400);
+        assertTrue(set.getEvictedCount() > 0);
+    }
+
+    @Test
+    public void testContainsAndRemove() {
+        // Arrange
+        AtomicLong now = new AtomicLong(0);
+        ExpiringLongSet set = new ExpiringLongSet(64_000, 10_000, now::get);
+        set.add(7);
+
+        // Act & Assert
+        assertTrue(set.contains(7));
+        assertFalse(set.contains(8));
+
+        set.remove(7);
+        assertFalse(set.contains(7));
+        assertEquals(0, set.size());
+
+        set.add(8);
+        now.addAndGet(64_000);
+        assertFalse(set.contains(8));
+    }
+}
@@ -0,0 +1,72 @@
+package isa.jutjub.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HyperLogLogTest {
+
+    private static HyperLogLog sketchOf(int from, int to) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = from; i < to; i++) {
+            sketch.offer(Hashing.hash64("ip:10.0." + i));
+        }
+        return sketch;
+    }
+
+    @Test
+    public void testEstimateIsWithinErrorBounds() {
+        // Arrange
+        HyperLogLog sketch = sketchOf(0, 100_000);
+
+        // Act
+        long estimate = sketch.cardinality();
+
+        // Assert (5% is about three standard errors)
+        assertTrue(Math.abs(estimate - 100_000) < 5_000, "estimate was " + estimate);
+    }
+
+    @Test
+    public void testRepeatedViewersAreNotCounted() {
+        // Arrange
+        HyperLogLog sketch = sketchOf(0, 10);
+
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            sketch.offer(Hashing.hash64("ip:10.0." + (i % 10)));
+        }
+
+        // Assert
+        assertEquals(10, sketch.cardinality());
+    }
+
+    @Test
+    public void testMergeOfOverlappingWindows() {
+        // Arrange: two days sharing 5,000 viewers
+        HyperLogLog monday = sketchOf(0, 10_000);
+        HyperLogLog tuesday = sketchOf(5_000, 15_000);
+
+        // Act
+        long estimate = monday.copy().merge(tuesday).cardinality();
+
+        // Assert
+        assertTrue(Math.abs(estimate - 15_000) < 750, "estimate was " + estimate);
+    }
+
+    @Test
+    public void testSerializationRoundTrip() {
+        // Arrange
+        HyperLogLog sparse = sketchOf(0, 50);
+        HyperLogLog dense = sketchOf(0, 50_000);
+
+        // Act
+        byte[] sparseBytes = sparse.toBytes();
+        byte[] denseBytes = dense.toBytes();
+
+        // Assert
+        assertTrue(sparseBytes.length < 200);
+        assertEquals(sparse.cardinality(), HyperLogLog.fromBytes(sparseBytes).cardinality());
+        assertEquals(dense.cardinality(), HyperLogLog.fromBytes(denseBytes).cardinality());
+    }
+}
@@ -0,0 +1,56 @@
+package isa.jutjub.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RollingCounterTest {
+
+    @Test
+    public void testBucketsRollOver() {
+        // Arrange
+        RollingCounter counter = new RollingCounter(4, 1_000);
+
+        // Act: 1 event in second 10, 2 in second 11, 3 in second 13
+        counter.increment(10_000);
+        counter.increment(11_100);
+        counter.increment(11_900);
+        for (int i = 0; i < 3; i++) {
+            counter.increment(13_500);
+        }
+
+        // Assert
+        assertArrayEquals(new long[]{1, 2, 0, 3}, counter.snapshot(13_999, 4));
+        // Second 14 reuses the slot of second 10, which must read as empty
+        assertArrayEquals(new long[]{2, 0, 3, 0}, counter.snapshot(14_000, 4));
+        assertArrayEquals(new long[]{0, 0, 0, 0}, counter.snapshot(30_000, 4));
+    }
+
+    @Test
+    public void testConcurrentIncrementsAreNotLost() throws InterruptedException {
+        // Arrange
+        RollingCounter counter = new RollingCounter(60, 60_000);
+        List<Thread> threads = new ArrayList<>();
+
+        // Act
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.increment(120_000);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Assert
+        assertEquals(80_000, counter.snapshot(120_000, 1)[0]);
+    }
+}
@@ -0,0 +1,46 @@
+package isa.jutjub.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SeekCursorTest {
+
+    @Test
+    public void testCreatedAtCursorRoundTrips() {
+        // Arrange
+        LocalDateTime createdAt = LocalDateTime.of(2024, 3, 15, 10, 30, 45, 123_456_789);
+        String token = SeekCursor.ofCreatedAt(createdAt, 42).encode();
+
+        // Act
+        SeekCursor decoded = SeekCursor.decode(token, SeekCursor.Kind.CREATED_AT);
+
+        // Assert
+        assertEquals(createdAt, decoded.getCreatedAt());
+        assertEquals(42, decoded.getId());
+    }
+
+    @Test
+    public void testBlankTokenStartsAtFirstRow() {
+        // Act
+        SeekCursor first = SeekCursor.decode("", SeekCursor.Kind.LIKES);
+
+        // Assert
+        assertEquals(Long.MAX_VALUE, first.getKey());
+        assertEquals(Long.MAX_VALUE, first.getId());
+    }
+
+    @Test
+    public void testRejectsForeignAndMalformedTokens() {
+        // Arrange
+        String likesToken = SeekCursor.ofLikes(7, 3).encode();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> SeekCursor.decode(likesToken, SeekCursor.Kind.CREATED_AT));
+        assertThrows(IllegalArgumentException.class, () -> SeekCursor.decode("not a cursor!", SeekCursor.Kind.LIKES));
+        assertThrows(IllegalArgumentException.class, () -> SeekCursor.decode("AAAA", SeekCursor.Kind.CREATED_AT));
+    }
+}
@@ -0,0 +1,84 @@
+package isa.jutjub.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        // Arrange
+        SingleFlight<Long, String> flight = new SingleFlight<>(5_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+
+        // Act: the leader blocks until every follower has joined its flight
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> flight.load(1L, () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "video-1";
+            })));
+        }
+        while (flight.getCoalesced() < 7) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // Assert
+        for (Future<String> result : results) {
+            assertEquals("video-1", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, flight.getInFlight());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testFollowersGiveUpOnASlowLeaderAndSeeItsFailure() throws Exception {
+        // Arrange
+        SingleFlight<Long, String> flight = new SingleFlight<>(50);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> leader = executor.submit(() -> flight.load(1L, () -> {
+            await(release);
+            throw new RuntimeException("Video post not found with ID: 1");
+        }));
+        while (flight.getInFlight() == 0) {
+            Thread.onSpinWait();
+        }
+
+        // Act & Assert: a follower times out while the leader is stuck
+        assertThrows(SingleFlight.LoadTimeoutException.class, () -> flight.load(1L, () -> "never"));
+        assertEquals(1, flight.getTimeouts());
+
+        release.countDown();
+        Exception failure = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause().getMessage().contains("not found"));
+        // The key is free again once the leader is done
+        assertEquals("loaded", flight.load(1L, () -> "loaded"));
+        executor.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
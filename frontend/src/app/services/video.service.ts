@@ -79,7 +79,7 @@ export class VideoService {
         return videos.map((video: any) => ({
           id: video.id.toString(),
           title: video.title,
-          description: video.videoDescription,
+          description: video.descriptionPreview,
           tags: Array.isArray(video.tags) ? video.tags : (video.tags ? Object.values(video.tags) : []),
           thumbnailUrl: `${this.apiUrl}/${video.id}/thumbnail`,
           videoUrl: `${this.apiUrl}/${video.id}/video`,